@@ -1,25 +1,50 @@
 package com.doublez.pocketmindserver.resource.api;
 
+import com.doublez.pocketmindserver.resource.api.dto.BatchSubmitRequest;
+import com.doublez.pocketmindserver.resource.api.dto.BatchSubmitResponse;
+import com.doublez.pocketmindserver.resource.api.dto.ResourceContentDTO;
+import com.doublez.pocketmindserver.resource.api.dto.ResourceListResponse;
+import com.doublez.pocketmindserver.resource.api.dto.ResourceSearchResponse;
 import com.doublez.pocketmindserver.resource.api.dto.ResourceStatusDTO;
 import com.doublez.pocketmindserver.resource.api.dto.StatusRequest;
 import com.doublez.pocketmindserver.resource.api.dto.SubmitRequest;
 import com.doublez.pocketmindserver.resource.api.dto.SubmitResponse;
 import com.doublez.pocketmindserver.resource.application.ResourceApplicationService;
+import com.doublez.pocketmindserver.resource.application.ResourceExportService;
+import com.doublez.pocketmindserver.resource.application.ResourceSearchService;
+import com.doublez.pocketmindserver.resource.application.ResourceStatusStreamService;
 import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
 import com.doublez.pocketmindserver.shared.web.ApiCode;
+import com.doublez.pocketmindserver.shared.security.UserContext;
 import com.doublez.pocketmindserver.shared.web.BusinessException;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
+@Validated
 @RestController
 @RequestMapping("/api/resource")
 @RequiredArgsConstructor
@@ -27,6 +52,9 @@ import java.util.List;
 public class ResourceController {
 
     private final ResourceApplicationService resourceApplicationService;
+    private final ResourceStatusStreamService resourceStatusStreamService;
+    private final ResourceExportService resourceExportService;
+    private final ResourceSearchService resourceSearchService;
 
     @PostMapping("/submit")
     public ResponseEntity<SubmitResponse> submitResource(@Valid @RequestBody SubmitRequest request) {
@@ -34,6 +62,11 @@ public class ResourceController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/submit-batch")
+    public ResponseEntity<BatchSubmitResponse> submitBatch(@Valid @RequestBody BatchSubmitRequest request) {
+        return ResponseEntity.ok(resourceApplicationService.submitBatch(request));
+    }
+
     @PostMapping("/status")
     public ResponseEntity<List<ResourceStatusDTO>> checkStatus(@Valid @RequestBody StatusRequest request) {
         List<ResourceStatusDTO> statusList = resourceApplicationService.checkStatus(request);
@@ -43,4 +76,64 @@ public class ResourceController {
 
         return ResponseEntity.ok(statusList);
     }
+
+    /**
+     * 订阅资源状态变更（SSE），替代轮询 /status。
+     * 传 uuids 时只推送这些资源；不传则推送当前用户名下所有资源。
+     */
+    @GetMapping(value = "/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStatus(@RequestParam(required = false) List<UUID> uuids) {
+        String userId = UserContext.getRequiredUserId();
+        return resourceStatusStreamService.subscribe(userId, uuids == null ? List.of() : uuids);
+    }
+
+    /**
+     * 分段读取正文，offset / limit 按字符计；/status 只返回预览
+     */
+    @GetMapping("/{uuid}/content")
+    public ResponseEntity<ResourceContentDTO> getContent(
+            @PathVariable UUID uuid,
+            @RequestParam(defaultValue = "0") @Min(0) int offset,
+            @RequestParam(defaultValue = "20000") @Min(1) int limit
+    ) {
+        return ResponseEntity.ok(resourceApplicationService.getContent(uuid, offset, limit));
+    }
+
+    /**
+     * 当前用户资源库，按最近更新倒序分页；把上一页返回的 nextCursor 原样传回取下一页
+     */
+    @GetMapping("/list")
+    public ResponseEntity<ResourceListResponse> list(
+            @RequestParam(required = false) Set<ResourceStatus> status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit
+    ) {
+        return ResponseEntity.ok(resourceApplicationService.listLibrary(status, cursor, limit));
+    }
+
+    /**
+     * 在当前用户资源库内混合检索（语义 + 关键词），按相关度排序，不分页
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ResourceSearchResponse> search(
+            @RequestParam @NotBlank @Size(max = 500) String q,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int limit
+    ) {
+        return ResponseEntity.ok(resourceSearchService.search(q, limit));
+    }
+
+    /**
+     * 导出当前用户全部资源（含正文、摘要、标签），每行一个 JSON；gzip=true 时返回 .ndjson.gz
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "false") boolean gzip) {
+        // 响应体在 MVC 异步线程上写出，UserContext 不会跟过去，这里先取出
+        String userId = UserContext.getRequiredUserId();
+        StreamingResponseBody body = resourceExportService.export(userId, gzip);
+        String filename = gzip ? "pocketmind-export.ndjson.gz" : "pocketmind-export.ndjson";
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
 }
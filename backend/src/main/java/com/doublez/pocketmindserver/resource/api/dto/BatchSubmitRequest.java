@@ -0,0 +1,14 @@
+package com.doublez.pocketmindserver.resource.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchSubmitRequest(
+        @NotEmpty(message = "urls 不能为空")
+        @Size(max = 500, message = "单次最多提交 500 个 url")
+        List<@NotBlank(message = "url 不能为空") String> urls
+) {
+}
@@ -0,0 +1,22 @@
+package com.doublez.pocketmindserver.resource.api.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 批量提交结果，与请求中的 url 一一对应（保持请求顺序，重复 url 返回相同结果）
+ */
+public record BatchSubmitResponse(List<Item> results) {
+
+    public record Item(String url, UUID uuid, Outcome outcome) {
+    }
+
+    public enum Outcome {
+        /** 新建，抓取任务已随事务写入 outbox */
+        CREATED,
+        /** 复用已有的成功/处理中资源 */
+        REUSED,
+        /** 保留给客户端兼容；抓取任务改由 outbox 异步投递后不再返回 */
+        FAILED
+    }
+}
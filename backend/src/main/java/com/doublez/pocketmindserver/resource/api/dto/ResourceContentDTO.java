@@ -0,0 +1,15 @@
+package com.doublez.pocketmindserver.resource.api.dto;
+
+import java.util.UUID;
+
+/**
+ * 正文分段，offset / totalLength 按字符计；nextOffset 为空表示已读到末尾
+ */
+public record ResourceContentDTO(
+        UUID uuid,
+        int offset,
+        String content,
+        int totalLength,
+        Integer nextOffset
+) {
+}
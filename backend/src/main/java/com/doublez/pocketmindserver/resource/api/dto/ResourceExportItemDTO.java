@@ -0,0 +1,23 @@
+package com.doublez.pocketmindserver.resource.api.dto;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * NDJSON 导出的一行
+ */
+public record ResourceExportItemDTO(
+        UUID uuid,
+        String url,
+        String title,
+        ResourceStatus status,
+        String content,
+        String summary,
+        @JsonRawValue String tags,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+}
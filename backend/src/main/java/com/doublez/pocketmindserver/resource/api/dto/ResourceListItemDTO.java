@@ -0,0 +1,15 @@
+package com.doublez.pocketmindserver.resource.api.dto;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record ResourceListItemDTO(
+        UUID uuid,
+        String url,
+        String title,
+        ResourceStatus status,
+        LocalDateTime updatedAt
+) {
+}
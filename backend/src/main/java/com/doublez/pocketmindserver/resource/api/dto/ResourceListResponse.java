@@ -0,0 +1,12 @@
+package com.doublez.pocketmindserver.resource.api.dto;
+
+import java.util.List;
+
+/**
+ * nextCursor 为空表示没有更多数据
+ */
+public record ResourceListResponse(
+        List<ResourceListItemDTO> items,
+        String nextCursor
+) {
+}
@@ -0,0 +1,21 @@
+package com.doublez.pocketmindserver.resource.api.dto;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * @param snippet 最相关分块的摘录，命中词以 &lt;mark&gt; 包裹；只有标题命中时为 null
+ * @param score   融合得分，只用于同一次结果内的相对比较
+ */
+public record ResourceSearchItemDTO(
+        UUID uuid,
+        String url,
+        String title,
+        ResourceStatus status,
+        String snippet,
+        double score,
+        LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,12 @@
+package com.doublez.pocketmindserver.resource.api.dto;
+
+import java.util.List;
+
+/**
+ * @param semantic 本次是否使用了语义召回；向量模型不可用时只按关键词检索
+ */
+public record ResourceSearchResponse(
+        List<ResourceSearchItemDTO> items,
+        boolean semantic
+) {
+}
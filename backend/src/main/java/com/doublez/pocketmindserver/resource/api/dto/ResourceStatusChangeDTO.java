@@ -0,0 +1,16 @@
+package com.doublez.pocketmindserver.resource.api.dto;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+
+import java.util.UUID;
+
+/**
+ * SSE 推送的状态变更事件，只携带轻量字段，正文仍通过状态接口获取
+ */
+public record ResourceStatusChangeDTO(
+        UUID uuid,
+        String url,
+        String title,
+        ResourceStatus status
+) {
+}
@@ -0,0 +1,50 @@
+package com.doublez.pocketmindserver.resource.application;
+
+import com.doublez.pocketmindserver.resource.domain.EmbeddingCache;
+import com.doublez.pocketmindserver.resource.infra.embedding.ResourceEmbeddingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 清理没有任何分块引用的缓存向量（文档重新抓取后内容变化、文档删除等）。
+ * 每批单独提交；满批说明可能还有积压，继续下一批。多实例同时运行只会重复检查，不会误删。
+ *
+ * 指标：resource.embedding.cache.evicted。
+ */
+@Slf4j
+@Service
+public class EmbeddingCacheGcService {
+
+    private final EmbeddingCache embeddingCache;
+    private final ResourceEmbeddingProperties.Cache properties;
+    private final Counter evicted;
+
+    public EmbeddingCacheGcService(EmbeddingCache embeddingCache,
+                                   ResourceEmbeddingProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.embeddingCache = embeddingCache;
+        this.properties = properties.cache();
+        this.evicted = Counter.builder("resource.embedding.cache.evicted").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${pocketmind.resource.embedding.cache.gc-interval:1h}",
+            initialDelayString = "${pocketmind.resource.embedding.cache.gc-interval:1h}")
+    public void collect() {
+        if (!properties.enabled()) {
+            return;
+        }
+        int total = 0;
+        int deleted;
+        do {
+            deleted = embeddingCache.deleteUnreferenced(properties.gcGrace(), properties.gcBatchSize());
+            total += deleted;
+        } while (deleted == properties.gcBatchSize());
+        evicted.increment(total);
+        if (total > 0) {
+            log.info("Evicted {} unreferenced cached embeddings", total);
+        }
+    }
+}
@@ -1,101 +1,264 @@
 package com.doublez.pocketmindserver.resource.application;
 
+import com.doublez.pocketmindserver.resource.api.dto.BatchSubmitRequest;
+import com.doublez.pocketmindserver.resource.api.dto.BatchSubmitResponse;
+import com.doublez.pocketmindserver.resource.api.dto.ResourceContentDTO;
+import com.doublez.pocketmindserver.resource.api.dto.ResourceListItemDTO;
+import com.doublez.pocketmindserver.resource.api.dto.ResourceListResponse;
 import com.doublez.pocketmindserver.resource.api.dto.ResourceStatusDTO;
 import com.doublez.pocketmindserver.resource.api.dto.StatusRequest;
 import com.doublez.pocketmindserver.resource.api.dto.SubmitRequest;
 import com.doublez.pocketmindserver.resource.api.dto.SubmitResponse;
+import com.doublez.pocketmindserver.resource.domain.LibraryEntry;
+import com.doublez.pocketmindserver.resource.domain.LibraryRepository;
+import com.doublez.pocketmindserver.resource.domain.ResourceContentSlice;
 import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import com.doublez.pocketmindserver.resource.domain.ResourceStatusView;
+import com.doublez.pocketmindserver.resource.domain.ResourceSummary;
 import com.doublez.pocketmindserver.resource.infra.mq.event.CrawlerRequestEvent;
-import com.doublez.pocketmindserver.resource.infra.persistence.ResourceMetadata;
+import com.doublez.pocketmindserver.resource.infra.mq.event.EmbeddingRequestEvent;
 import com.doublez.pocketmindserver.resource.domain.Resource;
 import com.doublez.pocketmindserver.resource.domain.ResourceRepository;
+import com.doublez.pocketmindserver.resource.domain.UrlCanonicalizer;
+import com.doublez.pocketmindserver.resource.infra.cache.CrawlResultCache;
 import com.doublez.pocketmindserver.shared.security.UserContext;
+import com.doublez.pocketmindserver.shared.web.ApiCode;
+import com.doublez.pocketmindserver.shared.web.BusinessException;
 import com.doublez.pocketmindserver.resource.infra.mq.CrawlerProducer;
+import com.doublez.pocketmindserver.resource.infra.mq.EmbeddingProducer;
+import com.doublez.pocketmindserver.resource.infra.mq.ResourceStatusPublisher;
+import com.doublez.pocketmindserver.resource.infra.http.JinaRateGovernor;
 import com.doublez.pocketmindserver.resource.infra.http.JinaReaderClient;
+import com.doublez.pocketmindserver.resource.infra.http.JinaReaderClient.JinaResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class ResourceApplicationService {
 
     private final ResourceRepository resourceRepository;
+    private final LibraryRepository libraryRepository;
     private final CrawlerProducer crawlerProducer;
+    private final EmbeddingProducer embeddingProducer;
     private final JinaReaderClient jinaReaderClient;
+    private final ResourceStatusPublisher resourceStatusPublisher;
+    private final CrawlResultCache crawlResultCache;
+    private final JinaRateGovernor jinaRateGovernor;
+    private final TransactionTemplate transactionTemplate;
+    private final int previewChars;
+    private final int maxContentPageChars;
+    private final boolean embeddingEnabled;
 
     public ResourceApplicationService(
             ResourceRepository resourceRepository,
+            LibraryRepository libraryRepository,
             CrawlerProducer crawlerProducer,
-            JinaReaderClient jinaReaderClient
+            EmbeddingProducer embeddingProducer,
+            JinaReaderClient jinaReaderClient,
+            ResourceStatusPublisher resourceStatusPublisher,
+            CrawlResultCache crawlResultCache,
+            JinaRateGovernor jinaRateGovernor,
+            TransactionTemplate transactionTemplate,
+            @Value("${pocketmind.resource.status.preview-chars:500}") int previewChars,
+            @Value("${pocketmind.resource.content.max-page-chars:65536}") int maxContentPageChars,
+            @Value("${pocketmind.resource.embedding.enabled:true}") boolean embeddingEnabled
     ) {
         this.resourceRepository = resourceRepository;
+        this.libraryRepository = libraryRepository;
         this.crawlerProducer = crawlerProducer;
+        this.embeddingProducer = embeddingProducer;
         this.jinaReaderClient = jinaReaderClient;
+        this.resourceStatusPublisher = resourceStatusPublisher;
+        this.crawlResultCache = crawlResultCache;
+        this.jinaRateGovernor = jinaRateGovernor;
+        this.transactionTemplate = transactionTemplate;
+        this.previewChars = previewChars;
+        this.maxContentPageChars = maxContentPageChars;
+        this.embeddingEnabled = embeddingEnabled;
     }
 
+    @Transactional
     public SubmitResponse submit(SubmitRequest request) {
         String userId = UserContext.getRequiredUserId();
+        return new SubmitResponse(save(userId, List.of(request.url())).get(0).uuid());
+    }
 
-        // URL 内容复用：如果已有成功/处理中资源，直接复用，不重复投递抓取任务
-        var existing = resourceRepository.findLatestByUrl(request.url());
-        if (existing.isPresent() && existing.get().getStatus() != com.doublez.pocketmindserver.resource.domain.ResourceStatus.FAILED) {
-            return new SubmitResponse(existing.get().getId());
-        }
+    /**
+     * 批量提交：按 url_hash 去重后一条语句插入或获取，新建的抓取任务在同一事务内整批写入 outbox。
+     */
+    @Transactional
+    public BatchSubmitResponse submitBatch(BatchSubmitRequest request) {
+        String userId = UserContext.getRequiredUserId();
 
-        UUID id = UUID.randomUUID();
-        Resource resource = Resource.create(id, userId, request.url());
-        resourceRepository.save(resource);
+        Map<String, BatchSubmitResponse.Item> results = save(userId, request.urls()).stream()
+                .collect(Collectors.toMap(item -> UrlCanonicalizer.hash(item.url()), Function.identity()));
+        return new BatchSubmitResponse(request.urls().stream()
+                .map(url -> {
+                    var item = results.get(UrlCanonicalizer.hash(url));
+                    return new BatchSubmitResponse.Item(url, item.uuid(), item.outcome());
+                })
+                .toList());
+    }
 
-        try {
-            crawlerProducer.sendCrawlerRequest(new CrawlerRequestEvent(id, request.url(), userId));
-        } catch (Exception e) {
-            resource.markFailed();
-            resourceRepository.update(resource);
-            throw e;
+    /**
+     * 文档按规范化 URL 全局去重：任何用户已抓取成功或正在处理的 URL 直接复用，不再投递抓取任务；
+     * 随后把文档加入当前用户的资源库，返回的 uuid 是用户自己的条目 id。结果按 url_hash 去重，每个 url_hash 一条。
+     */
+    private List<BatchSubmitResponse.Item> save(String userId, List<String> urls) {
+        Map<String, Resource> candidates = new LinkedHashMap<>();
+        Map<String, String> submittedUrls = new HashMap<>();
+        for (String url : urls) {
+            Resource candidate = Resource.create(UUID.randomUUID(), url);
+            candidates.putIfAbsent(candidate.getUrlHash(), candidate);
+            submittedUrls.putIfAbsent(candidate.getUrlHash(), url);
         }
 
-        return new SubmitResponse(id);
+        List<LibraryEntry> entries = new ArrayList<>();
+        Map<String, BatchSubmitResponse.Outcome> outcomes = new HashMap<>();
+        List<Resource> created = new ArrayList<>();
+        for (var result : resourceRepository.insertOrGetAll(List.copyOf(candidates.values()))) {
+            Resource document = result.resource();
+            if (result.created()) {
+                created.add(document);
+            }
+            outcomes.put(document.getUrlHash(),
+                    result.created() ? BatchSubmitResponse.Outcome.CREATED : BatchSubmitResponse.Outcome.REUSED);
+            entries.add(LibraryEntry.create(UUID.randomUUID(), userId, submittedUrls.get(document.getUrlHash()), document.getId()));
+        }
+
+        // 与文档插入同一事务写入 outbox，提交后由 relay 投递
+        crawlerProducer.enqueueCrawlerRequests(created.stream()
+                .map(r -> new CrawlerRequestEvent(r.getId(), r.getOriginalUrl()))
+                .toList());
+
+        return libraryRepository.addAll(entries).stream()
+                .map(entry -> new BatchSubmitResponse.Item(entry.originalUrl(), entry.id(), outcomes.get(entry.urlHash())))
+                .toList();
     }
 
+    @Transactional(readOnly = true)
     public List<ResourceStatusDTO> checkStatus(StatusRequest request) {
-        UserContext.getRequiredUserId();
+        String userId = UserContext.getRequiredUserId();
 
-        // URL 维度查询：同一 URL 多用户可复用
-        List<Resource> resources = resourceRepository.findByUrls(request.urls());
-        if (resources.isEmpty()) {
+        // 只取窄投影，预览在库内截断
+        List<ResourceStatusView> views = libraryRepository.findStatusByUrls(userId, request.urls(), previewChars);
+        if (views.isEmpty()) {
             return List.of();
         }
 
-        // 1. 一个url只会有一个记录，不会有多个
-        Map<String, Resource> resourceMap = resources.stream()
-                .collect(Collectors.toMap(Resource::getOriginalUrl, Function.identity(), (a, b) -> a));
+        // 1. 一个用户的一个规范化 url 只会有一个记录（(user_id, url_hash) 唯一），请求中的不同写法会对应到同一条
+        Map<String, ResourceStatusView> viewMap = views.stream()
+                .collect(Collectors.toMap(ResourceStatusView::urlHash, Function.identity(), (a, b) -> a));
 
         return request.urls().stream()
                 .map(url -> {
-                    Resource r = resourceMap.get(url);
+                    ResourceStatusView v = viewMap.get(UrlCanonicalizer.hash(url));
                     // 2. 如果无记录返回错误码 (这里返回null，由Controller判断空列表抛出异常)
                     // 如果有记录且为fail 那么还是返回正常状态码
-                    if (r == null) {
+                    if (v == null) {
                         return null;
                     }
                     return new ResourceStatusDTO(
-                            r.getOriginalUrl(),
-                            r.getId(),
-                            r.getTitle(),
-                            r.getContentMarkdown(),
-                            r.getAiSummary(),
-                            mapToProcessStatus(r.getStatus())
+                            url,
+                            v.id(),
+                            v.title(),
+                            v.preview(),
+                            v.aiSummary(),
+                            toPublicStatus(v.status())
                     );
                 })
                 .filter(v -> v != null)
                 .toList();
     }
 
-    private ResourceStatus mapToProcessStatus(ResourceStatus status) {
+    /**
+     * 按字符区间读取正文，limit 超过单页上限时按上限截断
+     */
+    @Transactional(readOnly = true)
+    public ResourceContentDTO getContent(UUID uuid, int offset, int limit) {
+        String userId = UserContext.getRequiredUserId();
+
+        int pageSize = Math.min(limit, maxContentPageChars);
+        ResourceContentSlice slice = libraryRepository.findById(userId, uuid)
+                .flatMap(entry -> resourceRepository.findContent(entry.documentId(), offset, pageSize))
+                .orElseThrow(() -> new BusinessException(ApiCode.RESOURCE_NOT_FOUND, HttpStatus.NOT_FOUND));
+        String content = slice.content() == null ? "" : slice.content();
+        int end = offset + content.codePointCount(0, content.length());
+        return new ResourceContentDTO(
+                uuid,
+                offset,
+                content,
+                slice.totalLength(),
+                end < slice.totalLength() ? end : null
+        );
+    }
+
+    /**
+     * 当前用户资源库，按收藏时间倒序的 keyset 分页。游标是上一页最后一条的 (updatedAt, id)，对客户端不透明。
+     */
+    @Transactional(readOnly = true)
+    public ResourceListResponse listLibrary(Set<ResourceStatus> statuses, String cursor, int limit) {
+        String userId = UserContext.getRequiredUserId();
+
+        LocalDateTime afterUpdatedAt = null;
+        UUID afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_", 2);
+                afterUpdatedAt = LocalDateTime.parse(parts[0]);
+                afterId = UUID.fromString(parts[1]);
+            } catch (RuntimeException e) {
+                throw new BusinessException(ApiCode.REQ_VALIDATION, HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        // 落库保留完整状态，按对外口径展开：例如 CRAWLED 包含 EMBEDDING / ANALYZING / ANALYZED
+        Set<ResourceStatus> filter = statuses == null || statuses.isEmpty() ? Set.of() : Arrays.stream(ResourceStatus.values())
+                .filter(s -> statuses.contains(toPublicStatus(s)))
+                .collect(Collectors.toSet());
+        // 多取一条判断是否还有下一页
+        List<ResourceSummary> page = libraryRepository.findPageByUser(userId, filter, afterUpdatedAt, afterId, limit + 1);
+        boolean hasMore = page.size() > limit;
+        if (hasMore) {
+            page = page.subList(0, limit);
+        }
+
+        List<ResourceListItemDTO> items = page.stream()
+                .map(r -> new ResourceListItemDTO(r.id(), r.originalUrl(), r.title(), toPublicStatus(r.status()), r.updatedAt()))
+                .toList();
+        String nextCursor = null;
+        if (hasMore) {
+            ResourceSummary last = page.get(page.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.updatedAt() + "_" + last.id()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new ResourceListResponse(items, nextCursor);
+    }
+
+    static ResourceStatus toPublicStatus(ResourceStatus status) {
         // 兼容 domain 扩展状态，避免 valueOf 直接抛异常
         return switch (status) {
             case PENDING -> ResourceStatus.PENDING;
@@ -105,26 +268,135 @@ public class ResourceApplicationService {
         };
     }
 
+    /**
+     * 抓取失败时异常直接抛出，由 MQ 侧按错误类型决定延迟重试还是进 DLQ；
+     * 重试期间资源保持 PENDING，最终失败由 {@link #markCrawlFailed} 落库。
+     */
     public void processCrawlerRequest(CrawlerRequestEvent event) {
-        var resourceOpt = resourceRepository.findByIdAndUserId(event.uuid(), event.userId());
+        var resourceOpt = resourceRepository.findById(event.uuid());
         if (resourceOpt.isEmpty()) {
             return;
         }
 
         Resource resource = resourceOpt.get();
-        try {
-            var response = jinaReaderClient.fetchContent(event.url());
-            if (response.code() == 200 && response.data() != null) {
-                resource.markCrawled(response.data().title(), response.data().content());
-            } else {
-                resource.markFailed();
+        if (resource.getStatus() != ResourceStatus.PENDING) {
+            // 重复投递或已被判定失败，不再抓取
+            return;
+        }
+        // 续租：本次抓取及其后的延迟重试期间不会被回收任务当作卡住的资源
+        resourceRepository.renewLease(resource.getId());
+        var response = crawlResultCache.get(event.url(),
+                () -> jinaRateGovernor.execute(() -> jinaReaderClient.fetchContent(event.url())));
+        // 抓取耗时较长，期间资源可能已被其他流程改动：按版本条件写回，冲突时重读并重新判断
+        writeBack(resource.getId(), response).ifPresent(resourceStatusPublisher::publish);
+    }
+
+    /**
+     * 批量处理抓取任务：一次查询加载整批资源，批内并发抓取，结果一次 JDBC batch 写回。
+     *
+     * 返回抓取失败的资源 id 及异常，由 MQ 侧逐条决定重试或进 DLQ；未出现在返回值里的消息视为处理完成。
+     * 批量写回发生版本冲突的资源退回逐条 {@link ResourceRepository#modify} 重放。
+     */
+    public Map<UUID, Exception> processCrawlerBatch(List<CrawlerRequestEvent> events, Executor executor) {
+        Map<UUID, CrawlerRequestEvent> byId = new LinkedHashMap<>();
+        for (CrawlerRequestEvent event : events) {
+            byId.putIfAbsent(event.uuid(), event);
+        }
+        List<Resource> pending = resourceRepository.findByIds(List.copyOf(byId.keySet())).stream()
+                .filter(r -> r.getStatus() == ResourceStatus.PENDING)
+                .toList();
+        if (pending.isEmpty()) {
+            return Map.of();
+        }
+        resourceRepository.renewLeases(pending.stream().map(Resource::getId).toList());
+
+        Map<Resource, CompletableFuture<JinaResponse>> crawls = new LinkedHashMap<>();
+        for (Resource resource : pending) {
+            String url = byId.get(resource.getId()).url();
+            crawls.put(resource, CompletableFuture.supplyAsync(() -> crawlResultCache.get(url,
+                    () -> jinaRateGovernor.execute(() -> jinaReaderClient.fetchContent(url))), executor));
+        }
+
+        Map<UUID, Exception> failures = new HashMap<>();
+        Map<UUID, JinaResponse> responses = new HashMap<>();
+        List<Resource> completed = new ArrayList<>();
+        crawls.forEach((resource, future) -> {
+            JinaResponse response;
+            try {
+                response = future.join();
+            } catch (CompletionException e) {
+                failures.put(resource.getId(), e.getCause() instanceof Exception cause ? cause : e);
+                return;
             }
-        } catch (Exception e) {
+            responses.put(resource.getId(), response);
+            applyCrawlResult(resource, response);
+            completed.add(resource);
+        });
+
+        Set<UUID> conflicts = transactionTemplate.execute(status -> {
+            Set<UUID> conflicted = resourceRepository.updateAll(completed);
+            enqueueEmbedding(completed.stream().filter(r -> !conflicted.contains(r.getId())).toList());
+            return conflicted;
+        });
+        for (Resource resource : completed) {
+            if (!conflicts.contains(resource.getId())) {
+                resourceStatusPublisher.publish(resource);
+                continue;
+            }
+            writeBack(resource.getId(), responses.get(resource.getId())).ifPresent(resourceStatusPublisher::publish);
+        }
+        return failures;
+    }
+
+    /**
+     * 条件写回抓取结果，抓取成功时在同一事务内投递向量化任务
+     */
+    private Optional<Resource> writeBack(UUID id, JinaResponse response) {
+        return transactionTemplate.execute(status -> {
+            Optional<Resource> written = resourceRepository.modify(id, r -> {
+                if (r.getStatus() != ResourceStatus.PENDING) {
+                    return false;
+                }
+                applyCrawlResult(r, response);
+                return true;
+            });
+            written.ifPresent(r -> enqueueEmbedding(List.of(r)));
+            return written;
+        });
+    }
+
+    private void enqueueEmbedding(List<Resource> resources) {
+        if (!embeddingEnabled) {
+            return;
+        }
+        embeddingProducer.enqueueEmbeddingRequests(resources.stream()
+                .filter(r -> r.getStatus() == ResourceStatus.CRAWLED)
+                .map(r -> new EmbeddingRequestEvent(r.getId()))
+                .toList());
+    }
+
+    private static void applyCrawlResult(Resource resource, JinaResponse response) {
+        if (response.code() == 200 && response.data() != null) {
+            resource.markCrawled(response.data().title(), response.data().content());
+        } else {
             resource.markFailed();
-            throw e;
-        } finally {
-            resourceRepository.update(resource);
         }
     }
-}
 
+    /**
+     * 抓取任务不可重试或重试用尽
+     */
+    public void markCrawlFailed(CrawlerRequestEvent event) {
+        failIfPending(event.uuid());
+    }
+
+    private void failIfPending(UUID id) {
+        resourceRepository.modify(id, r -> {
+            if (r.getStatus() != ResourceStatus.PENDING) {
+                return false;
+            }
+            r.markFailed();
+            return true;
+        }).ifPresent(resourceStatusPublisher::publish);
+    }
+}
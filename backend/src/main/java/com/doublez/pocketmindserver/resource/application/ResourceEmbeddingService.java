@@ -0,0 +1,361 @@
+package com.doublez.pocketmindserver.resource.application;
+
+import com.doublez.pocketmindserver.resource.domain.DocumentEmbedding;
+import com.doublez.pocketmindserver.resource.domain.EmbeddingCache;
+import com.doublez.pocketmindserver.resource.domain.EmbeddingRepository;
+import com.doublez.pocketmindserver.resource.domain.Resource;
+import com.doublez.pocketmindserver.resource.domain.ResourceRepository;
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import com.doublez.pocketmindserver.resource.infra.embedding.EmbeddingKey;
+import com.doublez.pocketmindserver.resource.infra.embedding.MarkdownChunker;
+import com.doublez.pocketmindserver.resource.infra.embedding.ResourceEmbeddingProperties;
+import com.doublez.pocketmindserver.resource.infra.mq.ResourceStatusPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 向量化阶段：CRAWLED → EMBEDDING → EMBEDDED。
+ *
+ * 一批文档先整批标记 EMBEDDING（同时取得租约），正文按 Markdown 结构分块后跨文档合并成固定大小的请求批，
+ * 在有界线程池上并发调用 EmbeddingModel；全部分块成功的文档在一个事务里写入分块变更并标记 EMBEDDED。
+ *
+ * 重新抓取的文档按分块内容哈希与已入库的分块比对，只有新增或变化的分块取向量并插入，消失的分块一条语句删除，
+ * 未变化的行不写，HNSW 索引的变动与向量化开销都只与实际改动成正比。
+ * 有分块失败的文档保持 EMBEDDING，租约到期后由 {@link ResourceRecoveryService} 退回 CRAWLED 并重新投递，
+ * 次数超限标记 FAILED，因此这里不做就地重试。
+ *
+ * 分块调用模型前先查按内容寻址的 {@link EmbeddingCache}：热门文章、页眉页脚等重复分块与未变化页面的重新抓取
+ * 都直接引用已缓存的向量，同一批内的重复分块也只算一次。
+ *
+ * 指标：resource.embedding.chunks（实际送入模型的分块）、resource.embedding.request（单次请求耗时）、
+ * resource.embedding.failures、resource.embedding.cache{result=hit|dedup|miss}（hit 与 dedup 之和占比即命中率）、
+ * resource.embedding.diff{change=unchanged|moved|added|removed}。
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "pocketmind.resource.embedding", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ResourceEmbeddingService {
+
+    private final ResourceRepository resourceRepository;
+    private final EmbeddingRepository embeddingRepository;
+    private final EmbeddingCache embeddingCache;
+    private final EmbeddingModel embeddingModel;
+    private final MarkdownChunker chunker;
+    private final ResourceStatusPublisher resourceStatusPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int requestBatchSize;
+    private final String modelId;
+    private final boolean cacheEnabled;
+    private final ExecutorService executor;
+    private final Counter chunkCounter;
+    private final Counter failureCounter;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter cacheDeduplicated;
+    private final Timer requestTimer;
+    private final MeterRegistry meterRegistry;
+
+    public ResourceEmbeddingService(ResourceRepository resourceRepository,
+                                    EmbeddingRepository embeddingRepository,
+                                    EmbeddingCache embeddingCache,
+                                    EmbeddingModel embeddingModel,
+                                    MarkdownChunker chunker,
+                                    ResourceStatusPublisher resourceStatusPublisher,
+                                    TransactionTemplate transactionTemplate,
+                                    ResourceEmbeddingProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.resourceRepository = resourceRepository;
+        this.embeddingRepository = embeddingRepository;
+        this.embeddingCache = embeddingCache;
+        this.embeddingModel = embeddingModel;
+        this.chunker = chunker;
+        this.resourceStatusPublisher = resourceStatusPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.requestBatchSize = properties.requestBatchSize();
+        this.modelId = properties.modelId();
+        this.cacheEnabled = properties.cache().enabled();
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.requestConcurrency(), r -> {
+            Thread t = new Thread(r, "embedding-request-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.chunkCounter = Counter.builder("resource.embedding.chunks").register(meterRegistry);
+        this.failureCounter = Counter.builder("resource.embedding.failures").register(meterRegistry);
+        this.meterRegistry = meterRegistry;
+        this.requestTimer = Timer.builder("resource.embedding.request").register(meterRegistry);
+        this.cacheHits = cacheCounter(meterRegistry, "hit");
+        this.cacheMisses = cacheCounter(meterRegistry, "miss");
+        this.cacheDeduplicated = cacheCounter(meterRegistry, "dedup");
+    }
+
+    /**
+     * 处理一批向量化任务。非 CRAWLED 的文档（重复投递、已被其他实例处理）直接跳过；
+     * 数据库异常向上抛出，由 MQ 侧整批拒绝进入 DLQ。
+     */
+    public void embedDocuments(List<UUID> documentIds) {
+        List<Resource> documents = resourceRepository.findByIds(List.copyOf(new LinkedHashSet<>(documentIds))).stream()
+                .filter(r -> r.getStatus() == ResourceStatus.CRAWLED)
+                .toList();
+        if (documents.isEmpty()) {
+            return;
+        }
+        documents.forEach(Resource::markEmbedding);
+        // EMBEDDING 对外仍显示为 CRAWLED，这一步不推送状态
+        Set<UUID> conflicts = resourceRepository.updateAll(documents);
+        List<Resource> claimed = documents.stream().filter(r -> !conflicts.contains(r.getId())).toList();
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        // 分块并与已入库的分块比对：内容未变的分块不再取向量，只有新增或变化的分块走缓存与模型
+        Map<UUID, List<EmbeddingRepository.StoredChunk>> stored = new HashMap<>();
+        for (EmbeddingRepository.StoredChunk chunk : embeddingRepository.findChunks(claimed.stream().map(Resource::getId).toList())) {
+            stored.computeIfAbsent(chunk.documentId(), k -> new ArrayList<>()).add(chunk);
+        }
+        List<Pending> added = new ArrayList<>();
+        List<DocumentEmbedding> moved = new ArrayList<>();
+        Map<UUID, List<UUID>> removed = new HashMap<>();
+        for (Resource document : claimed) {
+            List<Pending> chunks = new ArrayList<>();
+            for (MarkdownChunker.Chunk chunk : chunker.split(document.getContentMarkdown())) {
+                String input = inputText(chunk);
+                chunks.add(new Pending(document.getId(), chunk, input, EmbeddingKey.of(modelId, input)));
+            }
+            diff(chunks, stored.getOrDefault(document.getId(), List.of()), added, moved,
+                    removed.computeIfAbsent(document.getId(), k -> new ArrayList<>()));
+        }
+
+        // 已缓存的向量直接引用，未命中的按键去重后再调用模型
+        Map<String, float[]> vectors = new HashMap<>(cacheEnabled
+                ? embeddingCache.findAll(added.stream().map(Pending::key).toList())
+                : Map.of());
+        Map<String, String> misses = new LinkedHashMap<>();
+        for (Pending p : added) {
+            if (vectors.containsKey(p.key())) {
+                cacheHits.increment();
+            } else if (misses.putIfAbsent(p.key(), p.input()) != null) {
+                cacheDeduplicated.increment();
+            } else {
+                cacheMisses.increment();
+            }
+        }
+        Map<String, float[]> computed = embedAll(List.copyOf(misses.entrySet()));
+        vectors.putAll(computed);
+        if (cacheEnabled && !computed.isEmpty()) {
+            saveToCache(computed);
+        }
+
+        Map<UUID, List<DocumentEmbedding>> embeddings = new HashMap<>();
+        Set<UUID> failed = new HashSet<>();
+        for (Pending p : added) {
+            float[] vector = vectors.get(p.key());
+            if (vector == null) {
+                failed.add(p.documentId());
+                continue;
+            }
+            embeddings.computeIfAbsent(p.documentId(), k -> new ArrayList<>())
+                    .add(p.toEmbedding(UUID.randomUUID(), vector));
+        }
+
+        List<Resource> completed = claimed.stream().filter(r -> !failed.contains(r.getId())).toList();
+        failureCounter.increment(claimed.size() - completed.size());
+        if (completed.isEmpty()) {
+            return;
+        }
+        List<Resource> embedded = transactionTemplate.execute(status -> persist(completed, embeddings, moved, removed));
+        if (embedded != null) {
+            embedded.forEach(resourceStatusPublisher::publish);
+        }
+    }
+
+    /**
+     * 逐块比对一篇文档：按内容哈希配对新旧分块，同一哈希出现多次时优先配对序号相同的行。
+     * 配对上且序号、标题路径都没变的行不做任何写入；配对上但位置变化的只改写元数据；
+     * 没配对上的新分块需要向量，没配对上的旧行删除。
+     */
+    private void diff(List<Pending> chunks, List<EmbeddingRepository.StoredChunk> stored,
+                      List<Pending> added, List<DocumentEmbedding> moved, List<UUID> removed) {
+        Map<String, List<EmbeddingRepository.StoredChunk>> byKey = new HashMap<>();
+        for (EmbeddingRepository.StoredChunk chunk : stored) {
+            if (chunk.embeddingKey() != null) {
+                byKey.computeIfAbsent(chunk.embeddingKey(), k -> new ArrayList<>()).add(chunk);
+            }
+        }
+        Set<UUID> matched = new HashSet<>();
+        List<Pending> unmatched = new ArrayList<>();
+        int unchanged = 0;
+        for (Pending p : chunks) {
+            EmbeddingRepository.StoredChunk same = byKey.getOrDefault(p.key(), List.of()).stream()
+                    .filter(c -> c.chunkIndex() == p.chunk().index() && !matched.contains(c.id()))
+                    .findFirst()
+                    .orElse(null);
+            if (same == null) {
+                unmatched.add(p);
+                continue;
+            }
+            matched.add(same.id());
+            if (same.headingPath().equals(p.chunk().headingPath())) {
+                unchanged++;
+            } else {
+                moved.add(p.toEmbedding(same.id(), null));
+            }
+        }
+        for (Pending p : unmatched) {
+            EmbeddingRepository.StoredChunk any = byKey.getOrDefault(p.key(), List.of()).stream()
+                    .filter(c -> !matched.contains(c.id()))
+                    .findFirst()
+                    .orElse(null);
+            if (any == null) {
+                added.add(p);
+                continue;
+            }
+            matched.add(any.id());
+            moved.add(p.toEmbedding(any.id(), null));
+        }
+        for (EmbeddingRepository.StoredChunk chunk : stored) {
+            if (!matched.contains(chunk.id())) {
+                removed.add(chunk.id());
+            }
+        }
+        diffCounter("unchanged").increment(unchanged);
+        diffCounter("moved").increment(matched.size() - unchanged);
+        diffCounter("added").increment(chunks.size() - matched.size());
+        diffCounter("removed").increment(stored.size() - matched.size());
+    }
+
+    /**
+     * 先按版本条件写状态，只对写入成功的文档应用分块变更：处理期间被回收或重新提交的文档不写入
+     */
+    private List<Resource> persist(List<Resource> completed,
+                                   Map<UUID, List<DocumentEmbedding>> embeddings,
+                                   List<DocumentEmbedding> moved,
+                                   Map<UUID, List<UUID>> removed) {
+        completed.forEach(Resource::markEmbedded);
+        Set<UUID> conflicts = resourceRepository.updateAll(completed);
+        List<Resource> embedded = completed.stream().filter(r -> !conflicts.contains(r.getId())).toList();
+        if (!conflicts.isEmpty()) {
+            log.info("Skip {} documents changed during embedding", conflicts.size());
+        }
+        Set<UUID> ids = embedded.stream().map(Resource::getId).collect(Collectors.toSet());
+        List<DocumentEmbedding> added = new ArrayList<>();
+        List<UUID> deleted = new ArrayList<>();
+        for (UUID id : ids) {
+            added.addAll(embeddings.getOrDefault(id, List.of()));
+            deleted.addAll(removed.getOrDefault(id, List.of()));
+        }
+        EmbeddingRepository.ChunkChanges changes = new EmbeddingRepository.ChunkChanges(
+                added,
+                moved.stream().filter(e -> ids.contains(e.documentId())).toList(),
+                deleted
+        );
+        if (!changes.isEmpty()) {
+            embeddingRepository.applyChanges(changes);
+        }
+        return embedded;
+    }
+
+    /**
+     * 按请求批切分后并发调用模型，一个请求可以包含多篇文档的分块。失败的请求只记日志，其中的键不出现在结果里
+     */
+    private Map<String, float[]> embedAll(List<Map.Entry<String, String>> inputs) {
+        List<List<Map.Entry<String, String>>> requests = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i += requestBatchSize) {
+            requests.add(inputs.subList(i, Math.min(i + requestBatchSize, inputs.size())));
+        }
+        List<CompletableFuture<List<float[]>>> futures = requests.stream()
+                .map(request -> CompletableFuture.supplyAsync(
+                        () -> embed(request.stream().map(Map.Entry::getValue).toList()), executor))
+                .toList();
+
+        Map<String, float[]> computed = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            List<Map.Entry<String, String>> request = requests.get(i);
+            List<float[]> vectors;
+            try {
+                vectors = futures.get(i).join();
+            } catch (CompletionException e) {
+                log.warn("Embedding request of {} chunks failed: {}", request.size(), e.getCause().getMessage());
+                continue;
+            }
+            for (int j = 0; j < request.size(); j++) {
+                computed.put(request.get(j).getKey(), vectors.get(j));
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * 自动提交，不随文档状态一起回滚：即使本批后续写入失败，已付费算出的向量也留给重试使用
+     */
+    private void saveToCache(Map<String, float[]> computed) {
+        try {
+            embeddingCache.saveAll(computed);
+        } catch (RuntimeException e) {
+            log.warn("Failed to cache {} embeddings: {}", computed.size(), e.getMessage());
+        }
+    }
+
+    private List<float[]> embed(List<String> inputs) {
+        List<float[]> vectors = requestTimer.record(() -> embeddingModel.embed(inputs));
+        if (vectors == null || vectors.size() != inputs.size()) {
+            throw new IllegalStateException("向量数量与输入不一致: " + (vectors == null ? 0 : vectors.size()) + "/" + inputs.size());
+        }
+        chunkCounter.increment(inputs.size());
+        return vectors;
+    }
+
+    /**
+     * 续写的分块不以标题开头，把标题路径拼在前面，向量里带上章节上下文
+     */
+    private static String inputText(MarkdownChunker.Chunk chunk) {
+        if (chunk.headingPath().isEmpty() || chunk.content().startsWith("#")) {
+            return chunk.content();
+        }
+        return chunk.headingPath() + "\n\n" + chunk.content();
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("resource.embedding.cache").tag("result", result).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private Counter diffCounter(String change) {
+        return Counter.builder("resource.embedding.diff").tag("change", change).register(meterRegistry);
+    }
+
+    private record Pending(UUID documentId, MarkdownChunker.Chunk chunk, String input, String key) {
+
+        DocumentEmbedding toEmbedding(UUID id, float[] vector) {
+            return new DocumentEmbedding(id, documentId, chunk.index(), chunk.headingPath(), chunk.content(),
+                    chunk.tokens(), key, vector);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.doublez.pocketmindserver.resource.application;
+
+import com.doublez.pocketmindserver.resource.api.dto.ResourceExportItemDTO;
+import com.doublez.pocketmindserver.resource.domain.ResourceExport;
+import com.doublez.pocketmindserver.resource.domain.LibraryRepository;
+import com.doublez.pocketmindserver.shared.security.UserContext;
+import com.doublez.pocketmindserver.shared.web.ApiCode;
+import com.doublez.pocketmindserver.shared.web.BusinessException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 资源库导出：服务端游标逐行读取，逐行序列化成 NDJSON 直接写进响应流。
+ *
+ * 写响应阻塞时游标也停在原地，客户端读多快就从库里拉多快，内存占用只与单行大小有关。
+ * 导出期间占用一个数据库连接和一个 MVC 异步线程，全局并发数受 max-concurrent 限制。
+ */
+@Slf4j
+@Service
+public class ResourceExportService {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final LibraryRepository libraryRepository;
+    private final ObjectWriter rowWriter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Semaphore slots;
+
+    public ResourceExportService(LibraryRepository libraryRepository,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${pocketmind.resource.export.max-concurrent:4}") int maxConcurrent) {
+        this.libraryRepository = libraryRepository;
+        this.objectMapper = objectMapper;
+        // 逐行 flush 会把响应拆成大量小包，交给 servlet 缓冲区按满刷出
+        this.rowWriter = objectMapper.writerFor(ResourceExportItemDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 名额在请求线程上占用，满了直接返回 429；真正的读写发生在 MVC 异步线程，结束（含客户端断开）后释放。
+     * 响应体可能根本不会执行（异步线程池拒绝、进入异步前出错、超时），名额同时挂在请求生命周期上，保证只释放一次
+     */
+    public StreamingResponseBody export(String userId, boolean gzip) {
+        if (!slots.tryAcquire()) {
+            throw new BusinessException(ApiCode.RESOURCE_EXPORT_BUSY, HttpStatus.TOO_MANY_REQUESTS);
+        }
+        Slot slot = new Slot();
+        try {
+            bindToRequest(slot);
+        } catch (RuntimeException e) {
+            slot.release();
+            throw e;
+        }
+        return out -> {
+            // 异步线程上没有 UserContext：补上当前用户，读写分离路由才能让刚写入过的用户读主库
+            UserContext.setUserId(userId);
+            try {
+                if (gzip) {
+                    GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                    write(userId, compressed);
+                    compressed.finish();
+                } else {
+                    write(userId, out);
+                }
+            } catch (UncheckedIOException e) {
+                // 多数是客户端中途断开，游标与事务已随异常回滚关闭
+                log.info("Resource export for user {} aborted: {}", userId, e.getCause().getMessage());
+                throw e.getCause();
+            } finally {
+                UserContext.clear();
+                slot.release();
+            }
+        };
+    }
+
+    /**
+     * 异步处理开始后由完成回调释放（正常结束、超时、出错、线程池拒绝都会触发）；
+     * 请求在进入异步处理前就结束时，由请求销毁回调释放
+     */
+    private static void bindToRequest(Slot slot) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(attributes.getRequest());
+        asyncManager.registerCallableInterceptor(slot, slot);
+        attributes.registerDestructionCallback(Slot.class.getName(), () -> {
+            if (!asyncManager.isConcurrentHandlingStarted()) {
+                slot.release();
+            }
+        }, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private void write(String userId, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 行之间只用换行分隔，不要默认的空格
+            generator.setRootValueSeparator(null);
+            readOnlyTransaction.executeWithoutResult(status -> libraryRepository.exportByUser(userId, resource -> {
+                try {
+                    rowWriter.writeValue(generator, toDto(resource));
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+    }
+
+    /**
+     * 一次导出占用的名额，多个释放路径只有第一次生效
+     */
+    private final class Slot implements CallableProcessingInterceptor {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            release();
+        }
+    }
+
+    private static ResourceExportItemDTO toDto(ResourceExport resource) {
+        return new ResourceExportItemDTO(
+                resource.id(),
+                resource.originalUrl(),
+                resource.title(),
+                ResourceApplicationService.toPublicStatus(resource.status()),
+                resource.content(),
+                resource.aiSummary(),
+                resource.aiTagsJson(),
+                resource.createdAt(),
+                resource.updatedAt()
+        );
+    }
+}
@@ -0,0 +1,120 @@
+package com.doublez.pocketmindserver.resource.application;
+
+import com.doublez.pocketmindserver.resource.domain.Resource;
+import com.doublez.pocketmindserver.resource.domain.ResourceRepository;
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import com.doublez.pocketmindserver.resource.domain.ResourceVersionConflictException;
+import com.doublez.pocketmindserver.resource.infra.mq.CrawlerProducer;
+import com.doublez.pocketmindserver.resource.infra.mq.EmbeddingProducer;
+import com.doublez.pocketmindserver.resource.infra.mq.ResourceStatusPublisher;
+import com.doublez.pocketmindserver.resource.infra.mq.event.CrawlerRequestEvent;
+import com.doublez.pocketmindserver.resource.infra.mq.event.EmbeddingRequestEvent;
+import com.doublez.pocketmindserver.resource.infra.persistence.ResourceRecoveryProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 卡住文档的回收：定时认领租约已过期的处理中文档（消息丢失、消费者中途被杀、投递失败等），
+ * PENDING 重新写入抓取 outbox，EMBEDDING / ANALYZING 退回 CRAWLED（EMBEDDING 同时重新投递向量化任务），回收次数超限的标记 FAILED。
+ *
+ * 认领与 outbox 写入在同一事务内，多实例同时运行时借助 SKIP LOCKED 各自处理不同的行。
+ */
+@Slf4j
+@Service
+public class ResourceRecoveryService {
+
+    private final ResourceRepository resourceRepository;
+    private final CrawlerProducer crawlerProducer;
+    private final EmbeddingProducer embeddingProducer;
+    private final ResourceStatusPublisher resourceStatusPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ResourceRecoveryProperties properties;
+    private final boolean embeddingEnabled;
+    private final Counter requeued;
+    private final Counter abandoned;
+    private final Counter failed;
+
+    public ResourceRecoveryService(ResourceRepository resourceRepository,
+                                   CrawlerProducer crawlerProducer,
+                                   EmbeddingProducer embeddingProducer,
+                                   ResourceStatusPublisher resourceStatusPublisher,
+                                   TransactionTemplate transactionTemplate,
+                                   ResourceRecoveryProperties properties,
+                                   @Value("${pocketmind.resource.embedding.enabled:true}") boolean embeddingEnabled,
+                                   MeterRegistry meterRegistry) {
+        this.resourceRepository = resourceRepository;
+        this.crawlerProducer = crawlerProducer;
+        this.embeddingProducer = embeddingProducer;
+        this.resourceStatusPublisher = resourceStatusPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.embeddingEnabled = embeddingEnabled;
+        this.requeued = recovered(meterRegistry, "requeued");
+        this.abandoned = recovered(meterRegistry, "abandoned");
+        this.failed = recovered(meterRegistry, "failed");
+    }
+
+    @Scheduled(fixedDelayString = "${pocketmind.resource.recovery.interval:1m}")
+    public void recover() {
+        if (!properties.enabled()) {
+            return;
+        }
+        // 每批单独提交；满批说明可能还有积压，继续下一批
+        boolean more;
+        do {
+            List<Resource> changed = new ArrayList<>();
+            Integer claimed = transactionTemplate.execute(status -> recoverBatch(changed));
+            changed.forEach(resourceStatusPublisher::publish);
+            more = claimed != null && claimed == properties.batchSize();
+        } while (more);
+    }
+
+    private int recoverBatch(List<Resource> changed) {
+        List<ResourceRepository.LeaseClaim> claims = resourceRepository.claimExpiredLeases(properties.batchSize());
+        List<CrawlerRequestEvent> redispatch = new ArrayList<>();
+        List<EmbeddingRequestEvent> reembed = new ArrayList<>();
+        for (ResourceRepository.LeaseClaim claim : claims) {
+            Resource resource = claim.resource();
+            if (claim.recoveryCount() > properties.maxRecoveries()) {
+                resource.markFailed();
+                failed.increment();
+            } else if (resource.getStatus() == ResourceStatus.PENDING) {
+                redispatch.add(new CrawlerRequestEvent(resource.getId(), resource.getOriginalUrl()));
+                requeued.increment();
+                continue;
+            } else {
+                if (resource.getStatus() == ResourceStatus.EMBEDDING && embeddingEnabled) {
+                    reembed.add(new EmbeddingRequestEvent(resource.getId()));
+                }
+                resource.abandonStage();
+                abandoned.increment();
+            }
+            try {
+                resourceRepository.update(resource);
+                changed.add(resource);
+            } catch (ResourceVersionConflictException e) {
+                // 认领后资源被其他流程推进了，说明并未卡住，跳过
+                log.debug("Skip recovering resource {}: {}", resource.getId(), e.getMessage());
+                reembed.removeIf(event -> event.documentId().equals(resource.getId()));
+            }
+        }
+        crawlerProducer.enqueueCrawlerRequests(redispatch);
+        embeddingProducer.enqueueEmbeddingRequests(reembed);
+        if (!claims.isEmpty()) {
+            log.info("Recovered {} stuck resources: {} requeued", claims.size(), redispatch.size());
+        }
+        return claims.size();
+    }
+
+    private static Counter recovered(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("resource.recovery").tag("action", action).register(meterRegistry);
+    }
+}
@@ -0,0 +1,207 @@
+package com.doublez.pocketmindserver.resource.application;
+
+import com.doublez.pocketmindserver.resource.api.dto.ResourceSearchItemDTO;
+import com.doublez.pocketmindserver.resource.api.dto.ResourceSearchResponse;
+import com.doublez.pocketmindserver.resource.domain.ResourceSearchRepository;
+import com.doublez.pocketmindserver.resource.domain.ResourceSearchRepository.ChunkHit;
+import com.doublez.pocketmindserver.resource.infra.persistence.ResourceSearchProperties;
+import com.doublez.pocketmindserver.resource.infra.vector.LocalVectorIndex;
+import com.doublez.pocketmindserver.shared.security.UserContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 资源库混合检索：语义（分块向量近邻）与关键词（分块正文、标题全文检索）三路召回，按文档做倒数排名融合（RRF）。
+ *
+ * 查询向量在事务外计算并缓存，三路召回、条目与摘录在同一个只读事务里完成（只读事务可路由到副本）。
+ * 启用进程内向量索引且该用户的分区已就绪时，语义召回在事务外由 {@link LocalVectorIndex} 完成，不再查询 pgvector。
+ * 向量模型不可用或调用失败时退化为纯关键词检索，不让搜索整体失败。
+ *
+ * 指标：resource.search（端到端耗时）、cache.gets{cache=resource.search.query}（查询向量缓存命中）。
+ */
+@Slf4j
+@Service
+public class ResourceSearchService {
+
+    private final ResourceSearchRepository searchRepository;
+    private final EmbeddingModel embeddingModel;
+    private final LocalVectorIndex localVectorIndex;
+    private final ResourceSearchProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<String, float[]> queryVectors;
+    private final Timer searchTimer;
+
+    public ResourceSearchService(ResourceSearchRepository searchRepository,
+                                 ObjectProvider<EmbeddingModel> embeddingModel,
+                                 ObjectProvider<LocalVectorIndex> localVectorIndex,
+                                 ResourceSearchProperties properties,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${pocketmind.resource.embedding.enabled:true}") boolean embeddingEnabled,
+                                 MeterRegistry meterRegistry) {
+        this.searchRepository = searchRepository;
+        // 向量化阶段关闭时库里没有新向量，语义召回也一并关闭
+        this.embeddingModel = embeddingEnabled ? embeddingModel.getIfAvailable() : null;
+        this.localVectorIndex = localVectorIndex.getIfAvailable();
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.queryVectors = Caffeine.newBuilder()
+                .maximumSize(properties.queryCacheSize())
+                .expireAfterWrite(properties.queryCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, queryVectors, "resource.search.query");
+        this.searchTimer = Timer.builder("resource.search").register(meterRegistry);
+    }
+
+    public ResourceSearchResponse search(String query, int limit) {
+        String userId = UserContext.getRequiredUserId();
+        String q = query.strip();
+        return searchTimer.record(() -> {
+            float[] vector = embedQuery(q);
+            List<ChunkHit> local = vector == null || localVectorIndex == null
+                    ? null
+                    : localVectorIndex.search(userId, vector, properties.semanticCandidates()).orElse(null);
+            List<ResourceSearchItemDTO> items = readOnlyTransaction.execute(status -> search(userId, q, vector, local, limit));
+            return new ResourceSearchResponse(items == null ? List.of() : items, vector != null);
+        });
+    }
+
+    /**
+     * @param local 进程内索引的语义召回结果，为 null 时查询 pgvector
+     */
+    private List<ResourceSearchItemDTO> search(String userId, String query, float[] vector, List<ChunkHit> local, int limit) {
+        List<ChunkHit> semantic;
+        if (vector == null) {
+            semantic = List.of();
+        } else if (local != null) {
+            semantic = local;
+        } else {
+            semantic = searchRepository.findNearestChunks(userId, vector, properties.semanticCandidates());
+        }
+        List<ChunkHit> keyword = searchRepository.findMatchingChunks(userId, query, properties.keywordCandidates());
+        List<UUID> titles = searchRepository.findMatchingTitles(userId, query, properties.keywordCandidates());
+
+        // 每路内按文档首次出现的位置定名次，同一文档的多个分块只计一次
+        Map<UUID, Fused> fused = new LinkedHashMap<>();
+        accumulate(fused, semantic.stream().map(ChunkHit::documentId).toList(), semantic, false);
+        accumulate(fused, keyword.stream().map(ChunkHit::documentId).toList(), keyword, true);
+        accumulate(fused, titles, List.of(), false);
+        List<Fused> top = fused.values().stream()
+                .sorted(Comparator.comparingDouble(Fused::score).reversed())
+                .limit(limit)
+                .toList();
+        if (top.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, ResourceSearchRepository.Entry> entries = searchRepository
+                .findEntries(userId, top.stream().map(Fused::documentId).toList()).stream()
+                .collect(Collectors.toMap(ResourceSearchRepository.Entry::documentId, Function.identity(), (a, b) -> a));
+        Map<UUID, String> snippets = searchRepository.highlight(top.stream()
+                .map(Fused::snippetChunk)
+                .filter(id -> id != null)
+                .toList(), query);
+
+        List<ResourceSearchItemDTO> items = new ArrayList<>(top.size());
+        for (Fused hit : top) {
+            ResourceSearchRepository.Entry entry = entries.get(hit.documentId());
+            if (entry == null) {
+                // 召回之后条目被删除
+                continue;
+            }
+            items.add(new ResourceSearchItemDTO(
+                    entry.id(),
+                    entry.originalUrl(),
+                    entry.title(),
+                    ResourceApplicationService.toPublicStatus(entry.status()),
+                    hit.snippetChunk() == null ? null : snippets.get(hit.snippetChunk()),
+                    hit.score(),
+                    entry.updatedAt()
+            ));
+        }
+        return items;
+    }
+
+    /**
+     * @param preferSnippet 该路的分块优先作为摘录：关键词命中的分块能高亮出查询词
+     */
+    private void accumulate(Map<UUID, Fused> fused, List<UUID> documentIds, List<ChunkHit> chunks, boolean preferSnippet) {
+        Set<UUID> seen = new HashSet<>();
+        int rank = 0;
+        for (int i = 0; i < documentIds.size(); i++) {
+            UUID documentId = documentIds.get(i);
+            if (!seen.add(documentId)) {
+                continue;
+            }
+            rank++;
+            Fused hit = fused.computeIfAbsent(documentId, Fused::new);
+            hit.score += 1.0 / (properties.rrfK() + rank);
+            if (!chunks.isEmpty() && (hit.snippetChunk == null || preferSnippet)) {
+                hit.snippetChunk = chunks.get(i).chunkId();
+            }
+        }
+    }
+
+    private float[] embedQuery(String query) {
+        if (embeddingModel == null) {
+            return null;
+        }
+        float[] cached = queryVectors.getIfPresent(query);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            float[] vector = embeddingModel.embed(query);
+            queryVectors.put(query, vector);
+            return vector;
+        } catch (RuntimeException e) {
+            log.warn("Query embedding failed, falling back to keyword search: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class Fused {
+
+        private final UUID documentId;
+        private double score;
+        private UUID snippetChunk;
+
+        private Fused(UUID documentId) {
+            this.documentId = documentId;
+        }
+
+        UUID documentId() {
+            return documentId;
+        }
+
+        double score() {
+            return score;
+        }
+
+        UUID snippetChunk() {
+            return snippetChunk;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.doublez.pocketmindserver.resource.application;
+
+import com.doublez.pocketmindserver.resource.api.dto.ResourceStatusChangeDTO;
+import com.doublez.pocketmindserver.resource.domain.LibraryRepository;
+import com.doublez.pocketmindserver.resource.domain.ResourceSummary;
+import com.doublez.pocketmindserver.resource.infra.mq.event.ResourceStatusChangedEvent;
+import com.doublez.pocketmindserver.shared.web.ApiCode;
+import com.doublez.pocketmindserver.shared.web.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.stream.Collectors;
+
+/**
+ * 资源状态 SSE 订阅管理。
+ *
+ * 订阅按 userId 计数限流，按（userId，资源 UUID）建索引：指定了 UUID 的订阅只接收这些资源的变更，
+ * 未指定 UUID 的订阅接收该用户自己名下所有资源的变更。指定的 UUID 只登记调用者自己的条目，
+ * 分发时也按收藏条目的 userId 匹配，其他用户的条目 id 订阅不到任何内容。文档由多个用户共享，一次文档变更按事件里的收藏条目逐个分发。
+ * 本类只维护本实例的连接，跨实例分发依赖 {@link ResourceStatusChangedEvent} 的 fanout 广播。
+ */
+@Slf4j
+@Service
+public class ResourceStatusStreamService {
+
+    private static final String EVENT_STATUS = "status";
+
+    private final LibraryRepository libraryRepository;
+    private final long timeoutMillis;
+    private final int maxConnectionsPerUser;
+
+    private final Map<ResourceKey, Set<Subscription>> byResource = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscription>> byUser = new ConcurrentHashMap<>();
+
+    public ResourceStatusStreamService(
+            LibraryRepository libraryRepository,
+            @Value("${pocketmind.resource.status-stream.timeout-ms:300000}") long timeoutMillis,
+            @Value("${pocketmind.resource.status-stream.max-connections-per-user:5}") int maxConnectionsPerUser
+    ) {
+        this.libraryRepository = libraryRepository;
+        this.timeoutMillis = timeoutMillis;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+    }
+
+    public SseEmitter subscribe(String userId, List<UUID> uuids) {
+        // 快速拒绝，省掉一次查询；上限以 register 里的原子占位为准
+        if (byUser.getOrDefault(userId, Set.of()).size() >= maxConnectionsPerUser) {
+            throw new BusinessException(ApiCode.RESOURCE_STREAM_LIMIT, HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        // 只登记调用者自己名下的条目
+        Set<UUID> owned = uuids.isEmpty()
+                ? Set.of()
+                : libraryRepository.findByIds(userId, uuids).stream().map(ResourceSummary::id).collect(Collectors.toSet());
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = new Subscription(userId, !uuids.isEmpty(), owned, emitter);
+        if (!register(subscription)) {
+            throw new BusinessException(ApiCode.RESOURCE_STREAM_LIMIT, HttpStatus.TOO_MANY_REQUESTS);
+        }
+        emitter.onCompletion(() -> unregister(subscription));
+        emitter.onTimeout(() -> unregister(subscription));
+        emitter.onError(e -> unregister(subscription));
+
+        // 登记之后再推一次当前快照，避免订阅建立前已发生的变更被客户端错过。
+        // 查询失败时 emitter 不会交给 MVC，也就不会有完成回调，名额在这里归还
+        try {
+            if (!owned.isEmpty()) {
+                for (ResourceSummary resource : libraryRepository.findByIds(userId, List.copyOf(owned))) {
+                    send(subscription, toDto(resource));
+                }
+            }
+        } catch (RuntimeException e) {
+            unregister(subscription);
+            throw e;
+        }
+        return emitter;
+    }
+
+    public void dispatch(ResourceStatusChangedEvent event) {
+        if (event.recipients() == null) {
+            return;
+        }
+        for (ResourceStatusChangedEvent.Recipient recipient : event.recipients()) {
+            Set<Subscription> targeted = byResource.getOrDefault(new ResourceKey(recipient.userId(), recipient.uuid()), Set.of());
+            Set<Subscription> owned = byUser.getOrDefault(recipient.userId(), Set.of());
+            if (targeted.isEmpty() && owned.isEmpty()) {
+                continue;
+            }
+            ResourceStatusChangeDTO dto = new ResourceStatusChangeDTO(
+                    recipient.uuid(),
+                    recipient.url(),
+                    event.title(),
+                    ResourceApplicationService.toPublicStatus(event.status())
+            );
+            for (Subscription subscription : targeted) {
+                send(subscription, dto);
+            }
+            for (Subscription subscription : owned) {
+                if (!subscription.targeted()) {
+                    send(subscription, dto);
+                }
+            }
+        }
+    }
+
+    /**
+     * 定时发送注释行心跳：既防止中间代理断开空闲连接，也能及时发现已断开的客户端并回收
+     */
+    @Scheduled(fixedDelayString = "${pocketmind.resource.status-stream.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        for (Set<Subscription> subscriptions : byUser.values()) {
+            for (Subscription subscription : subscriptions) {
+                try {
+                    subscription.emitter().send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException e) {
+                    subscription.emitter().completeWithError(e);
+                    unregister(subscription);
+                }
+            }
+        }
+    }
+
+    private ResourceStatusChangeDTO toDto(ResourceSummary resource) {
+        return new ResourceStatusChangeDTO(
+                resource.id(),
+                resource.originalUrl(),
+                resource.title(),
+                ResourceApplicationService.toPublicStatus(resource.status())
+        );
+    }
+
+    private void send(Subscription subscription, ResourceStatusChangeDTO dto) {
+        try {
+            subscription.emitter().send(SseEmitter.event()
+                    .name(EVENT_STATUS)
+                    .id(dto.uuid().toString())
+                    .data(dto));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("SSE send failed, dropping subscription of user {}: {}", subscription.userId(), e.getMessage());
+            subscription.emitter().completeWithError(e);
+            unregister(subscription);
+        }
+    }
+
+    /**
+     * 在 byUser 的 compute 里检查上限并登记，同一用户的并发订阅不会越过上限
+     *
+     * @return 已达上限、未登记时返回 false
+     */
+    private boolean register(Subscription subscription) {
+        boolean[] admitted = new boolean[1];
+        byUser.compute(subscription.userId(), (k, set) -> {
+            Set<Subscription> subscriptions = set != null ? set : new CopyOnWriteArraySet<>();
+            if (subscriptions.size() < maxConnectionsPerUser) {
+                admitted[0] = subscriptions.add(subscription);
+            }
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+        if (!admitted[0]) {
+            return false;
+        }
+        for (UUID uuid : subscription.uuids()) {
+            byResource.computeIfAbsent(new ResourceKey(subscription.userId(), uuid), k -> new CopyOnWriteArraySet<>()).add(subscription);
+        }
+        return true;
+    }
+
+    private void unregister(Subscription subscription) {
+        byUser.computeIfPresent(subscription.userId(), (k, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+        for (UUID uuid : subscription.uuids()) {
+            byResource.computeIfPresent(new ResourceKey(subscription.userId(), uuid), (k, set) -> {
+                set.remove(subscription);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * @param targeted 订阅时指定了 UUID；此时 uuids 只含其中属于该用户的条目，可能为空
+     */
+    private record Subscription(String userId, boolean targeted, Set<UUID> uuids, SseEmitter emitter) {
+    }
+
+    private record ResourceKey(String userId, UUID uuid) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.util.UUID;
+
+/**
+ * 文档正文的一个分块及其向量，随文档共享，不区分收藏者。
+ *
+ * @param headingPath 分块所在的 Markdown 标题路径，没有标题时为空串
+ * @param tokens      分块正文的 token 数
+ * @param embeddingKey 向量缓存键，见 {@link EmbeddingCache}
+ */
+public record DocumentEmbedding(
+        UUID id,
+        UUID documentId,
+        int chunkIndex,
+        String headingPath,
+        String content,
+        int tokens,
+        String embeddingKey,
+        float[] vector
+) {
+}
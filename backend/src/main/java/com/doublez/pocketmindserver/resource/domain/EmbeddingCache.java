@@ -0,0 +1,27 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 按内容寻址的向量缓存：键为 (模型, 规范化分块文本) 的哈希，跨文档、跨重新抓取共享，
+ * 相同分块只调用一次向量模型。分块通过 {@link DocumentEmbedding#embeddingKey()} 引用缓存条目。
+ */
+public interface EmbeddingCache {
+
+    /**
+     * 未缓存的键不出现在结果里
+     */
+    Map<String, float[]> findAll(Collection<String> keys);
+
+    /**
+     * 已存在的键保持不变
+     */
+    void saveAll(Map<String, float[]> vectors);
+
+    /**
+     * 删除至多 limit 条写入超过 grace 且没有任何分块引用的向量，返回删除条数
+     */
+    int deleteUnreferenced(Duration grace, int limit);
+}
@@ -0,0 +1,40 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 文档分块向量（resource_embeddings）
+ */
+public interface EmbeddingRepository {
+
+    /**
+     * 这批文档已入库的分块，不含正文与向量，用于重新向量化时按分块比对
+     */
+    List<StoredChunk> findChunks(Collection<UUID> documentIds);
+
+    /**
+     * 按比对结果增量写入，需在调用方事务内执行：removed 一条语句批量删除，moved 只改写元数据，added 批量插入。
+     * 未出现在其中的分块保持原样
+     */
+    void applyChanges(ChunkChanges changes);
+
+    /**
+     * @param embeddingKey 分块内容哈希，即向量缓存键；早期写入的分块为 null，重新向量化时按新增处理
+     */
+    record StoredChunk(UUID id, UUID documentId, int chunkIndex, String headingPath, String embeddingKey) {
+    }
+
+    /**
+     * @param added   新增或内容变化的分块
+     * @param moved   内容未变、序号或标题路径变化的分块，id 沿用已入库的行，不带向量
+     * @param removed 不再出现的分块 id
+     */
+    record ChunkChanges(List<DocumentEmbedding> added, List<DocumentEmbedding> moved, List<UUID> removed) {
+
+        public boolean isEmpty() {
+            return added.isEmpty() && moved.isEmpty() && removed.isEmpty();
+        }
+    }
+}
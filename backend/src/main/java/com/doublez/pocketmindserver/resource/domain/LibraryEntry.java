@@ -0,0 +1,21 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.util.UUID;
+
+/**
+ * 用户资源库中的一条收藏，指向共享的 {@link Resource} 文档。对外接口里的资源 uuid 即条目 id。
+ *
+ * @param originalUrl 该用户提交时的 URL 写法，可能与文档上记录的不同
+ */
+public record LibraryEntry(
+        UUID id,
+        String userId,
+        String originalUrl,
+        String urlHash,
+        UUID documentId
+) {
+
+    public static LibraryEntry create(UUID id, String userId, String originalUrl, UUID documentId) {
+        return new LibraryEntry(id, userId, originalUrl, UrlCanonicalizer.hash(originalUrl), documentId);
+    }
+}
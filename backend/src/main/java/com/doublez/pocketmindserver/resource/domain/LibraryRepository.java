@@ -0,0 +1,49 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * 用户资源库条目。条目表按 user_id 哈希分区，除按文档反查外的方法都带 userId，查询只落到该用户所在的分区；
+ * 标题、状态、正文等读取时关联 resource_document。
+ */
+public interface LibraryRepository {
+
+    /**
+     * 按 (userId, url_hash) 插入或获取，单条语句完成。已收藏过的 URL 返回原有条目，不修改其收藏时间。
+     * 入参的 (userId, url_hash) 需互不相同，结果与入参顺序一致。
+     */
+    List<LibraryEntry> addAll(List<LibraryEntry> entries);
+
+    Optional<LibraryEntry> findById(String userId, UUID id);
+
+    List<ResourceSummary> findByIds(String userId, List<UUID> ids);
+
+    /**
+     * 收藏了该文档的全部条目，用于把文档的状态变更分发给各用户。跨分区查询，走 document_id 索引。
+     */
+    List<LibraryEntry> findByDocumentId(UUID documentId);
+
+    /**
+     * 批量查询当前用户资源的状态，按规范化后的 url_hash 匹配。
+     * 只返回窄投影，预览在库内截断为至多 previewChars 个字符。
+     */
+    List<ResourceStatusView> findStatusByUrls(String userId, List<String> urls, int previewChars);
+
+    /**
+     * 用户资源库的 keyset 分页：按收藏条目的 (updatedAt, id) 倒序，返回严格位于游标之后的至多 limit 条。
+     * afterId 为空表示第一页；statuses 为空表示不过滤状态。
+     */
+    List<ResourceSummary> findPageByUser(String userId, Set<ResourceStatus> statuses,
+                                         LocalDateTime afterUpdatedAt, UUID afterId, int limit);
+
+    /**
+     * 按收藏时间倒序逐条回调该用户的全部资源（含正文），服务端游标分批读取，不在内存中攒结果。
+     * 需要在事务内调用，回调期间占用一个数据库连接。
+     */
+    void exportByUser(String userId, Consumer<ResourceExport> sink);
+}
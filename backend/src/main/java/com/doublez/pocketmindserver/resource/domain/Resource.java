@@ -1,70 +1,127 @@
 package com.doublez.pocketmindserver.resource.domain;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * 全局文档：按规范化 URL 去重，所有收藏同一 URL 的用户共享同一份抓取结果、正文、摘要与向量。
+ * 用户与文档的关系见 {@link LibraryEntry}。
+ */
 @Getter
 public class Resource {
 
+    /**
+     * 自上次落库以来被修改的列，仓储据此只写变更列
+     */
+    public enum Change {
+        TITLE, CONTENT, SUMMARY, STATUS
+    }
+
     private final UUID id;
-    private final String userId;
+    /** 首次提交（或失败后重新提交）时的 URL，抓取使用这一写法 */
     private final String originalUrl;
+    private final String urlHash;
 
     private String title;
+    @Getter(AccessLevel.NONE)
     private String contentMarkdown;
+    /** 正文按需加载：落库后重建的资源在第一次访问正文时才读取内容存储 */
+    @Getter(AccessLevel.NONE)
+    private Supplier<String> contentLoader;
     private String aiSummary;
 
     private ResourceStatus status;
 
-    private Resource(UUID id, String userId, String originalUrl, ResourceStatus status) {
+    /** 乐观锁版本，对应 resource_document.version */
+    private int version;
+
+    @Getter(AccessLevel.NONE)
+    private final Set<Change> changes = EnumSet.noneOf(Change.class);
+
+    private Resource(UUID id, String originalUrl, String urlHash, ResourceStatus status) {
         this.id = Objects.requireNonNull(id, "id");
-        this.userId = requireNotBlank(userId, "userId");
         this.originalUrl = requireNotBlank(originalUrl, "originalUrl");
+        this.urlHash = urlHash != null ? urlHash : UrlCanonicalizer.hash(originalUrl);
         this.status = Objects.requireNonNull(status, "status");
     }
 
-    public static Resource create(UUID id, String userId, String originalUrl) {
-        return new Resource(id, userId, originalUrl, ResourceStatus.PENDING);
+    public static Resource create(UUID id, String originalUrl) {
+        return new Resource(id, originalUrl, null, ResourceStatus.PENDING);
     }
 
     public static Resource rehydrate(
             UUID id,
-            String userId,
             String originalUrl,
+            String urlHash,
             String title,
-            String contentMarkdown,
+            Supplier<String> contentLoader,
             String aiSummary,
-            ResourceStatus status
+            ResourceStatus status,
+            int version
     ) {
-        Resource resource = new Resource(id, userId, originalUrl, status);
+        Resource resource = new Resource(id, originalUrl, urlHash, status);
         resource.title = title;
-        resource.contentMarkdown = contentMarkdown;
+        resource.contentLoader = contentLoader;
         resource.aiSummary = aiSummary;
+        resource.version = version;
         return resource;
     }
 
+    public String getContentMarkdown() {
+        if (contentLoader != null) {
+            contentMarkdown = contentLoader.get();
+            contentLoader = null;
+        }
+        return contentMarkdown;
+    }
+
+    public Set<Change> getChanges() {
+        return Collections.unmodifiableSet(changes);
+    }
+
+    /**
+     * 仓储写入成功后调用：同步新版本号并清空变更记录
+     */
+    public void markPersisted(int newVersion) {
+        this.version = newVersion;
+        this.changes.clear();
+    }
+
     public void markCrawled(String title, String contentHtml) {
         if (this.status == ResourceStatus.FAILED) {
             throw new IllegalStateException("资源已失败，不能标记为抓取成功");
         }
         this.title = title;
         this.contentMarkdown = contentHtml;
+        this.contentLoader = null;
         this.status = ResourceStatus.CRAWLED;
+        changes.add(Change.TITLE);
+        changes.add(Change.CONTENT);
+        changes.add(Change.STATUS);
     }
 
     public void markFailed() {
         this.status = ResourceStatus.FAILED;
+        changes.add(Change.STATUS);
     }
 
     public void markEmbedding() {
         requireStatus(ResourceStatus.CRAWLED);
         this.status = ResourceStatus.EMBEDDING;
+        changes.add(Change.STATUS);
     }
 
     public void markEmbedded() {
         requireStatus(ResourceStatus.EMBEDDING);
         this.status = ResourceStatus.EMBEDDED;
+        changes.add(Change.STATUS);
     }
 
     public void markAnalyzing() {
@@ -72,12 +129,26 @@ public class Resource {
             throw new IllegalStateException("当前状态不允许进入分析");
         }
         this.status = ResourceStatus.ANALYZING;
+        changes.add(Change.STATUS);
     }
 
     public void markAnalyzed(String aiSummary) {
         requireStatus(ResourceStatus.ANALYZING);
         this.aiSummary = aiSummary;
         this.status = ResourceStatus.ANALYZED;
+        changes.add(Change.SUMMARY);
+        changes.add(Change.STATUS);
+    }
+
+    /**
+     * 回收卡住的 EMBEDDING / ANALYZING：退回 CRAWLED，由对应阶段重新处理
+     */
+    public void abandonStage() {
+        if (this.status != ResourceStatus.EMBEDDING && this.status != ResourceStatus.ANALYZING) {
+            throw new IllegalStateException("当前状态不是可回收的处理阶段: " + this.status);
+        }
+        this.status = ResourceStatus.CRAWLED;
+        changes.add(Change.STATUS);
     }
 
     private void requireStatus(ResourceStatus expected) {
@@ -0,0 +1,34 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.util.UUID;
+
+/**
+ * 正文的一段，offset / totalLength 均按字符计
+ */
+public record ResourceContentSlice(
+        UUID id,
+        int offset,
+        String content,
+        int totalLength
+) {
+
+    /**
+     * 从整篇正文中按码点切出 [offset, offset + limit)，与 SQL SUBSTR 的口径一致，越界时为空串
+     */
+    public static ResourceContentSlice of(UUID id, String content, int offset, int limit) {
+        return of(id, content, offset, limit, 0, content.codePointCount(0, content.length()));
+    }
+
+    /**
+     * text 为正文从第 textOffset 个字符开始的一段，total 为整篇字符数
+     */
+    public static ResourceContentSlice of(UUID id, String text, int offset, int limit, int textOffset, int total) {
+        int available = Math.max(0, Math.min(limit, total - offset));
+        if (available == 0) {
+            return new ResourceContentSlice(id, offset, "", total);
+        }
+        int start = text.offsetByCodePoints(0, offset - textOffset);
+        int end = text.offsetByCodePoints(start, available);
+        return new ResourceContentSlice(id, offset, text.substring(start, end), total);
+    }
+}
@@ -0,0 +1,42 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 文档正文存储，与元数据分开存放并压缩，按文档 id 存取、所有收藏者共享一份。实现按 pocketmind.resource.content.store.type 选择。
+ */
+public interface ResourceContentStore {
+
+    /**
+     * 覆盖写入；content 为 null 的条目等同删除
+     */
+    void saveAll(List<Entry> entries);
+
+    default void save(UUID documentId, String content) {
+        saveAll(List.of(new Entry(documentId, content)));
+    }
+
+    Optional<String> load(UUID documentId);
+
+    /**
+     * 按字符（码点）区间读取正文，offset 越界时内容为空串；文档没有正文时返回空。
+     * 默认读取整篇再切片，能只读取所需部分的实现应覆盖
+     */
+    default Optional<ResourceContentSlice> loadRange(UUID documentId, int offset, int limit) {
+        return load(documentId).map(content -> ResourceContentSlice.of(documentId, content, offset, limit));
+    }
+
+    /**
+     * 批量读取正文，没有正文的文档不出现在结果里
+     */
+    Map<UUID, String> loadAll(Collection<UUID> documentIds);
+
+    void deleteAll(Collection<UUID> documentIds);
+
+    record Entry(UUID documentId, String content) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 导出用的完整资源快照
+ *
+ * @param aiTagsJson AI 标签的原始 JSON，未生成时为 null
+ */
+public record ResourceExport(
+        UUID id,
+        String originalUrl,
+        String title,
+        ResourceStatus status,
+        String content,
+        String aiSummary,
+        String aiTagsJson,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt
+) {
+}
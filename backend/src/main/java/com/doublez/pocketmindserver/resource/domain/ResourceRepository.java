@@ -2,29 +2,79 @@ package com.doublez.pocketmindserver.resource.domain;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.UUID;
 
+/**
+ * 全局文档仓储。文档表不分区、按 url_hash 全局唯一，抓取、租约与回收都以文档为单位；
+ * 用户维度的查询见 {@link LibraryRepository}。
+ */
 public interface ResourceRepository {
 
     void save(Resource resource);
 
-    void update(Resource resource);
+    /**
+     * 按 url_hash 原子地插入或获取，避免“先查后插”的并发竞争。
+     *
+     * created=true 表示本次新建，或把一条 FAILED 文档重置为 PENDING，调用方需要投递抓取任务；
+     * created=false 表示已有成功/处理中的文档（可能由其他用户提交），直接复用。
+     */
+    InsertOrGetResult insertOrGet(Resource resource);
 
-    Optional<Resource> findByIdAndUserId(UUID id, String userId);
+    /**
+     * 批量版本的 {@link #insertOrGet(Resource)}，单条语句完成。入参的 url_hash 需互不相同，结果与入参顺序一致。
+     */
+    List<InsertOrGetResult> insertOrGetAll(List<Resource> resources);
 
-    List<Resource> findByIdsAndUserId(List<UUID> ids, String userId);
+    /**
+     * 按版本号条件更新，只写 {@link Resource#getChanges()} 中的列；版本不匹配时抛 {@link ResourceVersionConflictException}。
+     * 成功后 resource 的版本号与变更记录会同步。
+     */
+    void update(Resource resource);
 
     /**
-     * 根据 URL 查询资源（用于多用户复用的公共资源场景）。
-     *
-     * 注意：这里不做 userId 过滤，调用方需要确保只用于公开 URL 内容。
+     * {@link #update(Resource)} 的批量版本：一次 JDBC batch 写回，不抛版本冲突，返回冲突（未写入）的文档 id。
+     * 写入成功的文档同步版本号与变更记录。
      */
-    Optional<Resource> findLatestByUrl(String url);
+    Set<UUID> updateAll(List<Resource> resources);
 
     /**
-     * 批量根据 URL 查询资源（用于多用户复用的公共资源场景）。
+     * 读取 - 修改 - 条件写回，版本冲突时重新读取并重放 change，直到成功或达到重试上限。
      *
-     * 注意：这里不做 userId 过滤，调用方需要确保只用于公开 URL 内容。
+     * change 返回 false 表示当前状态下无需修改（不写库，返回 empty）；文档不存在也返回 empty。
+     * 为避免状态流转搬运大字段，change 拿到的 Resource 正文按需加载，不访问就不读取。
+     */
+    Optional<Resource> modify(UUID id, Predicate<Resource> change);
+
+    Optional<Resource> findById(UUID id);
+
+    List<Resource> findByIds(List<UUID> ids);
+
+    /**
+     * 按字符区间读取文档正文，文档不存在时返回 empty
+     */
+    Optional<ResourceContentSlice> findContent(UUID id, int offset, int limit);
+
+    /**
+     * 续期处理中文档的租约（开始一次处理前调用），文档已是终态时不做任何事。
+     */
+    void renewLease(UUID id);
+
+    void renewLeases(List<UUID> ids);
+
+    /**
+     * 认领至多 limit 条租约已过期的处理中文档并为其续租，多实例并发调用时互不重复。
+     * 返回的 Resource 正文按需加载。
+     */
+    List<LeaseClaim> claimExpiredLeases(int limit);
+
+    record InsertOrGetResult(Resource resource, boolean created) {
+    }
+
+    /**
+     * @param recoveryCount 含本次在内的累计回收次数
      */
-    List<Resource> findByUrls(List<String> urls);
+    record LeaseClaim(Resource resource, int recoveryCount) {
+    }
 }
@@ -0,0 +1,55 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 混合检索的候选召回。分块向量按文档共享，所有查询都限定在该用户资源库里的文档；
+ * 每路召回各自按相关度降序返回，融合排序由调用方完成。
+ */
+public interface ResourceSearchRepository {
+
+    /**
+     * 语义召回：按余弦距离升序的分块。需在事务内调用，检索参数以事务级设置生效
+     */
+    List<ChunkHit> findNearestChunks(String userId, float[] queryVector, int limit);
+
+    /**
+     * 全文召回：正文分块，按 ts_rank_cd 降序
+     */
+    List<ChunkHit> findMatchingChunks(String userId, String query, int limit);
+
+    /**
+     * 全文召回：标题命中的文档 id，按 ts_rank_cd 降序
+     */
+    List<UUID> findMatchingTitles(String userId, String query, int limit);
+
+    /**
+     * 文档对应的该用户资源库条目
+     */
+    List<Entry> findEntries(String userId, Collection<UUID> documentIds);
+
+    /**
+     * 分块摘录，命中的查询词以 &lt;mark&gt; 包裹；分块内没有命中词时返回开头一段
+     */
+    Map<UUID, String> highlight(Collection<UUID> chunkIds, String query);
+
+    record ChunkHit(UUID chunkId, UUID documentId) {
+    }
+
+    /**
+     * @param id 资源库条目 id，即对外的资源 uuid
+     */
+    record Entry(
+            UUID id,
+            UUID documentId,
+            String originalUrl,
+            String title,
+            ResourceStatus status,
+            LocalDateTime updatedAt
+    ) {
+    }
+}
@@ -7,5 +7,12 @@ public enum ResourceStatus {
     EMBEDDED,
     ANALYZING,
     ANALYZED,
-    FAILED
+    FAILED;
+
+    /**
+     * 处理中的状态：持有租约，租约过期说明处理方已丢失，需要回收重新投递
+     */
+    public boolean isInFlight() {
+        return this == PENDING || this == EMBEDDING || this == ANALYZING;
+    }
 }
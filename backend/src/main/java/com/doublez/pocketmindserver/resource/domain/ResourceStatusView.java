@@ -0,0 +1,17 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.util.UUID;
+
+/**
+ * 状态查询用的窄投影：不含正文，只带 SQL 侧截断好的预览
+ */
+public record ResourceStatusView(
+        UUID id,
+        String originalUrl,
+        String urlHash,
+        String title,
+        String preview,
+        String aiSummary,
+        ResourceStatus status
+) {
+}
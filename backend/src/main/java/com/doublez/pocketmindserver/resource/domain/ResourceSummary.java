@@ -0,0 +1,16 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 资源库列表用的窄投影，不含正文与摘要
+ */
+public record ResourceSummary(
+        UUID id,
+        String originalUrl,
+        String title,
+        ResourceStatus status,
+        LocalDateTime updatedAt
+) {
+}
@@ -0,0 +1,13 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.util.UUID;
+
+/**
+ * 条件更新时版本号不匹配：资源在读取之后已被其他流程修改
+ */
+public class ResourceVersionConflictException extends RuntimeException {
+
+    public ResourceVersionConflictException(UUID id, int expectedVersion) {
+        super("资源已被并发修改: id=" + id + ", version=" + expectedVersion);
+    }
+}
@@ -0,0 +1,112 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * URL 规范化与去重哈希。
+ *
+ * 规则：scheme / host 转小写、去掉默认端口、去掉 fragment、去掉常见追踪参数、
+ * 剩余查询参数按 key 排序、非根路径去掉末尾斜杠。无法解析的 URL 只做 trim。
+ * 规则一旦调整，已落库的 url_hash 不会自动重算，修改前需要评估回填。
+ */
+public final class UrlCanonicalizer {
+
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+            "fbclid", "gclid", "dclid", "msclkid", "yclid", "igshid",
+            "mc_cid", "mc_eid", "ref_src", "ref_url",
+            "spm_id_from", "vd_source", "share_source", "share_medium", "share_plat", "share_session_id", "share_tag"
+    );
+
+    private UrlCanonicalizer() {
+    }
+
+    public static String canonicalize(String url) {
+        String trimmed = url.trim();
+        URI uri;
+        try {
+            uri = new URI(trimmed);
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+        if (uri.getScheme() == null || uri.getRawAuthority() == null || uri.getHost() == null) {
+            return trimmed;
+        }
+
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+            port = -1;
+        }
+
+        StringBuilder sb = new StringBuilder(trimmed.length());
+        sb.append(scheme).append("://");
+        if (uri.getRawUserInfo() != null) {
+            sb.append(uri.getRawUserInfo()).append('@');
+        }
+        sb.append(host);
+        if (port != -1) {
+            sb.append(':').append(port);
+        }
+
+        String path = uri.getRawPath();
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        } else if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        sb.append(path);
+
+        String query = canonicalQuery(uri.getRawQuery());
+        if (!query.isEmpty()) {
+            sb.append('?').append(query);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 规范化 URL 的 SHA-256（64 位小写十六进制），作为 resource_metadata.url_hash 的定长去重键
+     */
+    public static String hash(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(canonicalize(url).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        List<String> kept = new ArrayList<>();
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String key = (eq < 0 ? pair : pair.substring(0, eq)).toLowerCase(Locale.ROOT);
+            if (key.startsWith("utm_") || TRACKING_PARAMS.contains(key)) {
+                continue;
+            }
+            kept.add(pair);
+        }
+        kept.sort(Comparator.comparing(p -> {
+            int eq = p.indexOf('=');
+            return eq < 0 ? p : p.substring(0, eq);
+        }));
+        return String.join("&", kept);
+    }
+}
@@ -0,0 +1,32 @@
+package com.doublez.pocketmindserver.resource.infra.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 抓取结果缓存配置
+ *
+ * @param enabled         是否启用缓存
+ * @param ttl             Redis 层过期时间
+ * @param localTtl        进程内缓存过期时间（不超过 ttl）
+ * @param localMaxWeight  进程内缓存容量上限，按正文字符数计权，超出后按 W-TinyLFU 淘汰
+ */
+@ConfigurationProperties(prefix = "pocketmind.crawler.cache")
+public record CrawlCacheProperties(
+        Boolean enabled,
+        Duration ttl,
+        Duration localTtl,
+        Long localMaxWeight
+) {
+
+    public CrawlCacheProperties {
+        enabled = enabled == null || enabled;
+        ttl = ttl == null ? Duration.ofHours(6) : ttl;
+        localTtl = localTtl == null ? Duration.ofMinutes(30) : localTtl;
+        if (localTtl.compareTo(ttl) > 0) {
+            localTtl = ttl;
+        }
+        localMaxWeight = localMaxWeight == null ? 32L * 1024 * 1024 : localMaxWeight;
+    }
+}
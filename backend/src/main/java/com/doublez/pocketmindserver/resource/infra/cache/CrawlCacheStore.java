@@ -0,0 +1,15 @@
+package com.doublez.pocketmindserver.resource.infra.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 抓取结果缓存的共享层（跨实例）。生产使用 Redis 实现，测试可以替换为内存实现。
+ * 实现方出错时应抛出异常，由 {@link CrawlResultCache} 统一降级为未命中。
+ */
+public interface CrawlCacheStore {
+
+    Optional<String> get(String key);
+
+    void put(String key, String value, Duration ttl);
+}
@@ -0,0 +1,134 @@
+package com.doublez.pocketmindserver.resource.infra.cache;
+
+import com.doublez.pocketmindserver.resource.domain.UrlCanonicalizer;
+import com.doublez.pocketmindserver.resource.infra.http.JinaReaderClient.JinaResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Jina 抓取结果的读穿透缓存：进程内 Caffeine（L1）+ 可选的 Redis（L2），按规范化 URL 的哈希作为 key。
+ *
+ * 只缓存成功结果（code=200 且有 data），失败响应每次都会重新抓取。
+ * L2 读写异常只记日志并按未命中处理，缓存不可用不影响抓取。
+ *
+ * 指标：L1 由 CaffeineCacheMetrics 暴露 cache.gets / cache.evictions 等（cache=jina.crawl.local），
+ * L2 为 jina.crawl.cache.remote{result=hit|miss|error}。
+ */
+@Slf4j
+@Component
+public class CrawlResultCache {
+
+    private static final String KEY_PREFIX = "pocketmind:crawl:";
+
+    private final CrawlCacheProperties properties;
+    private final CrawlCacheStore remote;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, JinaResponse> local;
+
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter remoteErrors;
+
+    public CrawlResultCache(
+            CrawlCacheProperties properties,
+            ObjectProvider<CrawlCacheStore> remote,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.properties = properties;
+        this.remote = remote.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(properties.localMaxWeight())
+                .weigher((String key, JinaResponse value) -> weigh(value))
+                .expireAfterWrite(properties.localTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "jina.crawl.local");
+
+        this.remoteHits = remoteCounter(meterRegistry, "hit");
+        this.remoteMisses = remoteCounter(meterRegistry, "miss");
+        this.remoteErrors = remoteCounter(meterRegistry, "error");
+    }
+
+    public JinaResponse get(String url, Supplier<JinaResponse> loader) {
+        if (!properties.enabled()) {
+            return loader.get();
+        }
+
+        String key = KEY_PREFIX + UrlCanonicalizer.hash(url);
+        JinaResponse cached = local.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Optional<JinaResponse> shared = readRemote(key);
+        if (shared.isPresent()) {
+            local.put(key, shared.get());
+            return shared.get();
+        }
+
+        JinaResponse loaded = loader.get();
+        if (isCacheable(loaded)) {
+            local.put(key, loaded);
+            writeRemote(key, loaded);
+        }
+        return loaded;
+    }
+
+    private Optional<JinaResponse> readRemote(String key) {
+        if (remote == null) {
+            return Optional.empty();
+        }
+        try {
+            Optional<String> json = remote.get(key);
+            if (json.isEmpty()) {
+                remoteMisses.increment();
+                return Optional.empty();
+            }
+            remoteHits.increment();
+            return Optional.of(objectMapper.readValue(json.get(), JinaResponse.class));
+        } catch (Exception e) {
+            remoteErrors.increment();
+            log.warn("Crawl cache read failed, key: {}, error: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writeRemote(String key, JinaResponse response) {
+        if (remote == null) {
+            return;
+        }
+        try {
+            remote.put(key, objectMapper.writeValueAsString(response), properties.ttl());
+        } catch (Exception e) {
+            remoteErrors.increment();
+            log.warn("Crawl cache write failed, key: {}, error: {}", key, e.getMessage());
+        }
+    }
+
+    private static boolean isCacheable(JinaResponse response) {
+        return response != null && response.code() == 200 && response.data() != null;
+    }
+
+    private static int weigh(JinaResponse response) {
+        String content = response.data() == null ? null : response.data().content();
+        return content == null ? 1 : Math.max(1, content.length());
+    }
+
+    private static Counter remoteCounter(MeterRegistry registry, String result) {
+        return Counter.builder("jina.crawl.cache.remote")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,30 @@
+package com.doublez.pocketmindserver.resource.infra.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "spring.data.redis.enabled", havingValue = "true")
+public class RedisCrawlCacheStore implements CrawlCacheStore {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public RedisCrawlCacheStore(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        Object value = redisTemplate.opsForValue().get(key);
+        return value instanceof String s ? Optional.of(s) : Optional.empty();
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        redisTemplate.opsForValue().set(key, value, ttl);
+    }
+}
@@ -0,0 +1,139 @@
+package com.doublez.pocketmindserver.resource.infra.content;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 正文编码。DEFLATE 取最快档位（level 1），Markdown 文本通常能压到原大小的 30%~40%；
+ * 短正文或压缩无收益时按 NONE 原样存 UTF-8。编码值随正文一起落盘，后续可以加入其他编码而不影响旧数据。
+ *
+ * 新写入的压缩正文为 DEFLATE_BLOCKS：每 {@link #BLOCK_CHARS} 个字符（码点）独立压缩成一块，
+ * 正文 = 头部（块数 + 各块在数据区的结束偏移，均为 4 字节大端整数）+ 各块依次拼接。
+ * 按字符区间读取时只需取头部和覆盖区间的几块，不必取回并解压整篇。DEFLATE 为单个压缩流，只读不写。
+ */
+public enum ContentCodec {
+
+    NONE,
+    DEFLATE,
+    DEFLATE_BLOCKS;
+
+    /**
+     * 每块的字符数，属于 DEFLATE_BLOCKS 的存储格式，修改后旧数据无法按区间读取
+     */
+    public static final int BLOCK_CHARS = 16 * 1024;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    public static Encoded encode(String content, int minCompressBytes) {
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < minCompressBytes) {
+            return new Encoded(NONE, raw);
+        }
+        int total = content.codePointCount(0, content.length());
+        int blocks = blockCount(total);
+        ByteBuffer header = ByteBuffer.allocate(headerBytes(blocks)).putInt(blocks);
+        ByteArrayOutputStream data = new ByteArrayOutputStream(raw.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int start = 0;
+            for (int i = 0; i < blocks; i++) {
+                int end = content.offsetByCodePoints(start, Math.min(BLOCK_CHARS, total - i * BLOCK_CHARS));
+                deflater.reset();
+                deflater.setInput(content.substring(start, end).getBytes(StandardCharsets.UTF_8));
+                deflater.finish();
+                while (!deflater.finished()) {
+                    data.write(buffer, 0, deflater.deflate(buffer));
+                }
+                header.putInt(data.size());
+                start = end;
+            }
+        } finally {
+            deflater.end();
+        }
+        if (header.capacity() + data.size() >= raw.length) {
+            return new Encoded(NONE, raw);
+        }
+        byte[] body = new byte[header.capacity() + data.size()];
+        System.arraycopy(header.array(), 0, body, 0, header.capacity());
+        System.arraycopy(data.toByteArray(), 0, body, header.capacity(), data.size());
+        return new Encoded(DEFLATE_BLOCKS, body);
+    }
+
+    public String decode(byte[] body) {
+        return switch (this) {
+            case NONE -> new String(body, StandardCharsets.UTF_8);
+            case DEFLATE -> inflate(body, 0, body.length);
+            case DEFLATE_BLOCKS -> {
+                int headerBytes = headerBytes(ByteBuffer.wrap(body).getInt());
+                yield inflate(body, headerBytes, body.length - headerBytes);
+            }
+        };
+    }
+
+    /**
+     * 容纳 chars 个字符所需的块数
+     */
+    public static int blockCount(int chars) {
+        return (chars + BLOCK_CHARS - 1) / BLOCK_CHARS;
+    }
+
+    /**
+     * DEFLATE_BLOCKS 头部字节数
+     */
+    public static int headerBytes(int blocks) {
+        return Integer.BYTES * (blocks + 1);
+    }
+
+    /**
+     * 解析 DEFLATE_BLOCKS 头部，返回各块在数据区内的结束偏移
+     */
+    public static int[] blockEnds(byte[] header) {
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        int[] ends = new int[buffer.getInt()];
+        for (int i = 0; i < ends.length; i++) {
+            ends[i] = buffer.getInt();
+        }
+        return ends;
+    }
+
+    /**
+     * 解压若干个首尾相接的完整压缩块（单个 DEFLATE 流也适用），按顺序拼接
+     */
+    public static String inflate(byte[] data, int offset, int length) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length * 3);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (true) {
+                if (inflater.finished()) {
+                    int remaining = inflater.getRemaining();
+                    if (remaining == 0) {
+                        break;
+                    }
+                    // 下一块是独立的压缩流，从剩余输入处重新开始
+                    inflater.reset();
+                    inflater.setInput(data, offset + length - remaining, remaining);
+                }
+                int n = inflater.inflate(buffer);
+                if (n == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("正文数据不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("正文解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public record Encoded(ContentCodec codec, byte[] body) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.doublez.pocketmindserver.resource.infra.content;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceContentStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 正文存本地目录：{directory}/{documentId 前两位}/{documentId}.bin，
+ * 文件首字节为 {@link ContentCodec} 序号，其后是编码后的正文。先写临时文件再原子替换，读到的总是完整文件。
+ *
+ * 文件写入不参与数据库事务；多实例部署需要共享挂载同一目录，否则使用 TABLE 模式。
+ */
+@Component
+@ConditionalOnProperty(prefix = "pocketmind.resource.content.store", name = "type", havingValue = "FILESYSTEM")
+public class FileSystemResourceContentStore implements ResourceContentStore {
+
+    private static final String SUFFIX = ".bin";
+
+    private final Path root;
+    private final int minCompressBytes;
+
+    public FileSystemResourceContentStore(ResourceContentStoreProperties properties) throws IOException {
+        this.root = Files.createDirectories(properties.directory().toAbsolutePath());
+        this.minCompressBytes = properties.minCompressBytes();
+    }
+
+    @Override
+    public void saveAll(List<Entry> entries) {
+        for (Entry entry : entries) {
+            Path file = fileOf(entry.documentId());
+            try {
+                if (entry.content() == null) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                ContentCodec.Encoded encoded = ContentCodec.encode(entry.content(), minCompressBytes);
+                byte[] bytes = new byte[encoded.body().length + 1];
+                bytes[0] = (byte) encoded.codec().ordinal();
+                System.arraycopy(encoded.body(), 0, bytes, 1, encoded.body().length);
+
+                Files.createDirectories(file.getParent());
+                Path temp = Files.createTempFile(file.getParent(), entry.documentId().toString(), ".tmp");
+                try {
+                    Files.write(temp, bytes);
+                    move(temp, file);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("写入正文失败: " + entry.documentId(), e);
+            }
+        }
+    }
+
+    @Override
+    public Optional<String> load(UUID documentId) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(fileOf(documentId));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取正文失败: " + documentId, e);
+        }
+        ContentCodec codec = ContentCodec.values()[bytes[0]];
+        return Optional.of(codec.decode(Arrays.copyOfRange(bytes, 1, bytes.length)));
+    }
+
+    @Override
+    public Map<UUID, String> loadAll(Collection<UUID> documentIds) {
+        Map<UUID, String> contents = new HashMap<>();
+        for (UUID id : documentIds) {
+            load(id).ifPresent(content -> contents.put(id, content));
+        }
+        return contents;
+    }
+
+    @Override
+    public void deleteAll(Collection<UUID> documentIds) {
+        for (UUID id : documentIds) {
+            try {
+                Files.deleteIfExists(fileOf(id));
+            } catch (IOException e) {
+                throw new UncheckedIOException("删除正文失败: " + id, e);
+            }
+        }
+    }
+
+    /**
+     * 按 id 前两位分散到子目录，避免单个目录下文件过多
+     */
+    private Path fileOf(UUID documentId) {
+        String name = documentId.toString();
+        return root.resolve(name.substring(0, 2)).resolve(name + SUFFIX);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.doublez.pocketmindserver.resource.infra.content;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 区间读取的第一步：NONE 正文直接带回 SQL 切出的片段，DEFLATE_BLOCKS 正文带回块头部
+ */
+@Data
+public class ResourceContentHead {
+
+    private ContentCodec codec;
+
+    private Integer charLength;
+
+    private LocalDateTime updatedAt;
+
+    private String slice;
+
+    private byte[] header;
+}
@@ -0,0 +1,121 @@
+package com.doublez.pocketmindserver.resource.infra.content;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Mapper
+public interface ResourceContentMapper {
+
+    @Insert("""
+            <script>
+            INSERT INTO resource_document_content (document_id, codec, body, char_length)
+            VALUES
+            <foreach collection="records" item="r" separator=",">
+                (#{r.documentId}, #{r.codec}, #{r.body}, #{r.charLength})
+            </foreach>
+            ON CONFLICT (document_id) DO UPDATE
+                SET codec = EXCLUDED.codec,
+                    body = EXCLUDED.body,
+                    char_length = EXCLUDED.char_length,
+                    updated_at = NOW()
+            </script>
+            """)
+    int upsertBatch(@Param("records") List<ResourceContentRecord> records);
+
+    @Select("""
+            <script>
+            SELECT document_id, codec, body, char_length
+            FROM resource_document_content
+            WHERE document_id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    List<ResourceContentRecord> selectByIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * body 按 EXTERNAL 存储（不做 TOAST 压缩），SUBSTRING 只读取覆盖区间的 TOAST 分片。
+     * NONE 正文在库内按字符切片后返回，与早先 content_markdown 列上的 SUBSTR 一致
+     */
+    @Select("""
+            SELECT codec, char_length, updated_at,
+                   CASE WHEN codec = 'NONE'
+                        THEN SUBSTR(convert_from(body, 'UTF8'), #{offset} + 1, #{limit}) END AS slice,
+                   CASE WHEN codec = 'DEFLATE_BLOCKS'
+                        THEN SUBSTRING(body FROM 1 FOR 4 * ((char_length + #{blockChars} - 1) / #{blockChars} + 1)) END AS header
+            FROM resource_document_content
+            WHERE document_id = #{documentId}
+            """)
+    ResourceContentHead selectHead(@Param("documentId") UUID documentId,
+                                   @Param("offset") int offset,
+                                   @Param("limit") int limit,
+                                   @Param("blockChars") int blockChars);
+
+    /**
+     * 按字节区间读取 body，from 从 0 开始；正文在读取头部之后被改写时返回 null
+     */
+    @Select("""
+            SELECT SUBSTRING(body FROM #{from} + 1 FOR #{length})
+            FROM resource_document_content
+            WHERE document_id = #{documentId}
+              AND codec = 'DEFLATE_BLOCKS'
+              AND updated_at = #{updatedAt}
+            """)
+    byte[] selectBodyRange(@Param("documentId") UUID documentId,
+                           @Param("updatedAt") LocalDateTime updatedAt,
+                           @Param("from") int from,
+                           @Param("length") int length);
+
+    @Delete("""
+            <script>
+            DELETE FROM resource_document_content
+            WHERE document_id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    int deleteByIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * 旧库才有 resource_content 表，新建的库不再创建
+     */
+    @Select("SELECT to_regclass('resource_content') IS NOT NULL")
+    boolean legacyTableExists();
+
+    @Select("SELECT EXISTS (SELECT 1 FROM resource_content)")
+    boolean legacyTableHasRows();
+
+    @Update("DROP TABLE IF EXISTS resource_content")
+    void dropLegacyTable();
+
+    /**
+     * 拆分文档前按用户存放的正文（resource_content），只供迁移读取；resource_id 即迁移后的文档 id
+     */
+    @Select("""
+            <script>
+            SELECT resource_id AS document_id, codec, body, char_length
+            FROM resource_content
+            WHERE user_id = #{userId}
+              AND resource_id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    List<ResourceContentRecord> selectLegacyByIds(@Param("userId") String userId, @Param("ids") Collection<UUID> ids);
+
+    @Delete("""
+            <script>
+            DELETE FROM resource_content
+            WHERE user_id = #{userId}
+              AND resource_id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    int deleteLegacyByIds(@Param("userId") String userId, @Param("ids") Collection<UUID> ids);
+}
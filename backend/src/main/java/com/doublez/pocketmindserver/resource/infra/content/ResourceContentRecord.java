@@ -0,0 +1,21 @@
+package com.doublez.pocketmindserver.resource.infra.content;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * resource_document_content 表的一行，body 为按 codec 编码后的正文
+ */
+@Data
+public class ResourceContentRecord {
+
+    private UUID documentId;
+
+    private ContentCodec codec;
+
+    private byte[] body;
+
+    /** 原文字符数，用于统计压缩率，不必解压 */
+    private Integer charLength;
+}
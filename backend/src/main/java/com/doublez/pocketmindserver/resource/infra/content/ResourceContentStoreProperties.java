@@ -0,0 +1,28 @@
+package com.doublez.pocketmindserver.resource.infra.content;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * @param type             TABLE 存 resource_document_content 表；FILESYSTEM 存本地目录，仅适合单实例或共享挂载盘
+ * @param directory        FILESYSTEM 模式的根目录
+ * @param minCompressBytes 小于该字节数的正文不压缩
+ */
+@ConfigurationProperties(prefix = "pocketmind.resource.content.store")
+public record ResourceContentStoreProperties(
+        Type type,
+        Path directory,
+        Integer minCompressBytes
+) {
+
+    public enum Type {
+        TABLE, FILESYSTEM
+    }
+
+    public ResourceContentStoreProperties {
+        type = type == null ? Type.TABLE : type;
+        directory = directory == null ? Path.of("data", "content") : directory;
+        minCompressBytes = minCompressBytes == null ? 512 : minCompressBytes;
+    }
+}
@@ -0,0 +1,134 @@
+package com.doublez.pocketmindserver.resource.infra.content;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceContentSlice;
+import com.doublez.pocketmindserver.resource.domain.ResourceContentStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 正文存 resource_document_content 表，按文档 id 一行，在应用侧压缩后以 BYTEA 写入，
+ * 网络上传输的也是压缩后的字节。与业务写入共用数据源，处于同一事务时一起提交。
+ * 分页读取正文时只传输所需区间（见 {@link #loadRange}）。
+ *
+ * 指标：resource.content.bytes{kind=raw|stored}，两者之比即压缩率。
+ */
+@Component
+@ConditionalOnProperty(prefix = "pocketmind.resource.content.store", name = "type", havingValue = "TABLE", matchIfMissing = true)
+public class TableResourceContentStore implements ResourceContentStore {
+
+    private final ResourceContentMapper mapper;
+    private final int minCompressBytes;
+    private final Counter rawBytes;
+    private final Counter storedBytes;
+
+    public TableResourceContentStore(ResourceContentMapper mapper,
+                                     ResourceContentStoreProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.mapper = mapper;
+        this.minCompressBytes = properties.minCompressBytes();
+        this.rawBytes = Counter.builder("resource.content.bytes").tag("kind", "raw").register(meterRegistry);
+        this.storedBytes = Counter.builder("resource.content.bytes").tag("kind", "stored").register(meterRegistry);
+    }
+
+    @Override
+    public void saveAll(List<Entry> entries) {
+        // 同一条 INSERT ... ON CONFLICT 不能两次更新同一行，按主键去重保留最后一次
+        Map<UUID, Entry> unique = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            unique.put(entry.documentId(), entry);
+        }
+        List<ResourceContentRecord> records = new ArrayList<>();
+        List<UUID> deletes = new ArrayList<>();
+        for (Entry entry : unique.values()) {
+            if (entry.content() == null) {
+                deletes.add(entry.documentId());
+                continue;
+            }
+            ContentCodec.Encoded encoded = ContentCodec.encode(entry.content(), minCompressBytes);
+            ResourceContentRecord record = new ResourceContentRecord();
+            record.setDocumentId(entry.documentId());
+            record.setCodec(encoded.codec());
+            record.setBody(encoded.body());
+            record.setCharLength(entry.content().codePointCount(0, entry.content().length()));
+            records.add(record);
+            rawBytes.increment(entry.content().getBytes(StandardCharsets.UTF_8).length);
+            storedBytes.increment(encoded.body().length);
+        }
+        if (!records.isEmpty()) {
+            mapper.upsertBatch(records);
+        }
+        deleteAll(deletes);
+    }
+
+    @Override
+    public Optional<String> load(UUID documentId) {
+        return Optional.ofNullable(loadAll(List.of(documentId)).get(documentId));
+    }
+
+    /**
+     * NONE 正文在库内切片；DEFLATE_BLOCKS 先取头部，再只取覆盖区间的块解压，两次都按主键读取。
+     * 旧的单流 DEFLATE 正文仍整篇读取，重新抓取后改为分块存储
+     */
+    @Override
+    public Optional<ResourceContentSlice> loadRange(UUID documentId, int offset, int limit) {
+        ResourceContentHead head = mapper.selectHead(documentId, offset, limit, ContentCodec.BLOCK_CHARS);
+        if (head == null) {
+            return Optional.empty();
+        }
+        int total = head.getCharLength();
+        return switch (head.getCodec()) {
+            case NONE -> Optional.of(new ResourceContentSlice(documentId, offset, head.getSlice(), total));
+            case DEFLATE -> ResourceContentStore.super.loadRange(documentId, offset, limit);
+            case DEFLATE_BLOCKS -> {
+                if (offset >= total) {
+                    yield Optional.of(new ResourceContentSlice(documentId, offset, "", total));
+                }
+                int[] ends = ContentCodec.blockEnds(head.getHeader());
+                int first = offset / ContentCodec.BLOCK_CHARS;
+                int last = (Math.min(total, offset + limit) - 1) / ContentCodec.BLOCK_CHARS;
+                int from = first == 0 ? 0 : ends[first - 1];
+                byte[] blocks = mapper.selectBodyRange(documentId, head.getUpdatedAt(),
+                        head.getHeader().length + from, ends[last] - from);
+                if (blocks == null) {
+                    // 两次读取之间正文被改写，退回整篇读取
+                    yield ResourceContentStore.super.loadRange(documentId, offset, limit);
+                }
+                String text = ContentCodec.inflate(blocks, 0, blocks.length);
+                yield Optional.of(ResourceContentSlice.of(documentId, text, offset, limit,
+                        first * ContentCodec.BLOCK_CHARS, total));
+            }
+        };
+    }
+
+    @Override
+    public Map<UUID, String> loadAll(Collection<UUID> documentIds) {
+        if (documentIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, String> contents = new HashMap<>();
+        for (ResourceContentRecord record : mapper.selectByIds(documentIds)) {
+            contents.put(record.getDocumentId(), record.getCodec().decode(record.getBody()));
+        }
+        return contents;
+    }
+
+    @Override
+    public void deleteAll(Collection<UUID> documentIds) {
+        if (documentIds.isEmpty()) {
+            return;
+        }
+        mapper.deleteByIds(documentIds);
+    }
+}
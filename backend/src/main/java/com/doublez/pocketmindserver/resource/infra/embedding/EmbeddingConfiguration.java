@@ -0,0 +1,22 @@
+package com.doublez.pocketmindserver.resource.infra.embedding;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * 向量化阶段使用的 EmbeddingModel：默认取 spring.ai 自动配置的模型；provider=OFFLINE 时以本地哈希模型覆盖，
+ * 不需要 API Key 也不发出网络请求。
+ */
+@Configuration
+public class EmbeddingConfiguration {
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "pocketmind.resource.embedding", name = "provider", havingValue = "OFFLINE")
+    public EmbeddingModel offlineEmbeddingModel(ResourceEmbeddingProperties properties) {
+        return new HashingEmbeddingModel(properties.dimensions());
+    }
+}
@@ -0,0 +1,34 @@
+package com.doublez.pocketmindserver.resource.infra.embedding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * 向量缓存键：SHA-256(模型标识 + 规范化后的输入文本)，64 位小写十六进制。
+ *
+ * 规范化只做 NFKC 与空白折叠，不改变大小写和标点：这些差异会影响模型输出，不应被当作同一输入。
+ * 规则一旦调整，已有缓存全部失效（只会多算一遍，不会算错）。
+ */
+public final class EmbeddingKey {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private EmbeddingKey() {
+    }
+
+    public static String of(String modelId, String text) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFKC)).replaceAll(" ").strip();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.doublez.pocketmindserver.resource.infra.embedding;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * 离线向量模型：特征哈希，把词（ASCII 单词、CJK 单字与相邻二字组）散列到固定维度并做 L2 归一化。
+ *
+ * 不调用任何外部接口，结果确定；词面重合越多余弦相似度越高，足以在本地跑通分块、入库与检索，
+ * 但没有语义能力，不能用于生产。
+ */
+public class HashingEmbeddingModel implements EmbeddingModel {
+
+    private final int dimensions;
+
+    public HashingEmbeddingModel(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>();
+        List<String> inputs = request.getInstructions();
+        for (int i = 0; i < inputs.size(); i++) {
+            embeddings.add(new Embedding(embed(inputs.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        if (text != null) {
+            for (String term : terms(text.toLowerCase(Locale.ROOT))) {
+                CRC32 crc = new CRC32();
+                crc.update(term.getBytes(StandardCharsets.UTF_8));
+                long hash = crc.getValue();
+                // 低位定桶，高位定符号，减少碰撞带来的系统性偏差
+                vector[(int) (hash % dimensions)] += (hash & 0x80000000L) == 0 ? 1f : -1f;
+            }
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    private static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        int previousIdeograph = -1;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isIdeographic(cp)) {
+                flushWord(terms, word);
+                terms.add(new String(Character.toChars(cp)));
+                if (previousIdeograph >= 0) {
+                    terms.add(new String(Character.toChars(previousIdeograph)) + new String(Character.toChars(cp)));
+                }
+                previousIdeograph = cp;
+            } else if (Character.isLetterOrDigit(cp)) {
+                word.appendCodePoint(cp);
+                previousIdeograph = -1;
+            } else {
+                flushWord(terms, word);
+                previousIdeograph = -1;
+            }
+        }
+        flushWord(terms, word);
+        return terms;
+    }
+
+    private static void flushWord(List<String> terms, StringBuilder word) {
+        if (!word.isEmpty()) {
+            terms.add(word.toString());
+            word.setLength(0);
+        }
+    }
+}
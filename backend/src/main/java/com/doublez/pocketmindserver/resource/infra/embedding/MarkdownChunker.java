@@ -0,0 +1,229 @@
+package com.doublez.pocketmindserver.resource.infra.embedding;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.knuddels.jtokkit.api.IntArrayList;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按 Markdown 结构切分正文：标题开启新分块，段落与代码块作为不可分的单元装箱，单个分块不超过 maxChunkTokens。
+ *
+ * 超长的单元依次按行、按句、按 token 切开后再装箱。每个分块记录所在的标题路径（如 "安装 > Linux"），
+ * 向量化时拼在正文前面，续写的分块也能带上章节上下文。
+ *
+ * 标题处总是另起一块，分块边界只取决于所在章节的内容：修改某一节不会移动其他章节的分块边界，
+ * 重新抓取时未改动章节的分块哈希不变，增量向量化依赖这一点。
+ */
+@Component
+public class MarkdownChunker {
+
+    private static final Pattern HEADING = Pattern.compile("^(#{1,6})\\s+(.*?)\\s*#*\\s*$");
+    private static final Pattern FENCE = Pattern.compile("^\\s*(```|~~~)");
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[。！？；.!?;])\\s*");
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+    private final int maxTokens;
+
+    public MarkdownChunker(ResourceEmbeddingProperties properties) {
+        this.maxTokens = properties.maxChunkTokens();
+    }
+
+    /**
+     * @param headingPath 分块所在的标题路径，正文开头没有标题时为空串
+     * @param tokens      分块正文的 token 数
+     */
+    public record Chunk(int index, String headingPath, String content, int tokens) {
+    }
+
+    public int countTokens(String text) {
+        return encoding.countTokens(text);
+    }
+
+    public List<Chunk> split(String markdown) {
+        if (markdown == null || markdown.isBlank()) {
+            return List.of();
+        }
+        Packer packer = new Packer();
+        String[] headings = new String[6];
+        for (Block block : blocks(markdown)) {
+            if (block.headingLevel() > 0) {
+                // 标题前已有正文时另起一块；连续的多级标题留在同一块里
+                if (packer.hasBody) {
+                    packer.flush();
+                }
+                headings[block.headingLevel() - 1] = block.headingText();
+                for (int i = block.headingLevel(); i < headings.length; i++) {
+                    headings[i] = null;
+                }
+                packer.headingPath = headingPath(headings);
+                packer.add(block.text(), countTokens(block.text()), false, false);
+                continue;
+            }
+            int tokens = countTokens(block.text());
+            if (tokens <= maxTokens) {
+                packer.add(block.text(), tokens, true, false);
+                continue;
+            }
+            boolean first = true;
+            for (String piece : splitOversized(block.text())) {
+                packer.add(piece, countTokens(piece), true, !first);
+                first = false;
+            }
+        }
+        packer.flush();
+        return packer.chunks;
+    }
+
+    /**
+     * 逐行切出段落、代码块与标题；代码块内的空行和 # 开头的行不作为边界
+     */
+    private static List<Block> blocks(String markdown) {
+        List<Block> blocks = new ArrayList<>();
+        StringBuilder paragraph = new StringBuilder();
+        String fence = null;
+        for (String line : markdown.split("\\R", -1)) {
+            if (fence != null) {
+                paragraph.append('\n').append(line);
+                if (line.strip().startsWith(fence)) {
+                    fence = null;
+                    addParagraph(blocks, paragraph);
+                }
+                continue;
+            }
+            Matcher fenceMatcher = FENCE.matcher(line);
+            if (fenceMatcher.find()) {
+                addParagraph(blocks, paragraph);
+                fence = fenceMatcher.group(1);
+                paragraph.append(line);
+                continue;
+            }
+            Matcher heading = HEADING.matcher(line);
+            if (heading.matches()) {
+                addParagraph(blocks, paragraph);
+                blocks.add(new Block(line.strip(), heading.group(1).length(), heading.group(2)));
+                continue;
+            }
+            if (line.isBlank()) {
+                addParagraph(blocks, paragraph);
+                continue;
+            }
+            if (!paragraph.isEmpty()) {
+                paragraph.append('\n');
+            }
+            paragraph.append(line);
+        }
+        // 未闭合的代码块按普通段落处理
+        addParagraph(blocks, paragraph);
+        return blocks;
+    }
+
+    private static void addParagraph(List<Block> blocks, StringBuilder paragraph) {
+        String text = paragraph.toString().strip();
+        if (!text.isEmpty()) {
+            blocks.add(new Block(text, 0, null));
+        }
+        paragraph.setLength(0);
+    }
+
+    /**
+     * 超长单元：先按行，仍超长的行按句，仍超长的句子按 token 硬切
+     */
+    private List<String> splitOversized(String text) {
+        List<String> pieces = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (countTokens(line) <= maxTokens) {
+                pieces.add(line);
+                continue;
+            }
+            for (String sentence : SENTENCE_END.split(line)) {
+                if (sentence.isBlank()) {
+                    continue;
+                }
+                if (countTokens(sentence) <= maxTokens) {
+                    pieces.add(sentence);
+                } else {
+                    pieces.addAll(splitByTokens(sentence));
+                }
+            }
+        }
+        return pieces;
+    }
+
+    private List<String> splitByTokens(String text) {
+        IntArrayList tokens = encoding.encode(text);
+        List<String> pieces = new ArrayList<>();
+        for (int start = 0; start < tokens.size(); start += maxTokens) {
+            int end = Math.min(start + maxTokens, tokens.size());
+            IntArrayList slice = new IntArrayList(end - start);
+            for (int i = start; i < end; i++) {
+                slice.add(tokens.get(i));
+            }
+            pieces.add(encoding.decode(slice));
+        }
+        return pieces;
+    }
+
+    private static String headingPath(String[] headings) {
+        List<String> path = new ArrayList<>();
+        for (String heading : headings) {
+            if (heading != null && !heading.isBlank()) {
+                path.add(heading);
+            }
+        }
+        return String.join(" > ", path);
+    }
+
+    private record Block(String text, int headingLevel, String headingText) {
+    }
+
+    /**
+     * 顺序装箱：放不下时先输出当前分块。单元之间用空行连接，同一超长单元切出的片段之间用换行连接
+     */
+    private final class Packer {
+
+        private final List<Chunk> chunks = new ArrayList<>();
+        private final StringBuilder buffer = new StringBuilder();
+        private int bufferTokens;
+        private boolean hasBody;
+        private String headingPath = "";
+        private String bufferHeadingPath = "";
+
+        void add(String text, int tokens, boolean body, boolean continuation) {
+            // 分隔符按 1 个 token 估算，输出时重新精确计数
+            if (!buffer.isEmpty() && bufferTokens + 1 + tokens > maxTokens) {
+                flush();
+            }
+            if (!hasBody) {
+                // 连续标题取最深的一级作为分块的标题路径
+                bufferHeadingPath = headingPath;
+            }
+            if (!buffer.isEmpty()) {
+                buffer.append(continuation ? "\n" : "\n\n");
+                bufferTokens++;
+            }
+            buffer.append(text);
+            bufferTokens += tokens;
+            hasBody |= body;
+        }
+
+        void flush() {
+            if (hasBody) {
+                String content = buffer.toString();
+                chunks.add(new Chunk(chunks.size(), bufferHeadingPath, content, countTokens(content)));
+            }
+            // 只有标题没有正文的块丢弃：标题已记在后续分块的标题路径里
+            buffer.setLength(0);
+            bufferTokens = 0;
+            hasBody = false;
+        }
+    }
+}
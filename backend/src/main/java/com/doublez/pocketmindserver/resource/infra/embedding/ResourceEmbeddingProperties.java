@@ -0,0 +1,75 @@
+package com.doublez.pocketmindserver.resource.infra.embedding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 向量化阶段
+ *
+ * @param enabled             关闭后抓取成功的文档停在 CRAWLED，不投递向量化任务
+ * @param provider            SPRING_AI：使用 spring.ai 自动配置的 EmbeddingModel；OFFLINE：本地哈希向量，不调用外部接口，仅用于开发与测试
+ * @param dimensions          向量维度，须与 resource_embeddings.embedding 列一致
+ * @param modelId             模型标识，参与向量缓存键；更换模型或维度时必须修改，否则会命中旧模型的向量
+ * @param maxChunkTokens      单个分块的最大 token 数（cl100k_base 计数）
+ * @param requestBatchSize    单次向量化请求携带的分块数，分块跨文档合并
+ * @param requestConcurrency  同时进行的向量化请求数
+ * @param consumerBatchSize   消费端每批最多消息数（文档数）
+ * @param batchReceiveTimeout 凑批的最长等待，超时后按已收到的消息处理
+ * @param insertBatchSize     多行 INSERT 每条语句的行数
+ * @param cache               按分块内容寻址的向量缓存
+ */
+@ConfigurationProperties(prefix = "pocketmind.resource.embedding")
+public record ResourceEmbeddingProperties(
+        Boolean enabled,
+        Provider provider,
+        Integer dimensions,
+        String modelId,
+        Integer maxChunkTokens,
+        Integer requestBatchSize,
+        Integer requestConcurrency,
+        Integer consumerBatchSize,
+        Duration batchReceiveTimeout,
+        Integer insertBatchSize,
+        Cache cache
+) {
+
+    public enum Provider {
+        SPRING_AI, OFFLINE
+    }
+
+    /**
+     * @param enabled     关闭后每个分块都调用模型，已缓存的向量不再读取也不再写入
+     * @param gcInterval  清理无引用向量的间隔
+     * @param gcGrace     缓存写入后至少保留的时长，覆盖“已写缓存、分块尚未入库”的窗口
+     * @param gcBatchSize 每批删除的条数
+     */
+    public record Cache(
+            Boolean enabled,
+            Duration gcInterval,
+            Duration gcGrace,
+            Integer gcBatchSize
+    ) {
+
+        public Cache {
+            enabled = enabled == null || enabled;
+            gcInterval = gcInterval == null ? Duration.ofHours(1) : gcInterval;
+            gcGrace = gcGrace == null ? Duration.ofDays(1) : gcGrace;
+            gcBatchSize = gcBatchSize == null ? 1000 : gcBatchSize;
+        }
+    }
+
+    public ResourceEmbeddingProperties {
+        enabled = enabled == null || enabled;
+        provider = provider == null ? Provider.SPRING_AI : provider;
+        dimensions = dimensions == null ? 1536 : dimensions;
+        modelId = modelId == null || modelId.isBlank() ? provider.name().toLowerCase() + "-" + dimensions : modelId;
+        maxChunkTokens = maxChunkTokens == null ? 512 : maxChunkTokens;
+        requestBatchSize = requestBatchSize == null ? 64 : requestBatchSize;
+        requestConcurrency = requestConcurrency == null ? 4 : requestConcurrency;
+        consumerBatchSize = consumerBatchSize == null ? 20 : consumerBatchSize;
+        batchReceiveTimeout = batchReceiveTimeout == null ? Duration.ofSeconds(2) : batchReceiveTimeout;
+        insertBatchSize = insertBatchSize == null ? 100 : insertBatchSize;
+        cache = cache == null ? new Cache(null, null, null, null) : cache;
+    }
+}
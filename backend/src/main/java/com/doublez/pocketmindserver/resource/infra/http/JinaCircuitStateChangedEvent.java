@@ -0,0 +1,7 @@
+package com.doublez.pocketmindserver.resource.infra.http;
+
+/**
+ * Jina 熔断状态变更（Spring 应用内事件）。OPEN 时应暂停抓取消费，HALF_OPEN / CLOSED 时恢复。
+ */
+public record JinaCircuitStateChangedEvent(JinaRateGovernor.CircuitState state) {
+}
@@ -0,0 +1,50 @@
+package com.doublez.pocketmindserver.resource.infra.http;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Jina 调用节流与熔断配置
+ *
+ * @param permitsPerSecond   令牌桶速率（请求/秒），对齐 Jina 账户的 RPM 上限
+ * @param burst              令牌桶容量
+ * @param initialConcurrency 自适应并发的初始上限
+ * @param minConcurrency     并发上限下界
+ * @param maxConcurrency     并发上限上界
+ * @param targetLatency      单次抓取的目标耗时，超过视为 Jina 变慢，按拥塞处理
+ * @param decreaseFactor     拥塞时并发上限的乘性缩减系数
+ * @param failureThreshold   连续过载失败多少次后熔断
+ * @param openDuration       首次熔断的暂停时长，半开试探失败后翻倍，直到 maxOpenDuration
+ * @param maxOpenDuration    熔断暂停时长上限
+ * @param maxWait            单次调用等待放行的最长时间
+ */
+@ConfigurationProperties(prefix = "pocketmind.crawler.jina.governor")
+public record JinaGovernorProperties(
+        Double permitsPerSecond,
+        Integer burst,
+        Integer initialConcurrency,
+        Integer minConcurrency,
+        Integer maxConcurrency,
+        Duration targetLatency,
+        Double decreaseFactor,
+        Integer failureThreshold,
+        Duration openDuration,
+        Duration maxOpenDuration,
+        Duration maxWait
+) {
+
+    public JinaGovernorProperties {
+        permitsPerSecond = permitsPerSecond == null ? 5.0 : permitsPerSecond;
+        burst = burst == null ? 10 : burst;
+        initialConcurrency = initialConcurrency == null ? 8 : initialConcurrency;
+        minConcurrency = minConcurrency == null ? 1 : minConcurrency;
+        maxConcurrency = maxConcurrency == null ? 64 : maxConcurrency;
+        targetLatency = targetLatency == null ? Duration.ofSeconds(20) : targetLatency;
+        decreaseFactor = decreaseFactor == null ? 0.7 : decreaseFactor;
+        failureThreshold = failureThreshold == null ? 5 : failureThreshold;
+        openDuration = openDuration == null ? Duration.ofSeconds(30) : openDuration;
+        maxOpenDuration = maxOpenDuration == null ? Duration.ofMinutes(5) : maxOpenDuration;
+        maxWait = maxWait == null ? Duration.ofSeconds(30) : maxWait;
+    }
+}
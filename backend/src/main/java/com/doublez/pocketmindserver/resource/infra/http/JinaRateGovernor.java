@@ -0,0 +1,303 @@
+package com.doublez.pocketmindserver.resource.infra.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Jina 调用节流器：令牌桶限速 + AIMD 自适应并发 + 熔断。
+ *
+ * 令牌桶按 Jina 账户限额匀速放行；并发上限在快速成功时每轮加一，
+ * 遇到 429 / 5xx / 网络错误或耗时超过目标值时乘性缩减。
+ * 连续过载达到阈值后熔断（OPEN），通过 {@link JinaCircuitStateChangedEvent} 通知暂停抓取消费，
+ * 到期转为 HALF_OPEN 只放行一个试探请求，成功则恢复，失败则加倍暂停时长。
+ * 名额不足时调用方在这里排队等待，而不是直接失败把消息打进重试 / DLQ。
+ *
+ * 指标：jina.governor.concurrency.limit、jina.governor.in_flight、
+ * jina.governor.circuit.state（0=CLOSED 1=HALF_OPEN 2=OPEN）、jina.governor.throttled{reason}、jina.governor.wait。
+ */
+@Slf4j
+@Component
+public class JinaRateGovernor {
+
+    public enum CircuitState {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    /** 两次乘性缩减之间的最小间隔，避免同一批慢请求集中返回时把上限连续砍到底 */
+    private static final long DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final JinaGovernorProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ScheduledExecutorService scheduler;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition admitted = lock.newCondition();
+
+    // 以下状态均在 lock 内读写
+    private double limit;
+    private int inFlight;
+    private double tokens;
+    private long lastRefillNanos;
+    private long lastDecreaseNanos;
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private Duration currentOpenDuration;
+    private boolean probeInFlight;
+
+    private final Counter throttledByCircuit;
+    private final Counter throttledByConcurrency;
+    private final Counter throttledByRate;
+    private final Counter rejected;
+    private final Timer waitTimer;
+
+    public JinaRateGovernor(JinaGovernorProperties properties,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jina-governor");
+            t.setDaemon(true);
+            return t;
+        });
+        this.limit = properties.initialConcurrency();
+        this.tokens = properties.burst();
+        this.lastRefillNanos = System.nanoTime();
+        this.currentOpenDuration = properties.openDuration();
+
+        Gauge.builder("jina.governor.concurrency.limit", this, g -> g.snapshot(() -> Math.floor(g.limit)))
+                .register(meterRegistry);
+        Gauge.builder("jina.governor.in_flight", this, g -> g.snapshot(() -> (double) g.inFlight))
+                .register(meterRegistry);
+        Gauge.builder("jina.governor.circuit.state", this, g -> g.snapshot(() -> (double) g.state.ordinal()))
+                .register(meterRegistry);
+        this.throttledByCircuit = throttled(meterRegistry, "circuit");
+        this.throttledByConcurrency = throttled(meterRegistry, "concurrency");
+        this.throttledByRate = throttled(meterRegistry, "rate");
+        this.rejected = throttled(meterRegistry, "timeout");
+        this.waitTimer = Timer.builder("jina.governor.wait").register(meterRegistry);
+    }
+
+    /**
+     * 在节流约束下执行一次 Jina 调用。等待超过 maxWait 仍未放行时抛 {@link JinaThrottledException}，
+     * 该异常不计入自适应反馈。
+     */
+    public <T> T execute(Supplier<T> call) {
+        long waitStart = System.nanoTime();
+        boolean probe = acquire(waitStart + properties.maxWait().toNanos());
+        waitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } catch (JinaReaderException e) {
+            if (e.isOverload()) {
+                onOverload(probe, e);
+            } else {
+                // 请求本身的问题（4xx），与负载无关，按一次正常往返处理
+                success = true;
+            }
+            throw e;
+        } finally {
+            if (success) {
+                onSuccess(probe, System.nanoTime() - start);
+            }
+            release(probe);
+        }
+    }
+
+    public CircuitState getState() {
+        return snapshot(() -> state);
+    }
+
+    private boolean acquire(long deadlineNanos) {
+        boolean probe;
+        long reservationNanos;
+        lock.lock();
+        try {
+            boolean counted = false;
+            while (true) {
+                if (state == CircuitState.CLOSED && inFlight < (int) limit) {
+                    probe = false;
+                    break;
+                }
+                if (state == CircuitState.HALF_OPEN && !probeInFlight) {
+                    probeInFlight = true;
+                    probe = true;
+                    break;
+                }
+                if (!counted) {
+                    (state == CircuitState.CLOSED ? throttledByConcurrency : throttledByCircuit).increment();
+                    counted = true;
+                }
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    rejected.increment();
+                    throw new JinaThrottledException("Jina 调用排队超时，当前状态 " + state);
+                }
+                try {
+                    admitted.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JinaReaderException(JinaReaderException.Kind.INTERNAL, "等待 Jina 调用名额时被中断", e);
+                }
+            }
+            inFlight++;
+            reservationNanos = reserveToken();
+        } finally {
+            lock.unlock();
+        }
+
+        // 令牌按预约方式发放：名额已占住，在锁外睡到预约时间点
+        if (reservationNanos > 0) {
+            throttledByRate.increment();
+            try {
+                TimeUnit.NANOSECONDS.sleep(reservationNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                release(probe);
+                throw new JinaReaderException(JinaReaderException.Kind.INTERNAL, "等待 Jina 令牌时被中断", e);
+            }
+        }
+        return probe;
+    }
+
+    /**
+     * 取一个令牌，返回需要等待的纳秒数。令牌可透支为负，后来者相应排到更晚。
+     */
+    private long reserveToken() {
+        long now = System.nanoTime();
+        double rate = properties.permitsPerSecond();
+        tokens = Math.min(properties.burst(), tokens + (now - lastRefillNanos) * rate / 1_000_000_000d);
+        lastRefillNanos = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens / rate * 1_000_000_000d);
+    }
+
+    private void release(boolean probe) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (probe) {
+                probeInFlight = false;
+            }
+            admitted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSuccess(boolean probe, long latencyNanos) {
+        lock.lock();
+        try {
+            consecutiveFailures = 0;
+            if (probe && state == CircuitState.HALF_OPEN) {
+                currentOpenDuration = properties.openDuration();
+                transition(CircuitState.CLOSED);
+                return;
+            }
+            if (latencyNanos > properties.targetLatency().toNanos()) {
+                decrease();
+            } else if (inFlight >= (int) limit) {
+                // 只有并发上限确实被用满时才加，避免空闲期上限虚涨
+                limit = Math.min(properties.maxConcurrency(), limit + 1.0 / limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onOverload(boolean probe, JinaReaderException e) {
+        lock.lock();
+        try {
+            if (probe && state == CircuitState.HALF_OPEN) {
+                long doubled = Math.min(currentOpenDuration.toMillis() * 2, properties.maxOpenDuration().toMillis());
+                currentOpenDuration = Duration.ofMillis(doubled);
+                open(e);
+                return;
+            }
+            if (state != CircuitState.CLOSED) {
+                return;
+            }
+            decrease();
+            if (++consecutiveFailures >= properties.failureThreshold()) {
+                open(e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease() {
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos < DECREASE_INTERVAL_NANOS) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        limit = Math.max(properties.minConcurrency(), limit * properties.decreaseFactor());
+    }
+
+    private void open(JinaReaderException cause) {
+        log.warn("Jina circuit opened for {} after {} consecutive overload failures, last: {}",
+                currentOpenDuration, consecutiveFailures, cause.getMessage());
+        consecutiveFailures = 0;
+        transition(CircuitState.OPEN);
+        scheduler.schedule(this::halfOpen, currentOpenDuration.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void halfOpen() {
+        lock.lock();
+        try {
+            if (state == CircuitState.OPEN) {
+                transition(CircuitState.HALF_OPEN);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void transition(CircuitState next) {
+        state = next;
+        admitted.signalAll();
+        if (next == CircuitState.CLOSED) {
+            limit = Math.max(limit, properties.minConcurrency());
+        }
+        // 监听方可能会启停消费容器（阻塞操作），统一放到调度线程上异步通知，避免在消费线程里停自己
+        scheduler.execute(() -> eventPublisher.publishEvent(new JinaCircuitStateChangedEvent(next)));
+    }
+
+    private <T> T snapshot(Supplier<T> read) {
+        lock.lock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Counter throttled(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("jina.governor.throttled").tag("reason", reason).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -1,15 +1,24 @@
 package com.doublez.pocketmindserver.resource.infra.http;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 
-import java.util.Map;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
 
 @Slf4j
 @Service
@@ -19,18 +28,30 @@ public class JinaReaderClient {
     private String apiKey;
 
     private final RestClient restClient;
-    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+    private final JinaReaderProperties properties;
 
-    public JinaReaderClient(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public JinaReaderClient(
+            ObjectMapper objectMapper,
+            JinaReaderProperties properties,
+            @Qualifier("jinaRequestFactory") ClientHttpRequestFactory requestFactory
+    ) {
+        this.properties = properties;
 
-        // Configure timeouts
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(30 * 1000); // 30 seconds
-        factory.setReadTimeout(60 * 1000);    // 60 seconds
+        // 流式解析专用 factory：限制整个响应和单个字符串的长度，超限时解析中途直接失败而不是先读完。
+        // TRUNCATE 策略下正文由 readContent 只取前缀，解析器的分段缓冲之外不会再有完整长度的副本
+        int maxStringChars = properties.oversizePolicy() == JinaReaderProperties.OversizePolicy.REJECT
+                ? properties.maxContentChars()
+                : (int) Math.min(properties.maxResponseBytes(), Integer.MAX_VALUE);
+        this.jsonFactory = objectMapper.getFactory().copy()
+                .setStreamReadConstraints(StreamReadConstraints.builder()
+                        .maxDocumentLength(properties.maxResponseBytes())
+                        .maxStringLength(maxStringChars)
+                        .build());
 
+        // 池化 keep-alive 连接，超时配置见 JinaHttpClientConfiguration
         this.restClient = RestClient.builder()
-                .requestFactory(factory)
+                .requestFactory(requestFactory)
                 .baseUrl("https://r.jina.ai")
                 .defaultHeader("User-Agent", "PocketMind/1.0")
                 .build();
@@ -69,27 +90,151 @@ public class JinaReaderClient {
                 requestSpec.header("Authorization", "Bearer " + apiKey);
             }
 
-            // 6. 发送请求
-            ResponseEntity<String> responseEntity = requestSpec
-                    .retrieve()
-                    .toEntity(String.class);
+            // 6. 发送请求，直接从响应流解析，不再把整个响应体读成 String
+            return requestSpec.exchange((request, response) -> {
+                if (response.getStatusCode().isError()) {
+                    throw new JinaReaderException(response.getStatusCode().value(),
+                            "Jina returned HTTP " + response.getStatusCode().value());
+                }
+                try (InputStream body = response.getBody()) {
+                    return parse(body, url);
+                } catch (StreamConstraintsException e) {
+                    // 超出 max-response-bytes / REJECT 策略下的正文上限，属于页面本身的问题，不是 Jina 过载
+                    throw new JinaReaderException(413, "Jina response too large: " + e.getMessage());
+                } catch (JsonProcessingException e) {
+                    throw new JinaReaderException(JinaReaderException.Kind.INVALID_RESPONSE,
+                            "Malformed Jina response: " + e.getOriginalMessage(), e);
+                }
+            });
 
-            String body = responseEntity.getBody();
-            if (body == null || body.isBlank()) {
+        } catch (JinaReaderException e) {
+            log.error("Failed to fetch content from Jina. Error: {}", e.getMessage());
+            throw e;
+        } catch (ResourceAccessException e) {
+            // RestClient 把连接失败、超时、读响应中断等 I/O 异常都包装成 ResourceAccessException
+            log.error("Failed to fetch content from Jina. Error: {}", e.getMessage());
+            throw new JinaReaderException(JinaReaderException.Kind.NETWORK, "Jina network error: " + e.getMessage(), e);
+        } catch (Exception e) {
+            log.error("Failed to fetch content from Jina. Error: {}", e.getMessage());
+            throw new JinaReaderException(JinaReaderException.Kind.INTERNAL, "Jina API Error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 只提取用到的字段，usage / metadata / external 等整体跳过，不构建对象
+     */
+    private JinaResponse parse(InputStream body, String url) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken first = parser.nextToken();
+            if (first == null) {
                 log.error("Jina returned empty body for URL: {}", url);
-                throw new RuntimeException("Jina returned empty body");
+                throw new JinaReaderException(JinaReaderException.Kind.INVALID_RESPONSE, "Jina returned empty body", null);
+            }
+            if (first != JsonToken.START_OBJECT) {
+                throw new JinaReaderException(JinaReaderException.Kind.INVALID_RESPONSE,
+                        "Unexpected Jina response token: " + first, null);
             }
 
-            try {
-                return objectMapper.readValue(body, JinaResponse.class);
-            } catch (Exception e) {
-                log.error("Failed to parse Jina JSON response. Raw Body: {}", body);
-                throw new RuntimeException("Failed to parse Jina response: " + e.getMessage(), e);
+            int code = 0;
+            int status = 0;
+            JinaData data = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "code" -> code = parser.getValueAsInt();
+                    case "status" -> status = parser.getValueAsInt();
+                    case "data" -> data = value == JsonToken.START_OBJECT ? parseData(parser, url) : null;
+                    default -> parser.skipChildren();
+                }
             }
+            return new JinaResponse(code, status, data);
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to fetch content from Jina. Error: {}", e.getMessage());
-            throw new RuntimeException("Jina API Error: " + e.getMessage(), e);
+    private JinaData parseData(JsonParser parser, String url) throws IOException {
+        String title = null;
+        String pageUrl = null;
+        String content = null;
+        String description = null;
+        String publishedTime = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "title" -> title = parser.getValueAsString();
+                case "url" -> pageUrl = parser.getValueAsString();
+                case "content" -> content = readContent(parser, url);
+                case "description" -> description = parser.getValueAsString();
+                case "publishedTime" -> publishedTime = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+        return new JinaData(title, pageUrl, content, description, publishedTime);
+    }
+
+    /**
+     * 正文按片段写入只保留前 maxContentChars 个字符的 Writer，超长正文不会构建完整长度的 String 或 char[]
+     */
+    private String readContent(JsonParser parser, String url) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            return parser.getValueAsString();
+        }
+        int max = properties.maxContentChars();
+        PrefixWriter prefix = new PrefixWriter(max);
+        parser.getText(prefix);
+        if (prefix.total() <= max) {
+            return prefix.toString();
+        }
+        if (properties.oversizePolicy() == JinaReaderProperties.OversizePolicy.REJECT) {
+            throw new JinaReaderException(413, "Jina content exceeds " + max + " chars");
+        }
+        log.info("Truncating Jina content for URL: {}, length: {} -> {}", url, prefix.total(), max);
+        return prefix.toString();
+    }
+
+    /**
+     * 只保留前 limit 个字符并记录总长度；截断处不拆开代理对
+     */
+    private static final class PrefixWriter extends Writer {
+
+        private final int limit;
+        private final StringBuilder kept;
+        private long total;
+
+        private PrefixWriter(int limit) {
+            this.limit = limit;
+            this.kept = new StringBuilder(Math.min(limit, 8192));
+        }
+
+        long total() {
+            return total;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            total += length;
+            int room = limit - kept.length();
+            if (room > 0) {
+                kept.append(chars, offset, Math.min(room, length));
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            int end = kept.length();
+            if (total > end && end > 0 && Character.isHighSurrogate(kept.charAt(end - 1))) {
+                end--;
+            }
+            return kept.substring(0, end);
         }
     }
 
@@ -107,10 +252,7 @@ public class JinaReaderClient {
             String url,
             String content,
             String description,
-            Map<String, Object> usage,
-            String publishedTime,
-            Map<String, Object> metadata,
-            Map<String, Object> external
+            String publishedTime
     ) {
     }
 }
@@ -0,0 +1,64 @@
+package com.doublez.pocketmindserver.resource.infra.http;
+
+/**
+ * Jina 调用失败。kind 区分失败来源，只有 HTTP 错误带状态码，其余为 0。
+ */
+public class JinaReaderException extends RuntimeException {
+
+    public enum Kind {
+        /** Jina 返回了错误状态码 */
+        HTTP,
+        /** 连接失败、超时、读响应中途断开等传输层错误 */
+        NETWORK,
+        /** 响应到了但内容无法解析（空响应、非 JSON、结构不符） */
+        INVALID_RESPONSE,
+        /** 本地错误：等待名额时被中断、请求构造失败等 */
+        INTERNAL
+    }
+
+    private final Kind kind;
+    private final int statusCode;
+
+    public JinaReaderException(int statusCode, String message) {
+        super(message);
+        this.kind = Kind.HTTP;
+        this.statusCode = statusCode;
+    }
+
+    public JinaReaderException(Kind kind, String message, Throwable cause) {
+        super(message, cause);
+        this.kind = kind;
+        this.statusCode = 0;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isRateLimited() {
+        return statusCode == 429;
+    }
+
+    public boolean isServerError() {
+        return statusCode >= 500;
+    }
+
+    /**
+     * 说明 Jina 侧过载或不可用（429 / 5xx / 网络错误），用于限流降速与熔断；
+     * 其余 4xx 是请求本身的问题，解析失败和本地错误也与 Jina 的负载无关。
+     */
+    public boolean isOverload() {
+        return kind == Kind.NETWORK || isRateLimited() || isServerError();
+    }
+
+    /**
+     * 值得重新投递：除 429 外的 4xx 换个时间也是同样结果，其余失败可能是偶发的
+     */
+    public boolean isRetryable() {
+        return kind != Kind.HTTP || isOverload();
+    }
+}
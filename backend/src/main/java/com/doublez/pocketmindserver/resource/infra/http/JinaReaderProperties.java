@@ -0,0 +1,49 @@
+package com.doublez.pocketmindserver.resource.infra.http;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Jina Reader 客户端配置
+ *
+ * @param maxContentChars  正文最大字符数，超出后按 oversizePolicy 处理
+ * @param oversizePolicy   TRUNCATE：截断保留前 maxContentChars 个字符；REJECT：按抓取失败处理
+ * @param maxResponseBytes 单个响应体的字节上限，解析时超出直接中断，防止异常大页面撑爆堆
+ * @param maxConnections   连接池最大连接数（只访问 r.jina.ai 一个路由，同时也是单路由上限）
+ * @param connectTimeout   建连超时（含 TLS 握手）
+ * @param readTimeout      等待响应数据的超时
+ * @param poolAcquireTimeout 从连接池获取连接的最长等待时间
+ * @param idleEvictTimeout 空闲连接超过该时长后被后台线程回收
+ * @param connectionTtl    连接最长存活时间，到期后不再复用，避免长期粘在同一个后端节点
+ */
+@ConfigurationProperties(prefix = "pocketmind.crawler.jina")
+public record JinaReaderProperties(
+        Integer maxContentChars,
+        OversizePolicy oversizePolicy,
+        Long maxResponseBytes,
+        Integer maxConnections,
+        Duration connectTimeout,
+        Duration readTimeout,
+        Duration poolAcquireTimeout,
+        Duration idleEvictTimeout,
+        Duration connectionTtl
+) {
+
+    public JinaReaderProperties {
+        maxContentChars = maxContentChars == null ? 1_000_000 : maxContentChars;
+        oversizePolicy = oversizePolicy == null ? OversizePolicy.TRUNCATE : oversizePolicy;
+        maxResponseBytes = maxResponseBytes == null ? 16L * 1024 * 1024 : maxResponseBytes;
+        maxConnections = maxConnections == null ? 64 : maxConnections;
+        connectTimeout = connectTimeout == null ? Duration.ofSeconds(30) : connectTimeout;
+        readTimeout = readTimeout == null ? Duration.ofSeconds(60) : readTimeout;
+        poolAcquireTimeout = poolAcquireTimeout == null ? Duration.ofSeconds(5) : poolAcquireTimeout;
+        idleEvictTimeout = idleEvictTimeout == null ? Duration.ofSeconds(30) : idleEvictTimeout;
+        connectionTtl = connectionTtl == null ? Duration.ofMinutes(5) : connectionTtl;
+    }
+
+    public enum OversizePolicy {
+        TRUNCATE,
+        REJECT
+    }
+}
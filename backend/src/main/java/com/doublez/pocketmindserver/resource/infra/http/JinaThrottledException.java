@@ -0,0 +1,11 @@
+package com.doublez.pocketmindserver.resource.infra.http;
+
+/**
+ * 本地节流排队超时：请求没有发往 Jina。与 Jina 返回的 429 区分开，MQ 侧只做让路，不消耗重试次数。
+ */
+public class JinaThrottledException extends RuntimeException {
+
+    public JinaThrottledException(String message) {
+        super(message);
+    }
+}
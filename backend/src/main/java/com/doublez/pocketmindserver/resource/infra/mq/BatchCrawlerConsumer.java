@@ -0,0 +1,103 @@
+package com.doublez.pocketmindserver.resource.infra.mq;
+
+import com.doublez.pocketmindserver.resource.application.ResourceApplicationService;
+import com.doublez.pocketmindserver.resource.infra.mq.config.CrawlerConsumerProperties;
+import com.doublez.pocketmindserver.resource.infra.mq.event.CrawlerRequestEvent;
+import com.rabbitmq.client.Channel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量模式的抓取消费者（pocketmind.crawler.consumer.mode=BATCH）。
+ *
+ * 容器按 batchSize / batchReceiveTimeout 凑批，整批交给 {@link ResourceApplicationService#processCrawlerBatch}：
+ * 一次查询加载、批内并发抓取、一次 JDBC batch 写回。手动 ack，成功的逐条 ack，失败的逐条交给 {@link CrawlerRetryRecoverer}。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "pocketmind.crawler.consumer", name = "mode", havingValue = "BATCH")
+public class BatchCrawlerConsumer {
+
+    private final ResourceApplicationService resourceApplicationService;
+    private final CrawlerRetryRecoverer crawlerRetryRecoverer;
+    private final MessageConverter messageConverter;
+    private final ExecutorService executor;
+
+    public BatchCrawlerConsumer(ResourceApplicationService resourceApplicationService,
+                                CrawlerRetryRecoverer crawlerRetryRecoverer,
+                                MessageConverter messageConverter,
+                                CrawlerConsumerProperties properties) {
+        this.resourceApplicationService = resourceApplicationService;
+        this.crawlerRetryRecoverer = crawlerRetryRecoverer;
+        this.messageConverter = messageConverter;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.batchParallelism(), r -> {
+            Thread t = new Thread(r, "crawler-batch-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @RabbitListener(
+            id = CrawlerMqConstants.CRAWLER_LISTENER_ID,
+            queues = CrawlerMqConstants.CRAWLER_QUEUE,
+            containerFactory = "batchCrawlerListenerContainerFactory"
+    )
+    public void handleCrawlerBatch(List<Message> messages, Channel channel) {
+        Map<Message, CrawlerRequestEvent> events = new LinkedHashMap<>();
+        for (Message message : messages) {
+            try {
+                events.put(message, (CrawlerRequestEvent) messageConverter.fromMessage(message));
+            } catch (RuntimeException e) {
+                crawlerRetryRecoverer.recoverAndAck(message, channel, e);
+            }
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        log.info("Processing crawler batch of {} requests", events.size());
+
+        Map<UUID, Exception> failures;
+        try {
+            failures = resourceApplicationService.processCrawlerBatch(new ArrayList<>(events.values()), executor);
+        } catch (Exception e) {
+            // 整批失败（如数据库不可用）：逐条走重试
+            events.keySet().forEach(message -> crawlerRetryRecoverer.recoverAndAck(message, channel, e));
+            return;
+        }
+
+        events.forEach((message, event) -> {
+            Exception failure = failures.get(event.uuid());
+            if (failure != null) {
+                crawlerRetryRecoverer.recoverAndAck(message, channel, failure);
+                return;
+            }
+            try {
+                channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
+            } catch (IOException | RuntimeException e) {
+                // channel 已关闭时 broker 会自动重投，消费端按 PENDING 状态去重
+                log.warn("Crawler ack failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
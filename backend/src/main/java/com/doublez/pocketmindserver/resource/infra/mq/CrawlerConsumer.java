@@ -5,16 +5,23 @@ import com.doublez.pocketmindserver.resource.application.ResourceApplicationServ
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "pocketmind.crawler.consumer", name = "mode", havingValue = "PLATFORM", matchIfMissing = true)
 public class CrawlerConsumer {
 
     private final ResourceApplicationService resourceApplicationService;
 
-    @RabbitListener(queues = CrawlerMqConstants.CRAWLER_QUEUE)
+    @RabbitListener(
+            id = CrawlerMqConstants.CRAWLER_LISTENER_ID,
+            queues = CrawlerMqConstants.CRAWLER_QUEUE,
+            containerFactory = "crawlerListenerContainerFactory",
+            concurrency = "${pocketmind.crawler.consumer.concurrency:1}"
+    )
     public void handleCrawlerRequest(CrawlerRequestEvent event) {
         log.info("Processing crawler request for UUID: {}", event.uuid());
         resourceApplicationService.processCrawlerRequest(event);
@@ -0,0 +1,38 @@
+package com.doublez.pocketmindserver.resource.infra.mq;
+
+import com.doublez.pocketmindserver.resource.infra.http.JinaCircuitStateChangedEvent;
+import com.doublez.pocketmindserver.resource.infra.http.JinaRateGovernor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Jina 熔断时停掉抓取队列的消费者，消息留在队列里不被消费也不进入重试；半开后恢复消费让试探请求进来。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CrawlerListenerPauser {
+
+    private final RabbitListenerEndpointRegistry registry;
+
+    @EventListener
+    public void onCircuitStateChanged(JinaCircuitStateChangedEvent event) {
+        MessageListenerContainer container = registry.getListenerContainer(CrawlerMqConstants.CRAWLER_LISTENER_ID);
+        if (container == null) {
+            return;
+        }
+        if (event.state() == JinaRateGovernor.CircuitState.OPEN) {
+            if (container.isRunning()) {
+                log.warn("Jina circuit open, pausing crawler listener");
+                container.stop();
+            }
+        } else if (!container.isRunning()) {
+            log.info("Jina circuit {}, resuming crawler listener", event.state());
+            container.start();
+        }
+    }
+}
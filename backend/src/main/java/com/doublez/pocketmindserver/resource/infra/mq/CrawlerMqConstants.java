@@ -8,8 +8,24 @@ public final class CrawlerMqConstants {
     public static final String CRAWLER_QUEUE = "crawler_queue";
     public static final String CRAWLER_EXCHANGE = "crawler_exchange";
     public static final String CRAWLER_ROUTING_KEY = "crawler.key";
+    public static final String CRAWLER_LISTENER_ID = "crawlerListener";
 
     public static final String CRAWLER_DLQ_QUEUE = "crawler_queue.dlq";
     public static final String CRAWLER_DLQ_EXCHANGE = "crawler_dlq_exchange";
     public static final String CRAWLER_DLQ_ROUTING_KEY = "crawler.dlq";
+
+    /** 延迟重试：每档一个带 TTL 的队列，到期后死信回 crawler_exchange；队列名带延迟毫秒数，改档位不会与旧队列参数冲突 */
+    public static final String CRAWLER_RETRY_EXCHANGE = "crawler_retry_exchange";
+    public static final String CRAWLER_RETRY_QUEUE_PREFIX = "crawler_queue.retry.";
+    /** 已重试次数，首次投递时不存在 */
+    public static final String CRAWLER_ATTEMPT_HEADER = "x-crawler-attempt";
+
+    /** 向量化阶段：抓取成功后投递；整批处理失败的消息死信到 DLQ */
+    public static final String EMBEDDING_QUEUE = "embedding_queue";
+    public static final String EMBEDDING_EXCHANGE = "embedding_exchange";
+    public static final String EMBEDDING_ROUTING_KEY = "embedding.key";
+    public static final String EMBEDDING_DLQ_QUEUE = "embedding_queue.dlq";
+
+    public static final String RESOURCE_STATUS_EXCHANGE = "resource_status_exchange";
+    public static final String RESOURCE_STATUS_QUEUE_PREFIX = "resource_status.";
 }
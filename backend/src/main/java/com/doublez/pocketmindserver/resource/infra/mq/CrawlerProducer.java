@@ -1,17 +1,27 @@
 package com.doublez.pocketmindserver.resource.infra.mq;
 
 import com.doublez.pocketmindserver.resource.infra.mq.event.CrawlerRequestEvent;
+import com.doublez.pocketmindserver.shared.infra.outbox.OutboxWriter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
+/**
+ * 抓取任务经 outbox 投递：在调用方事务内写入 outbox，提交后由 relay 批量发布并等待 broker 确认。
+ * 请求路径不再等待 broker。
+ */
 @Service
 @RequiredArgsConstructor
 public class CrawlerProducer {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxWriter outboxWriter;
+
+    public void enqueueCrawlerRequest(CrawlerRequestEvent event) {
+        enqueueCrawlerRequests(List.of(event));
+    }
 
-    public void sendCrawlerRequest(CrawlerRequestEvent event) {
-        rabbitTemplate.convertAndSend(CrawlerMqConstants.CRAWLER_EXCHANGE, CrawlerMqConstants.CRAWLER_ROUTING_KEY, event);
+    public void enqueueCrawlerRequests(List<CrawlerRequestEvent> events) {
+        outboxWriter.append(CrawlerMqConstants.CRAWLER_EXCHANGE, CrawlerMqConstants.CRAWLER_ROUTING_KEY, events);
     }
 }
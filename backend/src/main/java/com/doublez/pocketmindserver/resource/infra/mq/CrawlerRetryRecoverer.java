@@ -0,0 +1,134 @@
+package com.doublez.pocketmindserver.resource.infra.mq;
+
+import com.doublez.pocketmindserver.resource.application.ResourceApplicationService;
+import com.doublez.pocketmindserver.resource.infra.http.JinaReaderException;
+import com.doublez.pocketmindserver.resource.infra.http.JinaThrottledException;
+import com.doublez.pocketmindserver.resource.infra.mq.config.CrawlerRetryProperties;
+import com.doublez.pocketmindserver.resource.infra.mq.event.CrawlerRequestEvent;
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 抓取失败的分级恢复：可重试的错误按已重试次数投递到对应延迟档位的 TTL 队列，到期死信回 crawler_exchange；
+ * 不可重试（4xx、消息格式错误、状态非法）或重试用尽的直接进 DLQ，并把资源标记为 FAILED。
+ * 本地节流排队超时（{@link JinaThrottledException}）没有调用 Jina，按让路处理，不消耗重试次数。
+ * 消费线程只负责转投，不在本线程等待重试。
+ */
+@Slf4j
+public class CrawlerRetryRecoverer implements MessageRecoverer {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MessageConverter messageConverter;
+    private final RepublishMessageRecoverer deadLetterRecoverer;
+    private final ResourceApplicationService resourceApplicationService;
+    private final List<Long> delaysMillis;
+
+    public CrawlerRetryRecoverer(RabbitTemplate rabbitTemplate,
+                                 MessageConverter messageConverter,
+                                 RepublishMessageRecoverer deadLetterRecoverer,
+                                 ResourceApplicationService resourceApplicationService,
+                                 CrawlerRetryProperties properties) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.messageConverter = messageConverter;
+        this.deadLetterRecoverer = deadLetterRecoverer;
+        this.resourceApplicationService = resourceApplicationService;
+        this.delaysMillis = properties.delaysMillis();
+    }
+
+    @Override
+    public void recover(Message message, Throwable cause) {
+        Throwable root = cause instanceof ListenerExecutionFailedException && cause.getCause() != null
+                ? cause.getCause()
+                : cause;
+        CrawlerRequestEvent event = crawlerEvent(message);
+        if (event == null) {
+            // 不是抓取任务（例如误投的其他消息）：转投重试档位只会在抓取队列里再次失败，直接进 DLQ
+            deadLetterRecoverer.recover(message, cause);
+            return;
+        }
+        if (root instanceof JinaThrottledException && defer(message)) {
+            // 本地排队超时，Jina 没有被调用：让路，不计入重试次数
+            log.info("Crawler request deferred by local throttling: {}", root.getMessage());
+            return;
+        }
+        int attempt = attemptOf(message);
+
+        if (isRetryable(root) && attempt < delaysMillis.size()) {
+            long delay = delaysMillis.get(attempt);
+            message.getMessageProperties().setHeader(CrawlerMqConstants.CRAWLER_ATTEMPT_HEADER, attempt + 1);
+            rabbitTemplate.send(CrawlerMqConstants.CRAWLER_RETRY_EXCHANGE, CrawlerRetryProperties.retryQueueName(delay), message);
+            log.info("Crawler request scheduled for retry {} in {}ms: {}", attempt + 1, delay, root.getMessage());
+            return;
+        }
+
+        deadLetterRecoverer.recover(message, cause);
+        resourceApplicationService.markCrawlFailed(event);
+    }
+
+    /**
+     * 手动 ack 模式下的恢复：转投重试 / DLQ 成功后 ack 原消息；恢复本身失败则 nack 重新入队，交给 broker 重投
+     */
+    public void recoverAndAck(Message message, Channel channel, Throwable cause) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            recover(message, cause);
+            channel.basicAck(deliveryTag, false);
+        } catch (Exception e) {
+            log.error("Crawler recover failed, requeueing: {}", e.getMessage());
+            try {
+                channel.basicNack(deliveryTag, false, true);
+            } catch (IOException | RuntimeException nackFailure) {
+                // channel 已关闭时 broker 会自动重投未确认消息
+                log.warn("Crawler nack failed: {}", nackFailure.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 非失败原因的让路（如目标域名名额已满）：投到最短延迟档位，不增加重试计数。没有重试档位时返回 false。
+     */
+    public boolean defer(Message message) {
+        if (delaysMillis.isEmpty()) {
+            return false;
+        }
+        rabbitTemplate.send(CrawlerMqConstants.CRAWLER_RETRY_EXCHANGE,
+                CrawlerRetryProperties.retryQueueName(delaysMillis.get(0)), message);
+        return true;
+    }
+
+    /**
+     * 429 / 5xx / 网络错误以及未知异常可重试；Jina 返回的其余 4xx、消息无法解析、领域状态非法重试也不会成功
+     */
+    static boolean isRetryable(Throwable cause) {
+        if (cause instanceof JinaReaderException e) {
+            return e.isRetryable();
+        }
+        return !(cause instanceof MessageConversionException
+                || cause instanceof IllegalArgumentException
+                || cause instanceof IllegalStateException);
+    }
+
+    private CrawlerRequestEvent crawlerEvent(Message message) {
+        try {
+            return messageConverter.fromMessage(message) instanceof CrawlerRequestEvent event ? event : null;
+        } catch (MessageConversionException e) {
+            log.warn("Crawler recoverer received a message that is not a CrawlerRequestEvent: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static int attemptOf(Message message) {
+        Object value = message.getMessageProperties().getHeader(CrawlerMqConstants.CRAWLER_ATTEMPT_HEADER);
+        return value instanceof Number n ? n.intValue() : 0;
+    }
+}
@@ -0,0 +1,54 @@
+package com.doublez.pocketmindserver.resource.infra.mq;
+
+import com.doublez.pocketmindserver.resource.application.ResourceEmbeddingService;
+import com.doublez.pocketmindserver.resource.infra.mq.event.EmbeddingRequestEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 向量化任务消费者：容器按 consumer-batch-size / batch-receive-timeout 凑批，整批交给 {@link ResourceEmbeddingService}。
+ *
+ * 自动 ack。单篇文档向量化失败不抛出，由租约回收重新投递；只有整批失败（如数据库不可用）才抛出，整批进入 DLQ。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "pocketmind.resource.embedding", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class EmbeddingConsumer {
+
+    private final ResourceEmbeddingService resourceEmbeddingService;
+    private final MessageConverter messageConverter;
+
+    public EmbeddingConsumer(ResourceEmbeddingService resourceEmbeddingService, MessageConverter messageConverter) {
+        this.resourceEmbeddingService = resourceEmbeddingService;
+        this.messageConverter = messageConverter;
+    }
+
+    @RabbitListener(
+            queues = CrawlerMqConstants.EMBEDDING_QUEUE,
+            containerFactory = "embeddingListenerContainerFactory"
+    )
+    public void handleEmbeddingBatch(List<Message> messages) {
+        List<UUID> documentIds = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                documentIds.add(((EmbeddingRequestEvent) messageConverter.fromMessage(message)).documentId());
+            } catch (RuntimeException e) {
+                // 无法解析的消息重投也不会成功，记录后丢弃，不连累同批其他消息
+                log.error("Drop malformed embedding request: {}", e.getMessage());
+            }
+        }
+        if (documentIds.isEmpty()) {
+            return;
+        }
+        log.info("Processing embedding batch of {} documents", documentIds.size());
+        resourceEmbeddingService.embedDocuments(documentIds);
+    }
+}
@@ -0,0 +1,22 @@
+package com.doublez.pocketmindserver.resource.infra.mq;
+
+import com.doublez.pocketmindserver.resource.infra.mq.event.EmbeddingRequestEvent;
+import com.doublez.pocketmindserver.shared.infra.outbox.OutboxWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 向量化任务经 outbox 投递，与抓取结果写回处于同一事务：文档变为 CRAWLED 与任务入队同时生效或同时回滚
+ */
+@Service
+@RequiredArgsConstructor
+public class EmbeddingProducer {
+
+    private final OutboxWriter outboxWriter;
+
+    public void enqueueEmbeddingRequests(List<EmbeddingRequestEvent> events) {
+        outboxWriter.append(CrawlerMqConstants.EMBEDDING_EXCHANGE, CrawlerMqConstants.EMBEDDING_ROUTING_KEY, events);
+    }
+}
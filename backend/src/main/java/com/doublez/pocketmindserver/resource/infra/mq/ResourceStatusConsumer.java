@@ -0,0 +1,31 @@
+package com.doublez.pocketmindserver.resource.infra.mq;
+
+import com.doublez.pocketmindserver.resource.application.ResourceStatusStreamService;
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import com.doublez.pocketmindserver.resource.infra.mq.event.ResourceStatusChangedEvent;
+import com.doublez.pocketmindserver.resource.infra.vector.LocalVectorIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * 每个实例各自持有一个匿名队列绑定到 fanout 交换机，保证任意实例上的订阅者都能收到变更。
+ * 向量化完成的文档同时通知本机的进程内向量索引刷新对应收藏者的分区
+ */
+@Component
+@RequiredArgsConstructor
+public class ResourceStatusConsumer {
+
+    private final ResourceStatusStreamService resourceStatusStreamService;
+    private final ObjectProvider<LocalVectorIndex> localVectorIndex;
+
+    @RabbitListener(queues = "#{resourceStatusQueue.name}")
+    public void handleStatusChanged(ResourceStatusChangedEvent event) {
+        resourceStatusStreamService.dispatch(event);
+        if (event.status() == ResourceStatus.EMBEDDED) {
+            localVectorIndex.ifAvailable(index -> index.onDocumentEmbedded(event.documentId(),
+                    event.recipients().stream().map(ResourceStatusChangedEvent.Recipient::userId).toList()));
+        }
+    }
+}
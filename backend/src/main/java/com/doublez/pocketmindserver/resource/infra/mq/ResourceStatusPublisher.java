@@ -0,0 +1,47 @@
+package com.doublez.pocketmindserver.resource.infra.mq;
+
+import com.doublez.pocketmindserver.resource.domain.LibraryRepository;
+import com.doublez.pocketmindserver.resource.domain.Resource;
+import com.doublez.pocketmindserver.resource.infra.mq.event.ResourceStatusChangedEvent;
+import com.doublez.pocketmindserver.resource.infra.mq.event.ResourceStatusChangedEvent.Recipient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResourceStatusPublisher {
+
+    /** 热门文档的收藏者很多，分成多条消息，避免单条消息过大 */
+    private static final int RECIPIENTS_PER_EVENT = 500;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final LibraryRepository libraryRepository;
+
+    /**
+     * 状态已落库后调用，查出收藏该文档的全部条目一起广播。推送属于尽力而为：广播失败只记日志，不影响主流程，
+     * 客户端仍可回退到状态查询接口。
+     */
+    public void publish(Resource resource) {
+        try {
+            List<Recipient> recipients = libraryRepository.findByDocumentId(resource.getId()).stream()
+                    .map(entry -> new Recipient(entry.id(), entry.userId(), entry.originalUrl()))
+                    .toList();
+            for (int from = 0; from < recipients.size(); from += RECIPIENTS_PER_EVENT) {
+                var event = new ResourceStatusChangedEvent(
+                        resource.getId(),
+                        resource.getTitle(),
+                        resource.getStatus(),
+                        recipients.subList(from, Math.min(from + RECIPIENTS_PER_EVENT, recipients.size()))
+                );
+                rabbitTemplate.convertAndSend(CrawlerMqConstants.RESOURCE_STATUS_EXCHANGE, "", event);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to broadcast status change for document: {}, error: {}", resource.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.doublez.pocketmindserver.resource.infra.mq;
+
+import com.doublez.pocketmindserver.resource.application.ResourceApplicationService;
+import com.doublez.pocketmindserver.resource.infra.mq.config.CrawlerConsumerProperties;
+import com.doublez.pocketmindserver.resource.infra.mq.event.CrawlerRequestEvent;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 虚拟线程模式的抓取消费者（pocketmind.crawler.consumer.mode=VIRTUAL）。
+ *
+ * 监听线程只做分发：占一个全局名额后把消息交给虚拟线程，处理完成后在虚拟线程里手动 ack。
+ * 容器 prefetch 等于 maxInFlight，broker 侧未确认消息数与本地并发一致。
+ * 同一域名的并发受 perHostLimit 限制，等不到域名名额的消息转投延迟队列，避免单个域名占满全局名额。
+ * 失败处理与 PLATFORM 模式一致，交给 {@link CrawlerRetryRecoverer}。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "pocketmind.crawler.consumer", name = "mode", havingValue = "VIRTUAL")
+public class VirtualThreadCrawlerConsumer {
+
+    private final ResourceApplicationService resourceApplicationService;
+    private final CrawlerRetryRecoverer crawlerRetryRecoverer;
+    private final MessageConverter messageConverter;
+    private final CrawlerConsumerProperties properties;
+    private final VirtualThreadTaskExecutor executor;
+
+    private final Semaphore inFlight;
+    private final Map<String, HostPermits> hostPermits = new ConcurrentHashMap<>();
+    private final Counter deferred;
+
+    public VirtualThreadCrawlerConsumer(ResourceApplicationService resourceApplicationService,
+                                        CrawlerRetryRecoverer crawlerRetryRecoverer,
+                                        MessageConverter messageConverter,
+                                        CrawlerConsumerProperties properties,
+                                        MeterRegistry meterRegistry) {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("pocketmind.crawler.consumer.mode=VIRTUAL 需要 JDK 21+，当前 " + Runtime.version());
+        }
+        this.resourceApplicationService = resourceApplicationService;
+        this.crawlerRetryRecoverer = crawlerRetryRecoverer;
+        this.messageConverter = messageConverter;
+        this.properties = properties;
+        // 版本检查之后再创建：JDK 21 以下构造时会抛出不带说明的 UnsupportedOperationException
+        this.executor = new VirtualThreadTaskExecutor("crawler-vt-");
+        this.inFlight = new Semaphore(properties.maxInFlight());
+
+        Gauge.builder("crawler.consumer.in_flight", inFlight, s -> properties.maxInFlight() - s.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("crawler.consumer.hosts", hostPermits, Map::size).register(meterRegistry);
+        this.deferred = Counter.builder("crawler.consumer.host.deferred").register(meterRegistry);
+    }
+
+    @RabbitListener(
+            id = CrawlerMqConstants.CRAWLER_LISTENER_ID,
+            queues = CrawlerMqConstants.CRAWLER_QUEUE,
+            containerFactory = "virtualCrawlerListenerContainerFactory"
+    )
+    public void handleCrawlerRequest(Message message, Channel channel) throws InterruptedException {
+        // prefetch 已限制了未确认数，这里是多消费者 / 重连场景下的兜底背压
+        inFlight.acquire();
+        try {
+            executor.execute(() -> process(message, channel));
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void process(Message message, Channel channel) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            CrawlerRequestEvent event = (CrawlerRequestEvent) messageConverter.fromMessage(message);
+            String host = hostOf(event.url());
+            HostPermits permits = hostPermits.compute(host, (k, v) -> (v == null ? new HostPermits(properties.perHostLimit()) : v).retain());
+            try {
+                if (!permits.semaphore.tryAcquire(properties.hostWait().toMillis(), TimeUnit.MILLISECONDS)) {
+                    deferred.increment();
+                    if (crawlerRetryRecoverer.defer(message)) {
+                        ack(channel, deliveryTag);
+                    } else {
+                        channel.basicNack(deliveryTag, false, true);
+                    }
+                    return;
+                }
+                try {
+                    log.info("Processing crawler request for UUID: {}", event.uuid());
+                    resourceApplicationService.processCrawlerRequest(event);
+                } finally {
+                    permits.semaphore.release();
+                }
+            } finally {
+                hostPermits.computeIfPresent(host, (k, v) -> v.release() == 0 ? null : v);
+            }
+            ack(channel, deliveryTag);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            crawlerRetryRecoverer.recoverAndAck(message, channel, e);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private static void ack(Channel channel, long deliveryTag) throws IOException {
+        channel.basicAck(deliveryTag, false);
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url.trim()).getHost();
+            return host == null ? "" : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // 等在途消息处理完再退出，未完成的由 broker 在连接断开后重投
+        if (inFlight.tryAcquire(properties.maxInFlight(), 30, TimeUnit.SECONDS)) {
+            inFlight.release(properties.maxInFlight());
+        }
+    }
+
+    /**
+     * 域名信号量 + 引用计数，最后一个使用者离开时从 map 移除，避免按域名无限增长
+     */
+    private static final class HostPermits {
+        private final Semaphore semaphore;
+        private int users;
+
+        HostPermits(int limit) {
+            this.semaphore = new Semaphore(limit);
+        }
+
+        HostPermits retain() {
+            users++;
+            return this;
+        }
+
+        int release() {
+            return --users;
+        }
+    }
+}
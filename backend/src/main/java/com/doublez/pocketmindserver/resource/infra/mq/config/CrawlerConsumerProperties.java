@@ -0,0 +1,49 @@
+package com.doublez.pocketmindserver.resource.infra.mq.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 抓取消费者执行模型
+ *
+ * @param mode              PLATFORM：监听线程内同步处理；VIRTUAL：每条消息交给一个虚拟线程，手动 ack（需 JDK 21+）；
+ *                          BATCH：一次取一批消息，批量读库、并发抓取、批量写回，逐条 ack
+ * @param concurrency       PLATFORM 模式的消费者线程数
+ * @param maxInFlight       VIRTUAL 模式全局同时处理的消息数，prefetch 与之相同
+ * @param perHostLimit      VIRTUAL 模式同一目标域名同时处理的消息数
+ * @param hostWait          等待域名名额的最长时间，超时的消息转投最短延迟档位，让出全局名额
+ * @param pinnedThreshold   虚拟线程 pin 住载体线程超过该时长时记录 JFR 诊断
+ * @param batchSize         BATCH 模式每批最多消息数
+ * @param batchReceiveTimeout BATCH 模式凑批的最长等待，超时后按已收到的消息处理
+ * @param batchParallelism  BATCH 模式批内并发抓取数
+ */
+@ConfigurationProperties(prefix = "pocketmind.crawler.consumer")
+public record CrawlerConsumerProperties(
+        Mode mode,
+        Integer concurrency,
+        Integer maxInFlight,
+        Integer perHostLimit,
+        Duration hostWait,
+        Duration pinnedThreshold,
+        Integer batchSize,
+        Duration batchReceiveTimeout,
+        Integer batchParallelism
+) {
+
+    public enum Mode {
+        PLATFORM, VIRTUAL, BATCH
+    }
+
+    public CrawlerConsumerProperties {
+        mode = mode == null ? Mode.PLATFORM : mode;
+        concurrency = concurrency == null ? 1 : concurrency;
+        maxInFlight = maxInFlight == null ? 256 : maxInFlight;
+        perHostLimit = perHostLimit == null ? 8 : perHostLimit;
+        hostWait = hostWait == null ? Duration.ofSeconds(10) : hostWait;
+        pinnedThreshold = pinnedThreshold == null ? Duration.ofMillis(20) : pinnedThreshold;
+        batchSize = batchSize == null ? 50 : batchSize;
+        batchReceiveTimeout = batchReceiveTimeout == null ? Duration.ofSeconds(2) : batchReceiveTimeout;
+        batchParallelism = batchParallelism == null ? 16 : batchParallelism;
+    }
+}
@@ -0,0 +1,49 @@
+package com.doublez.pocketmindserver.resource.infra.mq.config;
+
+import com.doublez.pocketmindserver.resource.infra.mq.CrawlerMqConstants;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 抓取任务延迟重试配置。第 n 次重试延迟 initialDelay * multiplier^(n-1)，不超过 maxDelay。
+ *
+ * @param maxRetries   最多重试次数（不含首次），用尽后进入 DLQ
+ * @param initialDelay 第一次重试的延迟
+ * @param multiplier   指数退避倍数
+ * @param maxDelay     单次延迟上限
+ */
+@ConfigurationProperties(prefix = "pocketmind.crawler.retry")
+public record CrawlerRetryProperties(
+        Integer maxRetries,
+        Duration initialDelay,
+        Double multiplier,
+        Duration maxDelay
+) {
+
+    public CrawlerRetryProperties {
+        maxRetries = maxRetries == null ? 3 : maxRetries;
+        initialDelay = initialDelay == null ? Duration.ofSeconds(30) : initialDelay;
+        multiplier = multiplier == null ? 4.0 : multiplier;
+        maxDelay = maxDelay == null ? Duration.ofMinutes(30) : maxDelay;
+    }
+
+    /**
+     * 各档延迟（毫秒），下标 i 对应第 i+1 次重试
+     */
+    public List<Long> delaysMillis() {
+        List<Long> delays = new ArrayList<>(maxRetries);
+        double delay = initialDelay.toMillis();
+        for (int i = 0; i < maxRetries; i++) {
+            delays.add(Math.min((long) delay, maxDelay.toMillis()));
+            delay *= multiplier;
+        }
+        return delays;
+    }
+
+    public static String retryQueueName(long delayMillis) {
+        return CrawlerMqConstants.CRAWLER_RETRY_QUEUE_PREFIX + delayMillis + "ms";
+    }
+}
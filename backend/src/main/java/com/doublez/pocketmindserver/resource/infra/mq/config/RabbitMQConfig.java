@@ -1,12 +1,17 @@
 package com.doublez.pocketmindserver.resource.infra.mq.config;
 
+import com.doublez.pocketmindserver.resource.application.ResourceApplicationService;
 import com.doublez.pocketmindserver.resource.infra.mq.CrawlerMqConstants;
+import com.doublez.pocketmindserver.resource.infra.mq.CrawlerRetryRecoverer;
+import com.doublez.pocketmindserver.resource.infra.embedding.ResourceEmbeddingProperties;
 
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
@@ -15,6 +20,9 @@ import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
 import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
 import org.springframework.context.annotation.Primary;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class RabbitMQConfig {
 
@@ -50,6 +58,74 @@ public class RabbitMQConfig {
         return BindingBuilder.bind(crawlerDlqQueue).to(crawlerDlqExchange).with(CrawlerMqConstants.CRAWLER_DLQ_ROUTING_KEY);
     }
 
+    /**
+     * 延迟重试档位：每档一个无消费者的 TTL 队列，消息到期后死信回 crawler_exchange 重新进入抓取队列
+     */
+    @Bean
+    public DirectExchange crawlerRetryExchange() {
+        return new DirectExchange(CrawlerMqConstants.CRAWLER_RETRY_EXCHANGE);
+    }
+
+    @Bean
+    public Declarables crawlerRetryQueues(DirectExchange crawlerRetryExchange, CrawlerRetryProperties retryProperties) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (long delay : retryProperties.delaysMillis().stream().distinct().toList()) {
+            String name = CrawlerRetryProperties.retryQueueName(delay);
+            Queue queue = QueueBuilder.durable(name)
+                    .ttl((int) delay)
+                    .deadLetterExchange(CrawlerMqConstants.CRAWLER_EXCHANGE)
+                    .deadLetterRoutingKey(CrawlerMqConstants.CRAWLER_ROUTING_KEY)
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(crawlerRetryExchange).with(name));
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * 向量化队列：处理失败的批次由容器拒绝，经默认交换机死信到 DLQ
+     */
+    @Bean
+    public Queue embeddingQueue() {
+        return QueueBuilder.durable(CrawlerMqConstants.EMBEDDING_QUEUE)
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(CrawlerMqConstants.EMBEDDING_DLQ_QUEUE)
+                .build();
+    }
+
+    @Bean
+    public Queue embeddingDlqQueue() {
+        return QueueBuilder.durable(CrawlerMqConstants.EMBEDDING_DLQ_QUEUE).build();
+    }
+
+    @Bean
+    public DirectExchange embeddingExchange() {
+        return new DirectExchange(CrawlerMqConstants.EMBEDDING_EXCHANGE);
+    }
+
+    @Bean
+    public Binding embeddingBinding(Queue embeddingQueue, DirectExchange embeddingExchange) {
+        return BindingBuilder.bind(embeddingQueue).to(embeddingExchange).with(CrawlerMqConstants.EMBEDDING_ROUTING_KEY);
+    }
+
+    /**
+     * 状态变更广播：每个实例一个独占的自动删除队列，实例下线后队列随之清理
+     */
+    @Bean
+    public FanoutExchange resourceStatusExchange() {
+        return new FanoutExchange(CrawlerMqConstants.RESOURCE_STATUS_EXCHANGE);
+    }
+
+    @Bean
+    public Queue resourceStatusQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy(CrawlerMqConstants.RESOURCE_STATUS_QUEUE_PREFIX));
+    }
+
+    @Bean
+    public Binding resourceStatusBinding(Queue resourceStatusQueue, FanoutExchange resourceStatusExchange) {
+        return BindingBuilder.bind(resourceStatusQueue).to(resourceStatusExchange);
+    }
+
     @Bean
     public MessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -71,24 +147,119 @@ public class RabbitMQConfig {
         );
     }
 
+    @Bean
+    public CrawlerRetryRecoverer crawlerRetryRecoverer(
+            RabbitTemplate rabbitTemplate,
+            RepublishMessageRecoverer crawlerRepublishRecoverer,
+            ResourceApplicationService resourceApplicationService,
+            CrawlerRetryProperties retryProperties
+    ) {
+        return new CrawlerRetryRecoverer(rabbitTemplate, messageConverter(), crawlerRepublishRecoverer,
+                resourceApplicationService, retryProperties);
+    }
+
+    /**
+     * 默认容器（状态广播等）：不挂重试，处理失败的消息直接丢弃
+     */
     @Bean
     @Primary
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            MessageConverter messageConverter
+    ) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter);
+        factory.setDefaultRequeueRejected(false);
+        factory.setErrorHandler(new ConditionalRejectingErrorHandler());
+        return factory;
+    }
+
+    /**
+     * 平台线程模式的抓取容器：失败交给分级恢复器，只用于抓取队列
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pocketmind.crawler.consumer", name = "mode", havingValue = "PLATFORM", matchIfMissing = true)
+    public SimpleRabbitListenerContainerFactory crawlerListenerContainerFactory(
             ConnectionFactory connectionFactory,
             MessageConverter messageConverter,
-            RepublishMessageRecoverer crawlerRepublishRecoverer
+            CrawlerRetryRecoverer crawlerRetryRecoverer
     ) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(messageConverter);
         factory.setDefaultRequeueRejected(false);
         factory.setErrorHandler(new ConditionalRejectingErrorHandler());
+        // 不在消费线程内重试：失败立即交给分级恢复器转投延迟队列或 DLQ，线程马上回去处理新消息
         factory.setAdviceChain(
                 RetryInterceptorBuilder.stateless()
-                        .maxAttempts(3)
-                        .recoverer(crawlerRepublishRecoverer)
+                        .maxAttempts(1)
+                        .recoverer(crawlerRetryRecoverer)
                         .build()
         );
         return factory;
     }
+
+    /**
+     * 虚拟线程模式的抓取容器：手动 ack，prefetch 与在途上限一致；失败由消费者自己交给重试恢复器，不挂 advice
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pocketmind.crawler.consumer", name = "mode", havingValue = "VIRTUAL")
+    public SimpleRabbitListenerContainerFactory virtualCrawlerListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            CrawlerConsumerProperties consumerProperties
+    ) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(consumerProperties.maxInFlight());
+        factory.setConcurrentConsumers(1);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+
+    /**
+     * 批量模式的抓取容器：消费端凑批后整批回调，手动 ack；prefetch 为两批，处理当前批时下一批已在路上
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pocketmind.crawler.consumer", name = "mode", havingValue = "BATCH")
+    public SimpleRabbitListenerContainerFactory batchCrawlerListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            CrawlerConsumerProperties consumerProperties
+    ) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(consumerProperties.batchSize());
+        factory.setReceiveTimeout(consumerProperties.batchReceiveTimeout().toMillis());
+        factory.setPrefetchCount(consumerProperties.batchSize() * 2);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+
+    /**
+     * 向量化容器：按文档凑批后整批回调，自动 ack；整批抛异常时拒绝且不重回队列，进入 DLQ
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pocketmind.resource.embedding", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public SimpleRabbitListenerContainerFactory embeddingListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            ResourceEmbeddingProperties embeddingProperties
+    ) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(embeddingProperties.consumerBatchSize());
+        factory.setReceiveTimeout(embeddingProperties.batchReceiveTimeout().toMillis());
+        factory.setPrefetchCount(embeddingProperties.consumerBatchSize() * 2);
+        factory.setConcurrentConsumers(1);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
 }
@@ -3,8 +3,10 @@ package com.doublez.pocketmindserver.resource.infra.mq.event;
 import java.io.Serializable;
 import java.util.UUID;
 
+/**
+ * @param uuid 文档 id；抓取以文档为单位，与哪些用户收藏了它无关
+ */
 public record CrawlerRequestEvent(
         UUID uuid,
-        String url,
-        String userId
+        String url
 ) implements Serializable {}
@@ -0,0 +1,11 @@
+package com.doublez.pocketmindserver.resource.infra.mq.event;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * @param documentId 待向量化的文档 id，正文由消费端按 id 读取，消息里不携带
+ */
+public record EmbeddingRequestEvent(
+        UUID documentId
+) implements Serializable {}
@@ -0,0 +1,26 @@
+package com.doublez.pocketmindserver.resource.infra.mq.event;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 文档状态变更广播事件（fanout 到所有实例，由各实例推送给本机 SSE 订阅者）。
+ * 收藏了该文档的条目随事件一起下发，各实例按条目 id / userId 匹配本机订阅，不必再查库。
+ */
+public record ResourceStatusChangedEvent(
+        UUID documentId,
+        String title,
+        ResourceStatus status,
+        List<Recipient> recipients
+) implements Serializable {
+
+    /**
+     * @param uuid 用户资源库条目 id，即客户端看到的资源 uuid
+     * @param url  该用户提交时的 URL 写法
+     */
+    public record Recipient(UUID uuid, String userId, String url) implements Serializable {
+    }
+}
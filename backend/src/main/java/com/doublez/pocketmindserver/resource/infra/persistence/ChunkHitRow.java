@@ -0,0 +1,16 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * 检索召回的分块，对应 {@link ResourceSearchMapper} 的候选查询
+ */
+@Data
+public class ChunkHitRow {
+
+    private UUID id;
+
+    private UUID documentId;
+}
@@ -0,0 +1,19 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * 分块向量，对应 {@link VectorIndexMapper#selectVectors}
+ */
+@Data
+public class ChunkVectorRow {
+
+    private UUID id;
+
+    private UUID documentId;
+
+    /** pgvector 文本格式，如 [0.1,0.2,...] */
+    private String embedding;
+}
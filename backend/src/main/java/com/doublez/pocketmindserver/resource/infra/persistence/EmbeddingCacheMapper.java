@@ -0,0 +1,53 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface EmbeddingCacheMapper {
+
+    @Select("""
+            <script>
+            SELECT cache_key, embedding::text AS embedding
+            FROM embedding_cache
+            WHERE cache_key IN
+            <foreach collection="keys" item="k" open="(" separator="," close=")">#{k}</foreach>
+            </script>
+            """)
+    List<EmbeddingCacheRecord> selectByKeys(@Param("keys") Collection<String> keys);
+
+    /**
+     * 并发写入同一键时先到者生效，后到者不覆盖：同一输入的向量相同，无需更新
+     */
+    @Insert("""
+            <script>
+            INSERT INTO embedding_cache (cache_key, embedding)
+            VALUES
+            <foreach collection="records" item="r" separator=",">
+                (#{r.cacheKey}, CAST(#{r.embedding} AS vector))
+            </foreach>
+            ON CONFLICT (cache_key) DO NOTHING
+            </script>
+            """)
+    int insertBatch(@Param("records") List<EmbeddingCacheRecord> records);
+
+    /**
+     * 引用检查走 idx_embedding_key。分块对缓存是软引用（没有外键），与并发写入竞争时最坏只是之后再算一次
+     */
+    @Delete("""
+            DELETE FROM embedding_cache
+            WHERE cache_key IN (
+                SELECT c.cache_key FROM embedding_cache c
+                WHERE c.created_at < NOW() - make_interval(secs => #{graceSeconds})
+                  AND NOT EXISTS (SELECT 1 FROM resource_embeddings e WHERE e.embedding_key = c.cache_key)
+                LIMIT #{limit}
+            )
+            """)
+    int deleteUnreferenced(@Param("graceSeconds") long graceSeconds, @Param("limit") int limit);
+}
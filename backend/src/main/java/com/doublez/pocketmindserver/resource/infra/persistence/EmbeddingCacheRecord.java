@@ -0,0 +1,14 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import lombok.Data;
+
+/**
+ * embedding_cache 表的一行，向量为 pgvector 文本格式
+ */
+@Data
+public class EmbeddingCacheRecord {
+
+    private String cacheKey;
+
+    private String embedding;
+}
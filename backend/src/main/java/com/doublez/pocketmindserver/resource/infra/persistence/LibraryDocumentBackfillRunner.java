@@ -0,0 +1,135 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.doublez.pocketmindserver.resource.domain.ResourceContentStore;
+import com.doublez.pocketmindserver.resource.infra.content.ResourceContentMapper;
+import com.doublez.pocketmindserver.resource.infra.content.ResourceContentRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 把拆分文档前按用户存放的资源迁移为全局文档 + 资源库条目。
+ *
+ * 按 url_hash 游标分批，每批一个事务：每个 url_hash 选处理得最完整的一条历史条目作代表建文档（文档 id 沿用条目 id），
+ * 代表条目的正文（content_markdown 列或 resource_content 表）写入文档内容存储，再把同一 url_hash 的全部条目关联到文档，
+ * 并删除它们各自的旧正文。中途退出重跑时已关联的条目不再处理。url_hash 为 NULL 的历史重复行不迁移。
+ * 全部迁移完成且 resource_content 已清空时删除该表，之后本任务只会执行一次空查询。
+ */
+@Slf4j
+@Component
+@Order(2)
+public class LibraryDocumentBackfillRunner implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final ResourceMetadataRepository entryMapper;
+    private final ResourceDocumentMapper documentMapper;
+    private final ResourceContentMapper contentMapper;
+    private final ResourceContentStore contentStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int previewChars;
+
+    public LibraryDocumentBackfillRunner(ResourceMetadataRepository entryMapper,
+                                         ResourceDocumentMapper documentMapper,
+                                         ResourceContentMapper contentMapper,
+                                         ResourceContentStore contentStore,
+                                         TransactionTemplate transactionTemplate,
+                                         @Value("${pocketmind.resource.status.preview-chars:500}") int previewChars) {
+        this.entryMapper = entryMapper;
+        this.documentMapper = documentMapper;
+        this.contentMapper = contentMapper;
+        this.contentStore = contentStore;
+        this.transactionTemplate = transactionTemplate;
+        this.previewChars = previewChars;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        boolean legacyContent = contentMapper.legacyTableExists();
+        String cursor = "";
+        int documents = 0;
+        int entries = 0;
+        while (true) {
+            List<String> hashes = entryMapper.selectUnlinkedHashes(cursor, BATCH_SIZE);
+            if (hashes.isEmpty()) {
+                break;
+            }
+            int[] counts = transactionTemplate.execute(status -> migrate(hashes, legacyContent));
+            documents += counts[0];
+            entries += counts[1];
+            cursor = hashes.get(hashes.size() - 1);
+        }
+        if (entries > 0) {
+            log.info("Library document backfill finished, documents: {}, entries: {}", documents, entries);
+        }
+        if (legacyContent) {
+            dropLegacyContent();
+        }
+    }
+
+    /**
+     * 条目全部关联后 resource_content 不再被读取；仍有残留行（url_hash 为 NULL 的条目）时保留表待人工处理
+     */
+    private void dropLegacyContent() {
+        if (contentMapper.legacyTableHasRows()) {
+            log.warn("Library document backfill finished but resource_content still has rows, keeping the table");
+            return;
+        }
+        contentMapper.dropLegacyTable();
+        log.info("Dropped drained legacy table resource_content");
+    }
+
+    private int[] migrate(List<String> hashes, boolean legacyContent) {
+        List<ResourceMetadata> unlinked = entryMapper.selectList(new LambdaQueryWrapper<ResourceMetadata>()
+                .select(ResourceMetadata::getId, ResourceMetadata::getUserId)
+                .isNull(ResourceMetadata::getDocumentId)
+                .in(ResourceMetadata::getUrlHash, hashes));
+        List<UUID> created = documentMapper.insertFromLegacyEntries(hashes, previewChars);
+
+        if (!created.isEmpty()) {
+            List<ResourceContentStore.Entry> contents = new ArrayList<>();
+            List<ResourceMetadata> representatives = entryMapper.selectList(new LambdaQueryWrapper<ResourceMetadata>()
+                    .select(ResourceMetadata::getId, ResourceMetadata::getUserId, ResourceMetadata::getContentMarkdown)
+                    .isNull(ResourceMetadata::getDocumentId)
+                    .in(ResourceMetadata::getUrlHash, hashes)
+                    .in(ResourceMetadata::getId, created));
+            Map<String, List<UUID>> withoutInline = new HashMap<>();
+            for (ResourceMetadata model : representatives) {
+                if (model.getContentMarkdown() != null) {
+                    contents.add(new ResourceContentStore.Entry(model.getId(), model.getContentMarkdown()));
+                } else if (legacyContent) {
+                    withoutInline.computeIfAbsent(model.getUserId(), k -> new ArrayList<>()).add(model.getId());
+                }
+            }
+            withoutInline.forEach((userId, ids) -> {
+                for (ResourceContentRecord record : contentMapper.selectLegacyByIds(userId, ids)) {
+                    contents.add(new ResourceContentStore.Entry(record.getDocumentId(),
+                            record.getCodec().decode(record.getBody())));
+                }
+            });
+            contentStore.saveAll(contents);
+        }
+
+        int linked = entryMapper.linkToDocuments(hashes);
+        if (!legacyContent) {
+            return new int[]{created.size(), linked};
+        }
+        unlinked.stream()
+                .collect(Collectors.groupingBy(ResourceMetadata::getUserId,
+                        Collectors.mapping(ResourceMetadata::getId, Collectors.toList())))
+                .forEach(contentMapper::deleteLegacyByIds);
+        return new int[]{created.size(), linked};
+    }
+}
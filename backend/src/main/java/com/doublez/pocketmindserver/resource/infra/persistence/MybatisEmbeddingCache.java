@@ -0,0 +1,72 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.doublez.pocketmindserver.resource.domain.EmbeddingCache;
+import com.doublez.pocketmindserver.resource.infra.embedding.ResourceEmbeddingProperties;
+import com.pgvector.PGvector;
+import org.springframework.stereotype.Repository;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class MybatisEmbeddingCache implements EmbeddingCache {
+
+    private final EmbeddingCacheMapper mapper;
+    private final int batchSize;
+
+    public MybatisEmbeddingCache(EmbeddingCacheMapper mapper, ResourceEmbeddingProperties properties) {
+        this.mapper = mapper;
+        this.batchSize = properties.insertBatchSize();
+    }
+
+    @Override
+    public Map<String, float[]> findAll(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, float[]> vectors = new HashMap<>();
+        List<String> distinct = keys.stream().distinct().toList();
+        for (int i = 0; i < distinct.size(); i += batchSize) {
+            for (EmbeddingCacheRecord record : mapper.selectByKeys(distinct.subList(i, Math.min(i + batchSize, distinct.size())))) {
+                vectors.put(record.getCacheKey(), parse(record.getEmbedding()));
+            }
+        }
+        return vectors;
+    }
+
+    @Override
+    public void saveAll(Map<String, float[]> vectors) {
+        List<EmbeddingCacheRecord> batch = new ArrayList<>(batchSize);
+        for (Map.Entry<String, float[]> entry : vectors.entrySet()) {
+            EmbeddingCacheRecord record = new EmbeddingCacheRecord();
+            record.setCacheKey(entry.getKey());
+            record.setEmbedding(new PGvector(entry.getValue()).getValue());
+            batch.add(record);
+            if (batch.size() == batchSize) {
+                mapper.insertBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            mapper.insertBatch(batch);
+        }
+    }
+
+    @Override
+    public int deleteUnreferenced(Duration grace, int limit) {
+        return mapper.deleteUnreferenced(grace.toSeconds(), limit);
+    }
+
+    private static float[] parse(String text) {
+        try {
+            return new PGvector(text).toArray();
+        } catch (SQLException e) {
+            throw new IllegalStateException("无法解析缓存向量", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.doublez.pocketmindserver.resource.domain.DocumentEmbedding;
+import com.doublez.pocketmindserver.resource.domain.EmbeddingRepository;
+import com.doublez.pocketmindserver.resource.infra.embedding.ResourceEmbeddingProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Repository
+public class MybatisEmbeddingRepository implements EmbeddingRepository {
+
+    private final ResourceEmbeddingMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final int dimensions;
+    private final int insertBatchSize;
+
+    public MybatisEmbeddingRepository(ResourceEmbeddingMapper mapper,
+                                      ObjectMapper objectMapper,
+                                      ResourceEmbeddingProperties properties) {
+        this.mapper = mapper;
+        this.objectMapper = objectMapper;
+        this.dimensions = properties.dimensions();
+        this.insertBatchSize = properties.insertBatchSize();
+    }
+
+    @Override
+    public List<StoredChunk> findChunks(Collection<UUID> documentIds) {
+        if (documentIds == null || documentIds.isEmpty()) {
+            return List.of();
+        }
+        return mapper.selectChunks(Set.copyOf(documentIds)).stream()
+                .map(row -> new StoredChunk(
+                        row.getId(),
+                        row.getDocumentId(),
+                        row.getChunkIndex() == null ? -1 : row.getChunkIndex(),
+                        row.getHeading() == null ? "" : row.getHeading(),
+                        row.getEmbeddingKey()
+                ))
+                .toList();
+    }
+
+    @Override
+    public void applyChanges(ChunkChanges changes) {
+        for (List<UUID> batch : partition(changes.removed())) {
+            mapper.deleteByIds(batch);
+        }
+        for (List<DocumentEmbedding> batch : partition(changes.moved())) {
+            mapper.updateMetadataBatch(batch.stream().map(this::toMetadataRecord).toList());
+        }
+        for (List<DocumentEmbedding> batch : partition(changes.added())) {
+            mapper.insertBatch(batch.stream().map(this::toRecord).toList());
+        }
+    }
+
+    private <T> List<List<T>> partition(List<T> items) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += insertBatchSize) {
+            batches.add(items.subList(i, Math.min(i + insertBatchSize, items.size())));
+        }
+        return batches;
+    }
+
+    private ResourceEmbeddingRecord toMetadataRecord(DocumentEmbedding embedding) {
+        ResourceEmbeddingRecord record = new ResourceEmbeddingRecord();
+        record.setId(embedding.id());
+        record.setMetadata(metadata(embedding));
+        return record;
+    }
+
+    private ResourceEmbeddingRecord toRecord(DocumentEmbedding embedding) {
+        if (embedding.vector().length != dimensions) {
+            throw new IllegalStateException("向量维度 " + embedding.vector().length + " 与配置的 " + dimensions + " 不一致");
+        }
+        ResourceEmbeddingRecord record = new ResourceEmbeddingRecord();
+        record.setId(embedding.id());
+        record.setDocumentId(embedding.documentId());
+        record.setSegmentContent(embedding.content());
+        record.setEmbedding(new PGvector(embedding.vector()).getValue());
+        record.setEmbeddingKey(embedding.embeddingKey());
+        record.setMetadata(metadata(embedding));
+        return record;
+    }
+
+    private String metadata(DocumentEmbedding embedding) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("chunk_index", embedding.chunkIndex());
+        metadata.put("heading", embedding.headingPath());
+        metadata.put("tokens", embedding.tokens());
+        metadata.put("hash", embedding.embeddingKey());
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
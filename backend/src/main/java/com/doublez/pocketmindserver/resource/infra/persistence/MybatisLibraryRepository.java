@@ -0,0 +1,188 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.doublez.pocketmindserver.resource.domain.LibraryEntry;
+import com.doublez.pocketmindserver.resource.domain.LibraryRepository;
+import com.doublez.pocketmindserver.resource.domain.ResourceContentStore;
+import com.doublez.pocketmindserver.resource.domain.ResourceExport;
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import com.doublez.pocketmindserver.resource.domain.ResourceStatusView;
+import com.doublez.pocketmindserver.resource.domain.ResourceSummary;
+import com.doublez.pocketmindserver.resource.domain.UrlCanonicalizer;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Repository
+public class MybatisLibraryRepository implements LibraryRepository {
+
+    private static final int EXPORT_CONTENT_BATCH = 100;
+
+    private final ResourceMetadataRepository mapper;
+    private final ResourceContentStore contentStore;
+
+    public MybatisLibraryRepository(ResourceMetadataRepository mapper, ResourceContentStore contentStore) {
+        this.mapper = mapper;
+        this.contentStore = contentStore;
+    }
+
+    @Override
+    public List<LibraryEntry> addAll(List<LibraryEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return List.of();
+        }
+        List<ResourceMetadata> models = entries.stream().map(MybatisLibraryRepository::toModel).toList();
+        // RETURNING 的顺序不保证与 VALUES 一致，按 (userId, url_hash) 对回
+        Map<String, LibraryEntry> saved = new HashMap<>();
+        for (ResourceMetadata model : mapper.upsertBatch(models)) {
+            saved.put(key(model.getUserId(), model.getUrlHash()), toDomain(model));
+        }
+        return entries.stream()
+                .map(e -> {
+                    LibraryEntry entry = saved.get(key(e.userId(), e.urlHash()));
+                    if (entry == null) {
+                        throw new IllegalStateException("资源库条目写入失败: " + e.originalUrl());
+                    }
+                    return entry;
+                })
+                .toList();
+    }
+
+    private static String key(String userId, String urlHash) {
+        return userId + ":" + urlHash;
+    }
+
+    @Override
+    public Optional<LibraryEntry> findById(String userId, UUID id) {
+        ResourceMetadata model = mapper.selectOne(new LambdaQueryWrapper<ResourceMetadata>()
+                .select(ResourceMetadata::getId, ResourceMetadata::getUserId, ResourceMetadata::getOriginalUrl,
+                        ResourceMetadata::getUrlHash, ResourceMetadata::getDocumentId)
+                .eq(ResourceMetadata::getUserId, userId)
+                .eq(ResourceMetadata::getId, id)
+                .isNotNull(ResourceMetadata::getDocumentId));
+        return Optional.ofNullable(model).map(MybatisLibraryRepository::toDomain);
+    }
+
+    @Override
+    public List<ResourceSummary> findByIds(String userId, List<UUID> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return mapper.selectSummariesByIds(userId, ids).stream().map(MybatisLibraryRepository::toSummary).toList();
+    }
+
+    @Override
+    public List<LibraryEntry> findByDocumentId(UUID documentId) {
+        return mapper.selectList(new LambdaQueryWrapper<ResourceMetadata>()
+                        .select(ResourceMetadata::getId, ResourceMetadata::getUserId, ResourceMetadata::getOriginalUrl,
+                                ResourceMetadata::getUrlHash, ResourceMetadata::getDocumentId)
+                        .eq(ResourceMetadata::getDocumentId, documentId))
+                .stream()
+                .map(MybatisLibraryRepository::toDomain)
+                .toList();
+    }
+
+    @Override
+    public List<ResourceStatusView> findStatusByUrls(String userId, List<String> urls, int previewChars) {
+        if (urls == null || urls.isEmpty()) {
+            return List.of();
+        }
+        List<String> hashes = urls.stream().map(UrlCanonicalizer::hash).distinct().toList();
+        return mapper.selectStatusByUrlHashes(userId, hashes, previewChars).stream()
+                .map(row -> new ResourceStatusView(
+                        row.getId(),
+                        row.getOriginalUrl(),
+                        row.getUrlHash(),
+                        row.getTitle(),
+                        row.getPreview(),
+                        row.getAiSummary(),
+                        row.getProcessStatus()
+                ))
+                .toList();
+    }
+
+    @Override
+    public List<ResourceSummary> findPageByUser(String userId, Set<ResourceStatus> statuses,
+                                                LocalDateTime afterUpdatedAt, UUID afterId, int limit) {
+        List<String> statusValues = statuses == null ? List.of() : statuses.stream()
+                .map(ResourcePersistenceMapper::toProcessStatus)
+                .map(Enum::name)
+                .distinct()
+                .toList();
+        return mapper.selectPageByUser(userId, statusValues, afterUpdatedAt, afterId, limit).stream()
+                .map(MybatisLibraryRepository::toSummary)
+                .toList();
+    }
+
+    @Override
+    public void exportByUser(String userId, Consumer<ResourceExport> sink) {
+        // 游标逐行读条目，攒够一小批再一次性取正文，避免逐行查询内容存储
+        List<ResourceExportRow> buffer = new ArrayList<>(EXPORT_CONTENT_BATCH);
+        try (Cursor<ResourceExportRow> cursor = mapper.selectExportByUser(userId)) {
+            for (ResourceExportRow row : cursor) {
+                buffer.add(row);
+                if (buffer.size() == EXPORT_CONTENT_BATCH) {
+                    emitExport(buffer, sink);
+                }
+            }
+            emitExport(buffer, sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void emitExport(List<ResourceExportRow> rows, Consumer<ResourceExport> sink) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<UUID, String> contents = contentStore.loadAll(rows.stream()
+                .map(ResourceExportRow::getDocumentId)
+                .distinct()
+                .toList());
+        for (ResourceExportRow row : rows) {
+            sink.accept(new ResourceExport(
+                    row.getId(),
+                    row.getOriginalUrl(),
+                    row.getTitle(),
+                    row.getProcessStatus(),
+                    contents.get(row.getDocumentId()),
+                    row.getAiSummary(),
+                    row.getAiTags(),
+                    row.getCreatedAt(),
+                    row.getUpdatedAt()
+            ));
+        }
+        rows.clear();
+    }
+
+    private static ResourceMetadata toModel(LibraryEntry entry) {
+        ResourceMetadata model = new ResourceMetadata();
+        model.setId(entry.id());
+        model.setUserId(entry.userId());
+        model.setOriginalUrl(entry.originalUrl());
+        model.setUrlHash(entry.urlHash());
+        model.setDocumentId(entry.documentId());
+        return model;
+    }
+
+    private static LibraryEntry toDomain(ResourceMetadata model) {
+        return new LibraryEntry(model.getId(), model.getUserId(), model.getOriginalUrl(), model.getUrlHash(),
+                model.getDocumentId());
+    }
+
+    private static ResourceSummary toSummary(ResourceSummaryRow row) {
+        return new ResourceSummary(row.getId(), row.getOriginalUrl(), row.getTitle(), row.getProcessStatus(),
+                row.getUpdatedAt());
+    }
+}
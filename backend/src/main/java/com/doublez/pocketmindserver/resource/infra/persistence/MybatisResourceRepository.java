@@ -1,88 +1,263 @@
 package com.doublez.pocketmindserver.resource.infra.persistence;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.doublez.pocketmindserver.resource.domain.Resource;
+import com.doublez.pocketmindserver.resource.domain.ResourceContentSlice;
+import com.doublez.pocketmindserver.resource.domain.ResourceContentStore;
 import com.doublez.pocketmindserver.resource.domain.ResourceRepository;
+import com.doublez.pocketmindserver.resource.domain.ResourceVersionConflictException;
+import com.baomidou.mybatisplus.core.batch.MybatisBatch;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Predicate;
 
+@Slf4j
 @Repository
 public class MybatisResourceRepository implements ResourceRepository {
 
-    private final ResourceMetadataRepository mapper;
+    private static final int MAX_CONFLICT_RETRIES = 5;
 
-    public MybatisResourceRepository(ResourceMetadataRepository mapper) {
+    private final ResourceDocumentMapper mapper;
+    private final ResourceRecoveryProperties recoveryProperties;
+    private final SqlSessionFactory sqlSessionFactory;
+    private final ResourceContentStore contentStore;
+    private final int previewChars;
+
+    public MybatisResourceRepository(ResourceDocumentMapper mapper,
+                                     ResourceRecoveryProperties recoveryProperties,
+                                     SqlSessionFactory sqlSessionFactory,
+                                     ResourceContentStore contentStore,
+                                     @Value("${pocketmind.resource.status.preview-chars:500}") int previewChars) {
         this.mapper = mapper;
+        this.recoveryProperties = recoveryProperties;
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.contentStore = contentStore;
+        this.previewChars = previewChars;
     }
 
     @Override
     public void save(Resource resource) {
-        ResourceMetadata model = ResourcePersistenceMapper.toModel(resource);
+        ResourceDocument model = ResourcePersistenceMapper.toModel(resource);
+        model.setContentPreview(ResourcePersistenceMapper.preview(resource.getContentMarkdown(), previewChars));
         int rows = mapper.insert(model);
         if (rows != 1) {
             throw new IllegalStateException("保存资源失败");
         }
+        if (resource.getContentMarkdown() != null) {
+            contentStore.save(resource.getId(), resource.getContentMarkdown());
+        }
+    }
+
+    @Override
+    public InsertOrGetResult insertOrGet(Resource resource) {
+        return insertOrGetAll(List.of(resource)).get(0);
+    }
+
+    @Override
+    public List<InsertOrGetResult> insertOrGetAll(List<Resource> resources) {
+        if (resources == null || resources.isEmpty()) {
+            return List.of();
+        }
+        List<ResourceDocument> models = resources.stream().map(ResourcePersistenceMapper::toModel).toList();
+        Map<String, Resource> claimed = new HashMap<>();
+        for (ResourceDocument model : mapper.insertOrReviveBatch(models, leaseSeconds())) {
+            claimed.put(model.getUrlHash(), toDomain(model));
+        }
+        // 由 FAILED 重置的文档可能留有旧正文，与新建的一起清掉（新建的没有正文，删除为空操作）
+        contentStore.deleteAll(claimed.values().stream().map(Resource::getId).toList());
+
+        List<String> existingHashes = resources.stream()
+                .map(Resource::getUrlHash)
+                .filter(hash -> !claimed.containsKey(hash))
+                .toList();
+        Map<String, Resource> existing = new HashMap<>();
+        if (!existingHashes.isEmpty()) {
+            for (ResourceDocument model : mapper.selectList(new LambdaQueryWrapper<ResourceDocument>()
+                    .in(ResourceDocument::getUrlHash, existingHashes))) {
+                existing.put(model.getUrlHash(), toDomain(model));
+            }
+        }
+
+        return resources.stream()
+                .map(r -> {
+                    Resource created = claimed.get(r.getUrlHash());
+                    if (created != null) {
+                        return new InsertOrGetResult(created, true);
+                    }
+                    Resource found = existing.get(r.getUrlHash());
+                    if (found == null) {
+                        // 冲突行在两条语句之间被删除，极少见，交给调用方重试
+                        throw new IllegalStateException("文档插入或获取失败: " + r.getOriginalUrl());
+                    }
+                    return new InsertOrGetResult(found, false);
+                })
+                .toList();
     }
 
     @Override
     public void update(Resource resource) {
-        ResourceMetadata model = ResourcePersistenceMapper.toModel(resource);
-        int rows = mapper.updateById(model);
+        if (resource.getChanges().isEmpty()) {
+            return;
+        }
+        boolean contentChanged = resource.getChanges().contains(Resource.Change.CONTENT);
+        ResourceDocument model = ResourcePersistenceMapper.toChangeModel(resource, previewChars);
+        // 没有配置自动填充，这里显式刷新
+        model.setUpdatedAt(LocalDateTime.now());
+        LambdaUpdateWrapper<ResourceDocument> wrapper = changeWrapper(resource);
+        // OptimisticLockerInnerInterceptor 追加 WHERE version = ? 并把 model.version 置为新值
+        int rows = mapper.update(model, wrapper);
         if (rows != 1) {
-            throw new IllegalStateException("更新资源失败");
+            throw new ResourceVersionConflictException(resource.getId(), resource.getVersion());
+        }
+        // 正文在版本校验通过后才写：版本冲突的一方不能覆盖胜出方已写入、已被分块引用的正文。
+        // TABLE 存储与元数据同一事务提交，行锁保证同一文档的写入串行
+        if (contentChanged) {
+            contentStore.save(resource.getId(), resource.getContentMarkdown());
         }
+        resource.markPersisted(model.getVersion());
     }
 
     @Override
-    public Optional<Resource> findByIdAndUserId(UUID id, String userId) {
-        ResourceMetadata model = mapper.selectOne(
-                new LambdaQueryWrapper<ResourceMetadata>()
-                        .eq(ResourceMetadata::getId, id)
-                        .eq(ResourceMetadata::getUserId, userId)
-                        .last("limit 1")
-        );
-        if (model == null) {
-            return Optional.empty();
+    public Set<UUID> updateAll(List<Resource> resources) {
+        // 相同变更列的更新 SQL 相同，排在一起 JDBC 驱动才能合并成同一个 batch
+        List<Resource> dirty = resources.stream()
+                .filter(r -> !r.getChanges().isEmpty())
+                .sorted(Comparator.comparing((Resource r) -> r.getChanges().toString())
+                        .thenComparing(r -> r.getStatus().isInFlight()))
+                .toList();
+        if (dirty.isEmpty()) {
+            return Set.of();
+        }
+        Map<Resource, ResourceDocument> models = new IdentityHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Resource resource : dirty) {
+            ResourceDocument model = ResourcePersistenceMapper.toChangeModel(resource, previewChars);
+            model.setUpdatedAt(now);
+            models.put(resource, model);
+        }
+
+        MybatisBatch.Method<ResourceDocument> method = new MybatisBatch.Method<>(ResourceDocumentMapper.class);
+        List<BatchResult> results = new MybatisBatch<>(sqlSessionFactory, dirty)
+                .execute(method.update(models::get, this::changeWrapper));
+
+        int[] counts = results.stream().flatMapToInt(r -> Arrays.stream(r.getUpdateCounts())).toArray();
+        Set<UUID> conflicts = new HashSet<>();
+        List<ResourceContentStore.Entry> contents = new ArrayList<>();
+        for (int i = 0; i < dirty.size(); i++) {
+            Resource resource = dirty.get(i);
+            // 驱动无法给出单行结果（SUCCESS_NO_INFO）时按成功处理
+            if (i < counts.length && counts[i] == 0) {
+                conflicts.add(resource.getId());
+                continue;
+            }
+            // 与 update 相同，只写版本校验通过的文档的正文
+            if (resource.getChanges().contains(Resource.Change.CONTENT)) {
+                contents.add(new ResourceContentStore.Entry(resource.getId(), resource.getContentMarkdown()));
+            }
+            resource.markPersisted(models.get(resource).getVersion());
+        }
+        contentStore.saveAll(contents);
+        return conflicts;
+    }
+
+    private LambdaUpdateWrapper<ResourceDocument> changeWrapper(Resource resource) {
+        LambdaUpdateWrapper<ResourceDocument> wrapper = new LambdaUpdateWrapper<ResourceDocument>()
+                .eq(ResourceDocument::getId, resource.getId());
+        if (resource.getChanges().contains(Resource.Change.STATUS)) {
+            // 进入处理中状态即持有新租约，进入终态释放租约
+            wrapper.set(ResourceDocument::getLeaseUntil,
+                    resource.getStatus().isInFlight() ? LocalDateTime.now().plus(recoveryProperties.lease()) : null);
         }
-        return Optional.of(ResourcePersistenceMapper.toDomain(model));
+        return wrapper;
     }
 
     @Override
-    public List<Resource> findByIdsAndUserId(List<UUID> ids, String userId) {
-        List<ResourceMetadata> models = mapper.selectList(
-                new LambdaQueryWrapper<ResourceMetadata>()
-                        .eq(ResourceMetadata::getUserId, userId)
-                        .in(ResourceMetadata::getId, ids)
-        );
-        return models.stream().map(ResourcePersistenceMapper::toDomain).toList();
+    public Optional<Resource> modify(UUID id, Predicate<Resource> change) {
+        for (int attempt = 1; ; attempt++) {
+            ResourceDocument model = mapper.selectById(id);
+            if (model == null) {
+                return Optional.empty();
+            }
+            Resource resource = toDomain(model);
+            if (!change.test(resource)) {
+                return Optional.empty();
+            }
+            try {
+                update(resource);
+                return Optional.of(resource);
+            } catch (ResourceVersionConflictException e) {
+                if (attempt >= MAX_CONFLICT_RETRIES) {
+                    throw e;
+                }
+                log.debug("Version conflict on document {}, retry {}", id, attempt);
+            }
+        }
     }
 
     @Override
-    public Optional<Resource> findLatestByUrl(String url) {
-        ResourceMetadata model = mapper.selectOne(
-                new LambdaQueryWrapper<ResourceMetadata>()
-                        .eq(ResourceMetadata::getOriginalUrl, url)
-                        .orderByDesc(ResourceMetadata::getUpdatedAt)
-                        .last("limit 1")
-        );
-        if (model == null) {
-            return Optional.empty();
+    public void renewLease(UUID id) {
+        mapper.renewLease(id, leaseSeconds());
+    }
+
+    @Override
+    public void renewLeases(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
         }
-        return Optional.of(ResourcePersistenceMapper.toDomain(model));
+        mapper.renewLeases(ids, leaseSeconds());
+    }
+
+    @Override
+    public List<LeaseClaim> claimExpiredLeases(int limit) {
+        return mapper.claimExpiredLeases(limit, leaseSeconds()).stream()
+                .map(model -> new LeaseClaim(toDomain(model), model.getRecoveryCount()))
+                .toList();
+    }
+
+    private Resource toDomain(ResourceDocument model) {
+        return ResourcePersistenceMapper.toDomain(model, contentStore);
+    }
+
+    private long leaseSeconds() {
+        return recoveryProperties.lease().toSeconds();
+    }
+
+    @Override
+    public Optional<Resource> findById(UUID id) {
+        return Optional.ofNullable(mapper.selectById(id)).map(this::toDomain);
     }
 
     @Override
-    public List<Resource> findByUrls(List<String> urls) {
-        if (urls == null || urls.isEmpty()) {
+    public List<Resource> findByIds(List<UUID> ids) {
+        if (ids == null || ids.isEmpty()) {
             return List.of();
         }
-        List<ResourceMetadata> models = mapper.selectList(
-                new LambdaQueryWrapper<ResourceMetadata>()
-                        .in(ResourceMetadata::getOriginalUrl, urls)
-        );
-        return models.stream().map(ResourcePersistenceMapper::toDomain).toList();
+        return mapper.selectBatchIds(ids).stream().map(this::toDomain).toList();
+    }
+
+    @Override
+    public Optional<ResourceContentSlice> findContent(UUID id, int offset, int limit) {
+        if (!mapper.exists(new LambdaQueryWrapper<ResourceDocument>().eq(ResourceDocument::getId, id))) {
+            return Optional.empty();
+        }
+        return Optional.of(contentStore.loadRange(id, offset, limit)
+                .orElseGet(() -> new ResourceContentSlice(id, offset, "", 0)));
     }
 }
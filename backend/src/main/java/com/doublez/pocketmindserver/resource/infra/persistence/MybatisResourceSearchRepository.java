@@ -0,0 +1,81 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceSearchRepository;
+import com.pgvector.PGvector;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Repository
+public class MybatisResourceSearchRepository implements ResourceSearchRepository {
+
+    private final ResourceSearchMapper mapper;
+    private final ResourceSearchProperties properties;
+    private final String headlineOptions;
+
+    public MybatisResourceSearchRepository(ResourceSearchMapper mapper, ResourceSearchProperties properties) {
+        this.mapper = mapper;
+        this.properties = properties;
+        this.headlineOptions = "StartSel=<mark>, StopSel=</mark>, MaxWords=" + properties.snippetMaxWords()
+                + ", MinWords=" + Math.max(1, properties.snippetMaxWords() / 2)
+                + ", MaxFragments=2, FragmentDelimiter=\" … \"";
+    }
+
+    @Override
+    public List<ChunkHit> findNearestChunks(String userId, float[] queryVector, int limit) {
+        String vector = new PGvector(queryVector).getValue();
+        int threshold = properties.exactSearchMaxDocuments();
+        List<ChunkHitRow> rows;
+        if (mapper.countLibraryUpTo(userId, threshold + 1) <= threshold) {
+            rows = mapper.selectNearestChunksExact(userId, vector, limit);
+        } else {
+            // 旧版 pgvector 不认识的参数只会成为无效的占位设置，不影响查询
+            mapper.setLocal("hnsw.ef_search", String.valueOf(Math.max(properties.efSearch(), limit)));
+            mapper.setLocal("hnsw.iterative_scan", "relaxed_order");
+            mapper.setLocal("hnsw.max_scan_tuples", String.valueOf(properties.maxScanTuples()));
+            rows = mapper.selectNearestChunks(userId, vector, limit);
+        }
+        return toHits(rows);
+    }
+
+    @Override
+    public List<ChunkHit> findMatchingChunks(String userId, String query, int limit) {
+        return toHits(mapper.selectMatchingChunks(userId, query, limit));
+    }
+
+    @Override
+    public List<UUID> findMatchingTitles(String userId, String query, int limit) {
+        return mapper.selectMatchingTitles(userId, query, limit);
+    }
+
+    @Override
+    public List<Entry> findEntries(String userId, Collection<UUID> documentIds) {
+        if (documentIds == null || documentIds.isEmpty()) {
+            return List.of();
+        }
+        return mapper.selectEntries(userId, documentIds).stream()
+                .map(row -> new Entry(row.getId(), row.getDocumentId(), row.getOriginalUrl(), row.getTitle(),
+                        row.getProcessStatus(), row.getUpdatedAt()))
+                .toList();
+    }
+
+    @Override
+    public Map<UUID, String> highlight(Collection<UUID> chunkIds, String query) {
+        if (chunkIds == null || chunkIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, String> snippets = new HashMap<>();
+        for (SnippetRow row : mapper.selectSnippets(chunkIds, query, headlineOptions)) {
+            snippets.put(row.getId(), row.getSnippet());
+        }
+        return snippets;
+    }
+
+    private static List<ChunkHit> toHits(List<ChunkHitRow> rows) {
+        return rows.stream().map(row -> new ChunkHit(row.getId(), row.getDocumentId())).toList();
+    }
+}
@@ -0,0 +1,49 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.Version;
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@TableName("resource_document")
+public class ResourceDocument {
+
+    @TableId(type = IdType.INPUT)
+    private UUID id;
+
+    private String urlHash;
+
+    private String originalUrl;
+
+    private String title;
+
+    /** 正文开头的预览，供状态查询直接读取，不必解压正文 */
+    private String contentPreview;
+
+    private String aiSummary;
+
+    private ResourceStatus processStatus;
+
+    @Version
+    private Integer version;
+
+    /** 处理中状态的租约到期时间，终态为 NULL */
+    private LocalDateTime leaseUntil;
+
+    /** 被回收重新投递的次数 */
+    private Integer recoveryCount;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,122 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+import java.util.UUID;
+
+@Mapper
+public interface ResourceDocumentMapper extends BaseMapper<ResourceDocument> {
+
+    /**
+     * 多行 INSERT ... ON CONFLICT (url_hash)，一条语句完成整批的插入或获取：
+     * 新文档直接插入；已存在且为 FAILED 的重置为 PENDING（清空旧抓取结果，改用本次提交的 URL 写法重新抓取）；其余冲突行不做修改。
+     * 只返回新插入或被重置的行，未返回的 url_hash 说明已有成功/处理中的文档。
+     *
+     * 入参内 url_hash 必须互不相同，否则 PG 会拒绝同一语句内重复更新同一行。
+     */
+    @Select("""
+            <script>
+            INSERT INTO resource_document (id, url_hash, original_url, process_status, lease_until)
+            VALUES
+            <foreach collection="models" item="m" separator=",">
+                (#{m.id}, #{m.urlHash}, #{m.originalUrl}, #{m.processStatus}, NOW() + make_interval(secs => #{leaseSeconds}))
+            </foreach>
+            ON CONFLICT (url_hash) DO UPDATE
+                SET process_status = EXCLUDED.process_status,
+                    original_url = EXCLUDED.original_url,
+                    title = NULL,
+                    content_preview = NULL,
+                    ai_summary = NULL,
+                    ai_tags = NULL,
+                    version = resource_document.version + 1,
+                    lease_until = EXCLUDED.lease_until,
+                    recovery_count = 0,
+                    updated_at = NOW()
+                WHERE resource_document.process_status = 'FAILED'
+            RETURNING id, url_hash, original_url, title, ai_summary, process_status, version, created_at, updated_at
+            </script>
+            """)
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    List<ResourceDocument> insertOrReviveBatch(@Param("models") List<ResourceDocument> models,
+                                               @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 续期处理中文档的租约；终态文档不受影响。不改版本号，租约不是业务字段
+     */
+    @Update("""
+            UPDATE resource_document
+            SET lease_until = NOW() + make_interval(secs => #{leaseSeconds})
+            WHERE id = #{id}
+              AND process_status IN ('PENDING', 'EMBEDDING', 'ANALYZING')
+            """)
+    int renewLease(@Param("id") UUID id, @Param("leaseSeconds") long leaseSeconds);
+
+    @Update("""
+            <script>
+            UPDATE resource_document
+            SET lease_until = NOW() + make_interval(secs => #{leaseSeconds})
+            WHERE id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+              AND process_status IN ('PENDING', 'EMBEDDING', 'ANALYZING')
+            </script>
+            """)
+    int renewLeases(@Param("ids") List<UUID> ids, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 认领一批租约已过期的处理中文档：SKIP LOCKED 保证多实例各自认领不同的行，
+     * 认领即续租并累加回收次数，单条语句完成，不需要在事务里持锁等待。走部分索引 idx_document_lease。
+     */
+    @Select("""
+            UPDATE resource_document d
+            SET lease_until = NOW() + make_interval(secs => #{leaseSeconds}),
+                recovery_count = d.recovery_count + 1
+            FROM (
+                SELECT id FROM resource_document
+                WHERE process_status IN ('PENDING', 'EMBEDDING', 'ANALYZING')
+                  AND (lease_until IS NULL OR lease_until < NOW())
+                ORDER BY lease_until NULLS FIRST
+                LIMIT #{limit}
+                FOR UPDATE SKIP LOCKED
+            ) due
+            WHERE d.id = due.id
+            RETURNING d.id, d.url_hash, d.original_url, d.title, d.ai_summary, d.process_status,
+                      d.version, d.lease_until, d.recovery_count
+            """)
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    List<ResourceDocument> claimExpiredLeases(@Param("limit") int limit, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 迁移用：为一批尚未关联文档的历史条目建文档，每个 url_hash 选处理得最完整的一条作代表，文档沿用代表条目的 id
+     * （队列中、回收中引用旧资源 id 的消息因此仍能找到文档）。返回本次新建的文档 id。
+     * 文档已存在（迁移期间有新提交）时不覆盖，历史条目直接关联到已有文档。
+     */
+    @Select("""
+            <script>
+            INSERT INTO resource_document (id, url_hash, original_url, title, content_preview, ai_summary, ai_tags,
+                                           process_status, lease_until, recovery_count, created_at, updated_at)
+            SELECT DISTINCT ON (url_hash)
+                   id, url_hash, original_url, title, COALESCE(content_preview, LEFT(content_markdown, #{previewChars})),
+                   ai_summary, ai_tags, COALESCE(process_status, 'PENDING'), lease_until, recovery_count, created_at, updated_at
+            FROM resource_metadata
+            WHERE document_id IS NULL
+              AND url_hash IN
+            <foreach collection="hashes" item="h" open="(" separator="," close=")">#{h}</foreach>
+            ORDER BY url_hash,
+                     CASE process_status
+                         WHEN 'ANALYZED' THEN 0 WHEN 'ANALYZING' THEN 1 WHEN 'EMBEDDED' THEN 2 WHEN 'EMBEDDING' THEN 3
+                         WHEN 'CRAWLED' THEN 4 WHEN 'PENDING' THEN 5 ELSE 6
+                     END,
+                     updated_at DESC
+            ON CONFLICT (url_hash) DO NOTHING
+            RETURNING id
+            </script>
+            """)
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    List<UUID> insertFromLegacyEntries(@Param("hashes") List<String> hashes, @Param("previewChars") int previewChars);
+}
@@ -0,0 +1,72 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Mapper
+public interface ResourceEmbeddingMapper {
+
+    /**
+     * 多行 INSERT，一条语句写入一批分块。每行 6 个绑定参数，批大小受 PG 单语句 65535 个参数的上限约束
+     */
+    @Insert("""
+            <script>
+            INSERT INTO resource_embeddings (id, document_id, segment_content, embedding, embedding_key, metadata)
+            VALUES
+            <foreach collection="records" item="r" separator=",">
+                (#{r.id}, #{r.documentId}, #{r.segmentContent}, CAST(#{r.embedding} AS vector), #{r.embeddingKey},
+                 CAST(#{r.metadata} AS jsonb))
+            </foreach>
+            </script>
+            """)
+    int insertBatch(@Param("records") List<ResourceEmbeddingRecord> records);
+
+    /**
+     * 走 idx_embedding_document；只取比对需要的列，不读正文与向量
+     */
+    @Select("""
+            <script>
+            SELECT id, document_id, embedding_key,
+                   CAST(metadata ->> 'chunk_index' AS int) AS chunk_index,
+                   metadata ->> 'heading' AS heading
+            FROM resource_embeddings
+            WHERE document_id IN
+            <foreach collection="documentIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    List<StoredChunkRow> selectChunks(@Param("documentIds") Collection<UUID> documentIds);
+
+    /**
+     * 只改写 metadata：不涉及任何索引列，PG 可以走 HOT 更新，HNSW 与全文索引都不产生新条目
+     */
+    @Update("""
+            <script>
+            UPDATE resource_embeddings e
+            SET metadata = CAST(v.metadata AS jsonb)
+            FROM (VALUES
+            <foreach collection="records" item="r" separator=",">
+                (CAST(#{r.id} AS uuid), #{r.metadata})
+            </foreach>
+            ) AS v(id, metadata)
+            WHERE e.id = v.id
+            </script>
+            """)
+    int updateMetadataBatch(@Param("records") List<ResourceEmbeddingRecord> records);
+
+    @Delete("""
+            <script>
+            DELETE FROM resource_embeddings
+            WHERE id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    int deleteByIds(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,27 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * resource_embeddings 表的一行。向量与元数据以文本形式传给驱动，在 SQL 里转换为 vector / jsonb
+ */
+@Data
+public class ResourceEmbeddingRecord {
+
+    private UUID id;
+
+    private UUID documentId;
+
+    private String segmentContent;
+
+    /** pgvector 文本格式，如 [0.1,0.2,...] */
+    private String embedding;
+
+    /** 向量缓存键，对 embedding_cache 的软引用 */
+    private String embeddingKey;
+
+    /** JSON：chunk_index、heading、tokens、hash（同 embeddingKey） */
+    private String metadata;
+}
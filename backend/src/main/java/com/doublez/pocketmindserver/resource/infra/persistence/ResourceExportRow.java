@@ -0,0 +1,32 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 导出投影行，对应 {@link ResourceMetadataRepository#selectExportByUser}；aiTags 为 JSONB 的文本形式
+ */
+@Data
+public class ResourceExportRow {
+
+    private UUID id;
+
+    private String originalUrl;
+
+    private UUID documentId;
+
+    private String title;
+
+    private ResourceStatus processStatus;
+
+    private String aiSummary;
+
+    private String aiTags;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
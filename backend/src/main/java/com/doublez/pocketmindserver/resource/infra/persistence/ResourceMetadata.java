@@ -5,12 +5,14 @@ import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
-import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
 import lombok.Data;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+/**
+ * 用户资源库条目。表上拆分文档前的标题、状态、租约等列已不再读写，只由 {@link LibraryDocumentBackfillRunner} 迁移时读取
+ */
 @Data
 @TableName("resource_metadata")
 public class ResourceMetadata {
@@ -22,13 +24,13 @@ public class ResourceMetadata {
 
     private String originalUrl;
 
-    private String title;
+    private String urlHash;
 
-    private String contentMarkdown;
-
-    private String aiSummary;
+    /** 指向 resource_document，历史数据迁移完成前为 NULL */
+    private UUID documentId;
 
-    private ResourceStatus processStatus;
+    /** 迁入内容存储前的历史正文，迁移后为 NULL */
+    private String contentMarkdown;
 
     @TableField(fill = FieldFill.INSERT)
     private LocalDateTime createdAt;
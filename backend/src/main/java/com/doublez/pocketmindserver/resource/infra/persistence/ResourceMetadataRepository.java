@@ -2,7 +2,147 @@ package com.doublez.pocketmindserver.resource.infra.persistence;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 用户资源库条目（resource_metadata）。标题、状态、摘要等文档字段均关联 resource_document 读取，
+ * 未关联文档的历史条目在迁移完成前不出现在查询结果里。
+ */
 @Mapper
 public interface ResourceMetadataRepository extends BaseMapper<ResourceMetadata> {
+
+    /**
+     * 多行 INSERT ... ON CONFLICT (user_id, url_hash)，一条语句完成整批的插入或获取，每个入参都返回一行。
+     * 已有条目保留原 id 与收藏时间；尚未迁移关联的历史条目顺带关联到本次的文档。
+     *
+     * 冲突键带分区键 user_id，分区表上唯一约束必须包含分区键。入参内 (user_id, url_hash) 必须互不相同。
+     */
+    @Select("""
+            <script>
+            INSERT INTO resource_metadata (id, user_id, original_url, url_hash, document_id)
+            VALUES
+            <foreach collection="models" item="m" separator=",">
+                (#{m.id}, #{m.userId}, #{m.originalUrl}, #{m.urlHash}, #{m.documentId})
+            </foreach>
+            ON CONFLICT (user_id, url_hash) DO UPDATE
+                SET document_id = COALESCE(resource_metadata.document_id, EXCLUDED.document_id)
+            RETURNING id, user_id, original_url, url_hash, document_id
+            </script>
+            """)
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    List<ResourceMetadata> upsertBatch(@Param("models") List<ResourceMetadata> models);
+
+    /**
+     * 状态轮询专用：只取小字段，预览取文档写入时保存的 content_preview，再按请求长度截断。
+     * 带 user_id 只扫该用户所在分区，每行再按主键关联一次文档
+     */
+    @Select("""
+            <script>
+            SELECT m.id, m.original_url, m.url_hash, d.title, d.ai_summary, d.process_status,
+                   LEFT(d.content_preview, #{previewChars}) AS preview
+            FROM resource_metadata m
+            JOIN resource_document d ON d.id = m.document_id
+            WHERE m.user_id = #{userId}
+              AND m.url_hash IN
+            <foreach collection="hashes" item="h" open="(" separator="," close=")">#{h}</foreach>
+            </script>
+            """)
+    List<ResourceStatusRow> selectStatusByUrlHashes(@Param("userId") String userId,
+                                                    @Param("hashes") List<String> hashes,
+                                                    @Param("previewChars") int previewChars);
+
+    /**
+     * 按条目 (updated_at, id) 倒序的 keyset 分页，走 idx_library_user_updated，逐行按主键关联文档取标题与状态。
+     * 状态过滤在关联之后进行，过滤条件很窄时会多读一些条目
+     */
+    @Select("""
+            <script>
+            SELECT m.id, m.original_url, d.title, d.process_status, m.updated_at
+            FROM resource_metadata m
+            JOIN resource_document d ON d.id = m.document_id
+            WHERE m.user_id = #{userId}
+            <if test="statuses != null and !statuses.isEmpty()">
+                AND d.process_status IN
+                <foreach collection="statuses" item="s" open="(" separator="," close=")">#{s}</foreach>
+            </if>
+            <if test="afterId != null">
+                AND (m.updated_at, m.id) &lt; (#{afterUpdatedAt}, #{afterId})
+            </if>
+            ORDER BY m.updated_at DESC, m.id DESC
+            LIMIT #{limit}
+            </script>
+            """)
+    List<ResourceSummaryRow> selectPageByUser(@Param("userId") String userId,
+                                              @Param("statuses") Collection<String> statuses,
+                                              @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                              @Param("afterId") UUID afterId,
+                                              @Param("limit") int limit);
+
+    @Select("""
+            <script>
+            SELECT m.id, m.original_url, d.title, d.process_status, m.updated_at
+            FROM resource_metadata m
+            JOIN resource_document d ON d.id = m.document_id
+            WHERE m.user_id = #{userId}
+              AND m.id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    List<ResourceSummaryRow> selectSummariesByIds(@Param("userId") String userId, @Param("ids") List<UUID> ids);
+
+    /**
+     * 导出用游标查询，正文按 document_id 另行批量读取：FORWARD_ONLY + fetchSize 让驱动分批从服务端拉取（PG 驱动仅在事务内生效），
+     * 内存占用与总行数无关。
+     */
+    @Select("""
+            SELECT m.id, m.original_url, m.document_id, d.title, d.process_status, d.ai_summary,
+                   d.ai_tags::text AS ai_tags, m.created_at, m.updated_at
+            FROM resource_metadata m
+            JOIN resource_document d ON d.id = m.document_id
+            WHERE m.user_id = #{userId}
+            ORDER BY m.updated_at DESC, m.id DESC
+            """)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 100)
+    Cursor<ResourceExportRow> selectExportByUser(@Param("userId") String userId);
+
+    /**
+     * 迁移用：尚未关联文档的历史条目的 url_hash，按 url_hash 游标分批，走部分索引 idx_resource_unlinked
+     */
+    @Select("""
+            SELECT DISTINCT url_hash
+            FROM resource_metadata
+            WHERE document_id IS NULL
+              AND url_hash > #{afterHash}
+            ORDER BY url_hash
+            LIMIT #{limit}
+            """)
+    List<String> selectUnlinkedHashes(@Param("afterHash") String afterHash, @Param("limit") int limit);
+
+    /**
+     * 迁移用：把这批 url_hash 的历史条目关联到对应文档，并清掉已迁走的按用户正文与预览。不改 updated_at，资源库排序保持不变
+     */
+    @Update("""
+            <script>
+            UPDATE resource_metadata m
+            SET document_id = d.id,
+                content_markdown = NULL,
+                content_preview = NULL
+            FROM resource_document d
+            WHERE d.url_hash = m.url_hash
+              AND m.document_id IS NULL
+              AND m.url_hash IN
+            <foreach collection="hashes" item="h" open="(" separator="," close=")">#{h}</foreach>
+            </script>
+            """)
+    int linkToDocuments(@Param("hashes") List<String> hashes);
 }
@@ -1,59 +1,79 @@
 package com.doublez.pocketmindserver.resource.infra.persistence;
 
 import com.doublez.pocketmindserver.resource.domain.Resource;
+import com.doublez.pocketmindserver.resource.domain.ResourceContentStore;
 import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
 
+import java.util.function.Supplier;
+
 final class ResourcePersistenceMapper {
 
     private ResourcePersistenceMapper() {
     }
 
-    static ResourceMetadata toModel(Resource resource) {
-        ResourceMetadata model = new ResourceMetadata();
+    static ResourceDocument toModel(Resource resource) {
+        ResourceDocument model = new ResourceDocument();
         model.setId(resource.getId());
-        model.setUserId(resource.getUserId());
         model.setOriginalUrl(resource.getOriginalUrl());
+        model.setUrlHash(resource.getUrlHash());
         model.setTitle(resource.getTitle());
-        model.setContentMarkdown(resource.getContentMarkdown());
         model.setAiSummary(resource.getAiSummary());
         model.setProcessStatus(toProcessStatus(resource.getStatus()));
+        model.setVersion(resource.getVersion());
         return model;
     }
 
-    static Resource toDomain(ResourceMetadata model) {
+    /**
+     * 正文延迟到访问时再从内容存储读取
+     */
+    static Resource toDomain(ResourceDocument model, ResourceContentStore contentStore) {
+        Supplier<String> contentLoader = () -> contentStore.load(model.getId()).orElse(null);
         return Resource.rehydrate(
                 model.getId(),
-                model.getUserId(),
                 model.getOriginalUrl(),
+                model.getUrlHash(),
                 model.getTitle(),
-                model.getContentMarkdown(),
+                contentLoader,
                 model.getAiSummary(),
-                fromProcessStatus(model.getProcessStatus())
+                fromProcessStatus(model.getProcessStatus()),
+                model.getVersion() == null ? 0 : model.getVersion()
         );
     }
 
+    /**
+     * 只带主键、版本号和变更列的更新模型；其余字段为 null，updateById 会跳过。
+     * 正文本身写内容存储，这里只带预览
+     */
+    static ResourceDocument toChangeModel(Resource resource, int previewChars) {
+        ResourceDocument model = new ResourceDocument();
+        model.setId(resource.getId());
+        model.setVersion(resource.getVersion());
+        for (Resource.Change change : resource.getChanges()) {
+            switch (change) {
+                case TITLE -> model.setTitle(resource.getTitle());
+                case CONTENT -> model.setContentPreview(preview(resource.getContentMarkdown(), previewChars));
+                case SUMMARY -> model.setAiSummary(resource.getAiSummary());
+                case STATUS -> model.setProcessStatus(toProcessStatus(resource.getStatus()));
+            }
+        }
+        return model;
+    }
+
+    static String preview(String content, int previewChars) {
+        if (content == null || content.codePointCount(0, content.length()) <= previewChars) {
+            return content;
+        }
+        return content.substring(0, content.offsetByCodePoints(0, previewChars));
+    }
+
+    /**
+     * 落库保留完整状态集，对外口径的归并在应用层 toPublicStatus 中完成
+     */
     static ResourceStatus toProcessStatus(ResourceStatus status) {
-        return switch (status) {
-            case PENDING -> ResourceStatus.PENDING;
-            case CRAWLED -> ResourceStatus.CRAWLED;
-            case EMBEDDED -> ResourceStatus.EMBEDDED;
-            case FAILED -> ResourceStatus.FAILED;
-            default -> throw new IllegalStateException("当前 DB 不支持状态: " + status);
-        };
+        return status;
     }
 
     private static ResourceStatus fromProcessStatus(ResourceStatus status) {
-        if (status == null) {
-            return ResourceStatus.PENDING;
-        }
-        // todo 这边需要修改一下，先放着
-        return switch (status) {
-            case PENDING -> ResourceStatus.PENDING;
-            case CRAWLED -> ResourceStatus.CRAWLED;
-            case EMBEDDED -> ResourceStatus.EMBEDDED;
-            case FAILED -> ResourceStatus.FAILED;
-            case ANALYZING, ANALYZED, EMBEDDING -> ResourceStatus.CRAWLED;
-            default -> throw new IllegalStateException("当前 DB 不支持状态: " + status);
-        };
+        return status == null ? ResourceStatus.PENDING : status;
     }
 }
@@ -0,0 +1,32 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 处理中资源的租约与回收配置
+ *
+ * @param enabled        是否启用回收任务
+ * @param lease          进入处理中状态或开始一次处理时续期的租约时长，需覆盖一次抓取及其延迟重试
+ * @param interval       回收任务扫描间隔
+ * @param batchSize      每批回收条数
+ * @param maxRecoveries  最多回收重投次数，超过后标记 FAILED
+ */
+@ConfigurationProperties(prefix = "pocketmind.resource.recovery")
+public record ResourceRecoveryProperties(
+        Boolean enabled,
+        Duration lease,
+        Duration interval,
+        Integer batchSize,
+        Integer maxRecoveries
+) {
+
+    public ResourceRecoveryProperties {
+        enabled = enabled == null || enabled;
+        lease = lease == null ? Duration.ofMinutes(30) : lease;
+        interval = interval == null ? Duration.ofMinutes(1) : interval;
+        batchSize = batchSize == null ? 100 : batchSize;
+        maxRecoveries = maxRecoveries == null ? 3 : maxRecoveries;
+    }
+}
@@ -0,0 +1,130 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 混合检索查询。分块向量按文档共享、不带 user_id，用户过滤统一写成对该用户资源库条目的半连接，
+ * resource_metadata 按 user_id 分区，子查询只扫该用户所在分区。
+ */
+@Mapper
+public interface ResourceSearchMapper {
+
+    /**
+     * 事务级设置（SET LOCAL），事务结束即恢复；用于 hnsw.ef_search 等检索参数。
+     * 刷新一级缓存，同一事务内重复设置同一值也会真正执行
+     */
+    @Select("SELECT set_config(#{name}, #{value}, true)")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    String setLocal(@Param("name") String name, @Param("value") String value);
+
+    /**
+     * 该用户资源库的文档数，至多数到 limit，只读索引 idx_library_user_updated
+     */
+    @Select("""
+            SELECT count(*) FROM (
+                SELECT 1 FROM resource_metadata
+                WHERE user_id = #{userId} AND document_id IS NOT NULL
+                LIMIT #{limit}
+            ) t
+            """)
+    int countLibraryUpTo(@Param("userId") String userId, @Param("limit") int limit);
+
+    /**
+     * HNSW 近邻检索，用户过滤作为索引扫描上的过滤条件。
+     * 配合 hnsw.iterative_scan，过滤后不足 limit 条时索引继续向外扫描，而不是返回残缺结果
+     */
+    @Select("""
+            SELECT e.id, e.document_id
+            FROM resource_embeddings e
+            WHERE e.document_id IN (SELECT m.document_id FROM resource_metadata m WHERE m.user_id = #{userId})
+            ORDER BY e.embedding <=> CAST(#{vector} AS vector)
+            LIMIT #{limit}
+            """)
+    List<ChunkHitRow> selectNearestChunks(@Param("userId") String userId,
+                                          @Param("vector") String vector,
+                                          @Param("limit") int limit);
+
+    /**
+     * 小资源库的精确检索：先按 idx_embedding_document 取出该用户的全部分块（MATERIALIZED 阻止规划器改走 HNSW），
+     * 再逐个计算距离。分块少时比 HNSW 加过滤更快，召回也是精确的
+     */
+    @Select("""
+            WITH mine AS MATERIALIZED (
+                SELECT e.id, e.document_id, e.embedding
+                FROM resource_metadata m
+                JOIN resource_embeddings e ON e.document_id = m.document_id
+                WHERE m.user_id = #{userId}
+            )
+            SELECT id, document_id
+            FROM mine
+            ORDER BY embedding <=> CAST(#{vector} AS vector)
+            LIMIT #{limit}
+            """)
+    List<ChunkHitRow> selectNearestChunksExact(@Param("userId") String userId,
+                                               @Param("vector") String vector,
+                                               @Param("limit") int limit);
+
+    /**
+     * 正文分块全文检索，走 GIN 索引 idx_embedding_content_tsv
+     */
+    @Select("""
+            SELECT e.id, e.document_id
+            FROM resource_embeddings e, websearch_to_tsquery('simple', #{query}) q
+            WHERE e.content_tsv @@ q
+              AND e.document_id IN (SELECT m.document_id FROM resource_metadata m WHERE m.user_id = #{userId})
+            ORDER BY ts_rank_cd(e.content_tsv, q) DESC
+            LIMIT #{limit}
+            """)
+    List<ChunkHitRow> selectMatchingChunks(@Param("userId") String userId,
+                                           @Param("query") String query,
+                                           @Param("limit") int limit);
+
+    @Select("""
+            SELECT d.id
+            FROM resource_metadata m
+            JOIN resource_document d ON d.id = m.document_id,
+                 websearch_to_tsquery('simple', #{query}) q
+            WHERE m.user_id = #{userId}
+              AND d.title_tsv @@ q
+            ORDER BY ts_rank_cd(d.title_tsv, q) DESC
+            LIMIT #{limit}
+            """)
+    List<UUID> selectMatchingTitles(@Param("userId") String userId,
+                                    @Param("query") String query,
+                                    @Param("limit") int limit);
+
+    @Select("""
+            <script>
+            SELECT m.id, m.document_id, m.original_url, d.title, d.process_status, m.updated_at
+            FROM resource_metadata m
+            JOIN resource_document d ON d.id = m.document_id
+            WHERE m.user_id = #{userId}
+              AND m.document_id IN
+            <foreach collection="documentIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    List<SearchEntryRow> selectEntries(@Param("userId") String userId,
+                                       @Param("documentIds") Collection<UUID> documentIds);
+
+    /**
+     * ts_headline 需要重新分析整段文本，只对最终返回的那一页分块调用
+     */
+    @Select("""
+            <script>
+            SELECT e.id, ts_headline('simple', e.segment_content, websearch_to_tsquery('simple', #{query}), #{options}) AS snippet
+            FROM resource_embeddings e
+            WHERE e.id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    List<SnippetRow> selectSnippets(@Param("ids") Collection<UUID> ids,
+                                    @Param("query") String query,
+                                    @Param("options") String options);
+}
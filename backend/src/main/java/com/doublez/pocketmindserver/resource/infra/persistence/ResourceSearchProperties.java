@@ -0,0 +1,44 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 混合检索
+ *
+ * @param efSearch               HNSW 查询时的候选列表大小（hnsw.ef_search），越大召回越高、越慢，须不小于 semanticCandidates
+ * @param maxScanTuples          按用户过滤时 HNSW 迭代扫描最多访问的元组数（hnsw.max_scan_tuples，pgvector 0.8+）
+ * @param exactSearchMaxDocuments 资源库文档数不超过该值时不走 HNSW，直接对该用户的分块精确计算距离
+ * @param semanticCandidates     语义召回的分块数
+ * @param keywordCandidates      全文召回的分块数与标题数
+ * @param rrfK                   倒数排名融合的平滑常数，得分为各路 1/(k + rank) 之和
+ * @param snippetMaxWords        摘录的最大词数
+ * @param queryCacheSize         查询向量的进程内缓存条数，重复搜索不再调用向量模型
+ * @param queryCacheTtl          查询向量缓存时长
+ */
+@ConfigurationProperties(prefix = "pocketmind.resource.search")
+public record ResourceSearchProperties(
+        Integer efSearch,
+        Integer maxScanTuples,
+        Integer exactSearchMaxDocuments,
+        Integer semanticCandidates,
+        Integer keywordCandidates,
+        Integer rrfK,
+        Integer snippetMaxWords,
+        Integer queryCacheSize,
+        Duration queryCacheTtl
+) {
+
+    public ResourceSearchProperties {
+        efSearch = efSearch == null ? 100 : efSearch;
+        maxScanTuples = maxScanTuples == null ? 20000 : maxScanTuples;
+        exactSearchMaxDocuments = exactSearchMaxDocuments == null ? 500 : exactSearchMaxDocuments;
+        semanticCandidates = semanticCandidates == null ? 50 : semanticCandidates;
+        keywordCandidates = keywordCandidates == null ? 50 : keywordCandidates;
+        rrfK = rrfK == null ? 60 : rrfK;
+        snippetMaxWords = snippetMaxWords == null ? 35 : snippetMaxWords;
+        queryCacheSize = queryCacheSize == null ? 1000 : queryCacheSize;
+        queryCacheTtl = queryCacheTtl == null ? Duration.ofMinutes(10) : queryCacheTtl;
+    }
+}
@@ -0,0 +1,27 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * 状态查询投影行，对应 {@link ResourceMetadataRepository#selectStatusByUrlHashes}
+ */
+@Data
+public class ResourceStatusRow {
+
+    private UUID id;
+
+    private String originalUrl;
+
+    private String urlHash;
+
+    private String title;
+
+    private String preview;
+
+    private String aiSummary;
+
+    private ResourceStatus processStatus;
+}
@@ -0,0 +1,24 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 资源库列表投影行，对应 {@link ResourceMetadataRepository#selectPageByUser}：条目字段加关联文档的标题与状态
+ */
+@Data
+public class ResourceSummaryRow {
+
+    private UUID id;
+
+    private String originalUrl;
+
+    private String title;
+
+    private ResourceStatus processStatus;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,26 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 检索结果的条目投影，对应 {@link ResourceSearchMapper#selectEntries}
+ */
+@Data
+public class SearchEntryRow {
+
+    private UUID id;
+
+    private UUID documentId;
+
+    private String originalUrl;
+
+    private String title;
+
+    private ResourceStatus processStatus;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,13 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class SnippetRow {
+
+    private UUID id;
+
+    private String snippet;
+}
@@ -0,0 +1,22 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * 已入库分块的比对信息，对应 {@link ResourceEmbeddingMapper#selectChunks}
+ */
+@Data
+public class StoredChunkRow {
+
+    private UUID id;
+
+    private UUID documentId;
+
+    private Integer chunkIndex;
+
+    private String heading;
+
+    private String embeddingKey;
+}
@@ -0,0 +1,69 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.doublez.pocketmindserver.resource.domain.UrlCanonicalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 为升级前的历史数据回填 url_hash（规范化逻辑在 Java 侧，无法用一条 SQL 完成）。
+ *
+ * 按 id 游标分批处理；同一用户同一规范化 URL 的历史重复行只有第一条能拿到 url_hash，
+ * 其余保持 NULL，不参与去重和按 URL 查询。全部回填完成后本任务只会执行一次空查询。
+ * 需先于 {@link LibraryDocumentBackfillRunner} 执行，后者按 url_hash 建文档。
+ */
+@Slf4j
+@Component
+@Order(1)
+public class UrlHashBackfillRunner implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ResourceMetadataRepository mapper;
+
+    public UrlHashBackfillRunner(ResourceMetadataRepository mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        UUID cursor = null;
+        int filled = 0;
+        int duplicated = 0;
+        while (true) {
+            LambdaQueryWrapper<ResourceMetadata> query = new LambdaQueryWrapper<ResourceMetadata>()
+                    .select(ResourceMetadata::getId, ResourceMetadata::getUserId, ResourceMetadata::getOriginalUrl)
+                    .isNull(ResourceMetadata::getUrlHash)
+                    .gt(cursor != null, ResourceMetadata::getId, cursor)
+                    .orderByAsc(ResourceMetadata::getId)
+                    .last("limit " + BATCH_SIZE);
+            List<ResourceMetadata> batch = mapper.selectList(query);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (ResourceMetadata model : batch) {
+                try {
+                    mapper.update(null, new LambdaUpdateWrapper<ResourceMetadata>()
+                            .set(ResourceMetadata::getUrlHash, UrlCanonicalizer.hash(model.getOriginalUrl()))
+                            .eq(ResourceMetadata::getUserId, model.getUserId())
+                            .eq(ResourceMetadata::getId, model.getId()));
+                    filled++;
+                } catch (DuplicateKeyException e) {
+                    duplicated++;
+                }
+            }
+            cursor = batch.get(batch.size() - 1).getId();
+        }
+        if (filled > 0 || duplicated > 0) {
+            log.info("url_hash backfill finished, filled: {}, skipped duplicates: {}", filled, duplicated);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.doublez.pocketmindserver.resource.infra.persistence;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 进程内向量索引的数据源。比对只取 id，向量只对缺少的分块按批读取
+ */
+@Mapper
+public interface VectorIndexMapper {
+
+    /**
+     * 该用户资源库的全部分块 id，resource_metadata 分区裁剪后按 idx_embedding_document 连接
+     */
+    @Select("""
+            SELECT e.id, e.document_id
+            FROM resource_metadata m
+            JOIN resource_embeddings e ON e.document_id = m.document_id
+            WHERE m.user_id = #{userId}
+            """)
+    List<ChunkHitRow> selectLibraryChunks(@Param("userId") String userId);
+
+    /**
+     * 只统计到 limit 为止
+     */
+    @Select("""
+            SELECT count(*) FROM (
+                SELECT 1
+                FROM resource_metadata m
+                JOIN resource_embeddings e ON e.document_id = m.document_id
+                WHERE m.user_id = #{userId}
+                LIMIT #{limit}
+            ) t
+            """)
+    int countLibraryChunksUpTo(@Param("userId") String userId, @Param("limit") int limit);
+
+    @Select("""
+            <script>
+            SELECT id, document_id
+            FROM resource_embeddings
+            WHERE document_id IN
+            <foreach collection="documentIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    List<ChunkHitRow> selectChunks(@Param("documentIds") Collection<UUID> documentIds);
+
+    @Select("""
+            <script>
+            SELECT id, document_id, embedding::text AS embedding
+            FROM resource_embeddings
+            WHERE id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    List<ChunkVectorRow> selectVectors(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,259 @@
+package com.doublez.pocketmindserver.resource.infra.vector;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * 分层可导航小世界图（HNSW，Malkov &amp; Yashunin）。向量须已 L2 归一化，相似度为内积（即余弦相似度）。
+ *
+ * 节点序号与 {@link VectorStorage} 一致，只追加不删除；删除由调用方以过滤条件在结果里跳过，
+ * 被删节点仍参与导航，图的连通性不受影响。每个节点每层的邻居存为 int 数组，下标 0 为邻居数。
+ * 不是线程安全的：插入需独占，查询之间可以并发。
+ */
+final class HnswGraph {
+
+    private final VectorStorage vectors;
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final List<int[][]> links = new ArrayList<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    HnswGraph(VectorStorage vectors, int m, int efConstruction) {
+        this.vectors = vectors;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    int m() {
+        return m;
+    }
+
+    int efConstruction() {
+        return efConstruction;
+    }
+
+    int size() {
+        return links.size();
+    }
+
+    int entryPoint() {
+        return entryPoint;
+    }
+
+    int maxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * 节点在各层的邻居，下标 0 为邻居数；快照写出用
+     */
+    int[][] links(int node) {
+        return links.get(node);
+    }
+
+    /**
+     * 从快照恢复：按节点序号依次放回邻居表
+     */
+    void restore(List<int[][]> restored, int entryPoint, int maxLevel) {
+        links.clear();
+        links.addAll(restored);
+        this.entryPoint = entryPoint;
+        this.maxLevel = maxLevel;
+    }
+
+    /**
+     * 插入已写入 {@link VectorStorage} 的节点，节点须按序号依次插入
+     */
+    void insert(int node) {
+        if (node != links.size()) {
+            throw new IllegalStateException("节点须按序号插入: " + node + "/" + links.size());
+        }
+        float[] vector = vectors.get(node);
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        int[][] own = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            own[l] = new int[maxConnections(l) + 1];
+        }
+        links.add(own);
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedy(vector, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Scored> candidates = searchLayer(vector, current, efConstruction, l, null);
+            List<Scored> selected = selectNeighbours(candidates, m);
+            for (Scored neighbour : selected) {
+                append(own[l], neighbour.node());
+                connect(neighbour.node(), node, l);
+            }
+            current = candidates.get(0).node();
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * @param ef     底层候选列表大小，不小于 k
+     * @param accept 可以出现在结果里的节点，null 表示全部；不被接受的节点仍用于导航
+     * @return 按相似度降序，最多 k 个
+     */
+    List<Scored> search(float[] query, int k, int ef, IntPredicate accept) {
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedy(query, current, l);
+        }
+        List<Scored> found = searchLayer(query, current, Math.max(ef, k), 0, accept);
+        return found.size() > k ? found.subList(0, k) : found;
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    /**
+     * 上层贪心下降：只走向更相似的邻居，直到局部最优
+     */
+    private int greedy(float[] query, int start, int level) {
+        int current = start;
+        float best = vectors.dot(current, query);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links.get(current)[level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                float score = vectors.dot(neighbours[i], query);
+                if (score > best) {
+                    best = score;
+                    current = neighbours[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 单层束搜索。accept 不为空时，结果集只收被接受的节点，但候选扩展不受限制，
+     * 保证经过已删除节点也能到达远处的有效节点
+     */
+    private List<Scored> searchLayer(float[] query, int start, int ef, int level, IntPredicate accept) {
+        BitSet visited = new BitSet(links.size());
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(Comparator.comparingDouble(Scored::score).reversed());
+        PriorityQueue<Scored> results = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+        Scored first = new Scored(start, vectors.dot(start, query));
+        visited.set(start);
+        candidates.add(first);
+        if (accept == null || accept.test(start)) {
+            results.add(first);
+        }
+        while (!candidates.isEmpty()) {
+            Scored closest = candidates.poll();
+            if (results.size() >= ef && closest.score() < results.peek().score()) {
+                break;
+            }
+            int[][] nodeLinks = links.get(closest.node());
+            if (level >= nodeLinks.length) {
+                continue;
+            }
+            int[] neighbours = nodeLinks[level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float score = vectors.dot(neighbour, query);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Scored scored = new Scored(neighbour, score);
+                    candidates.add(scored);
+                    if (accept == null || accept.test(neighbour)) {
+                        results.add(scored);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+        List<Scored> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(Scored::score).reversed());
+        return sorted;
+    }
+
+    /**
+     * 启发式选邻：候选按相似度从高到低，只保留与查询点比与任何已选邻居都更近的，使邻居分布在不同方向上；
+     * 不足 limit 时用被淘汰的候选补齐
+     */
+    private List<Scored> selectNeighbours(List<Scored> candidates, int limit) {
+        List<Scored> selected = new ArrayList<>(limit);
+        List<Scored> discarded = new ArrayList<>();
+        for (Scored candidate : candidates) {
+            if (selected.size() >= limit) {
+                break;
+            }
+            float[] vector = vectors.get(candidate.node());
+            boolean diverse = true;
+            for (Scored chosen : selected) {
+                if (vectors.dot(chosen.node(), vector) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : discarded).add(candidate);
+        }
+        for (int i = 0; i < discarded.size() && selected.size() < limit; i++) {
+            selected.add(discarded.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * 反向连接：邻居表已满时连同新节点重新选邻
+     */
+    private void connect(int node, int neighbour, int level) {
+        int[] neighbours = links.get(node)[level];
+        if (neighbours[0] < neighbours.length - 1) {
+            append(neighbours, neighbour);
+            return;
+        }
+        float[] vector = vectors.get(node);
+        List<Scored> candidates = new ArrayList<>(neighbours[0] + 1);
+        for (int i = 1; i <= neighbours[0]; i++) {
+            candidates.add(new Scored(neighbours[i], vectors.dot(neighbours[i], vector)));
+        }
+        candidates.add(new Scored(neighbour, vectors.dot(neighbour, vector)));
+        candidates.sort(Comparator.comparingDouble(Scored::score).reversed());
+        List<Scored> selected = selectNeighbours(candidates, maxConnections(level));
+        neighbours[0] = 0;
+        for (Scored scored : selected) {
+            append(neighbours, scored.node());
+        }
+    }
+
+    private static void append(int[] neighbours, int node) {
+        neighbours[++neighbours[0]] = node;
+    }
+
+    record Scored(int node, float score) {
+    }
+}
@@ -0,0 +1,389 @@
+package com.doublez.pocketmindserver.resource.infra.vector;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceSearchRepository.ChunkHit;
+import com.doublez.pocketmindserver.resource.infra.embedding.ResourceEmbeddingProperties;
+import com.doublez.pocketmindserver.resource.infra.persistence.ChunkHitRow;
+import com.doublez.pocketmindserver.resource.infra.persistence.ChunkVectorRow;
+import com.doublez.pocketmindserver.resource.infra.persistence.ResourceSearchMapper;
+import com.doublez.pocketmindserver.resource.infra.persistence.VectorIndexMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pgvector.PGvector;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按用户分区的进程内向量索引，语义召回的本机快速路径。
+ *
+ * 用户第一次搜索时在后台加载：有快照先映射快照并立即上线，再与 resource_embeddings 比对分块 id 补齐差异；
+ * 没有快照则从库里全量构建，构建完成前该用户的查询继续走 pgvector。资源库太小或太大的用户不建索引。
+ * 常驻用户数有上限，超出时淘汰最久未搜索的用户（pinnedUsers 除外），淘汰前写快照。
+ *
+ * 一致性：文档向量化完成后的状态广播（fanout 到每个实例）触发对应收藏者分区的按文档刷新；
+ * 新收藏、取消收藏等不经过向量化的变更由定期比对补齐。检索结果最终还要经过资源库条目过滤，
+ * 索引短暂落后只会少召回新文档，不会返回已不在资源库里的条目。
+ *
+ * 同一分区的加载、比对、刷新、重建与快照经分区锁串行执行，查询不受这把锁影响。
+ *
+ * 指标：resource.search.local（本机检索耗时）、resource.search.local.tenants（常驻用户数）。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "pocketmind.resource.search.local-index", name = "enabled", havingValue = "true")
+public class LocalVectorIndex {
+
+    /** 每条语句读取的向量数 */
+    private static final int VECTOR_BATCH = 500;
+
+    private final VectorIndexMapper mapper;
+    private final ResourceSearchMapper searchMapper;
+    private final LocalVectorIndexProperties properties;
+    private final int dimensions;
+    private final Set<String> pinned;
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    /** 不满足建索引条件的用户，过一个比对周期再重新判断 */
+    private final Cache<String, Boolean> ineligible;
+    private final ExecutorService executor;
+    private final Timer searchTimer;
+
+    public LocalVectorIndex(VectorIndexMapper mapper,
+                            ResourceSearchMapper searchMapper,
+                            LocalVectorIndexProperties properties,
+                            ResourceEmbeddingProperties embeddingProperties,
+                            MeterRegistry meterRegistry) {
+        this.mapper = mapper;
+        this.searchMapper = searchMapper;
+        this.properties = properties;
+        this.dimensions = embeddingProperties.dimensions();
+        this.pinned = Set.copyOf(properties.pinnedUsers());
+        this.ineligible = Caffeine.newBuilder().expireAfterWrite(properties.reconcileInterval()).build();
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.buildConcurrency(), r -> {
+            Thread t = new Thread(r, "local-vector-index-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.searchTimer = Timer.builder("resource.search.local").register(meterRegistry);
+        Gauge.builder("resource.search.local.tenants", partitions, Map::size).register(meterRegistry);
+        try {
+            Files.createDirectories(properties.directory());
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建向量索引快照目录: " + properties.directory(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        pinned.forEach(this::schedule);
+    }
+
+    /**
+     * @return 该用户的索引尚未就绪或不建索引时返回 empty，调用方改走数据库；首次调用会在后台开始加载
+     */
+    public Optional<List<ChunkHit>> search(String userId, float[] queryVector, int k) {
+        Partition partition = partitions.get(userId);
+        if (partition == null) {
+            schedule(userId);
+            return Optional.empty();
+        }
+        partition.lastSearched = System.nanoTime();
+        UserVectorIndex index = partition.index;
+        if (index == null) {
+            return Optional.empty();
+        }
+        if (System.nanoTime() - partition.lastReconciled > properties.reconcileInterval().toNanos()
+                && partition.reconcilePending.compareAndSet(false, true)) {
+            submit(partition, () -> {
+                partition.reconcilePending.set(false);
+                reconcile(partition, partition.index);
+            });
+        }
+        return Optional.of(searchTimer.record(() -> index.search(queryVector, k, Math.max(properties.efSearch(), k))));
+    }
+
+    /**
+     * 文档的分块已重新写入：刷新收藏了该文档、且在本机常驻的用户分区
+     */
+    public void onDocumentEmbedded(UUID documentId, Collection<String> userIds) {
+        for (String userId : new HashSet<>(userIds)) {
+            Partition partition = partitions.get(userId);
+            if (partition != null) {
+                submit(partition, () -> refresh(partition, documentId));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pocketmind.resource.search.local-index.snapshot-interval:10m}",
+            initialDelayString = "${pocketmind.resource.search.local-index.snapshot-interval:10m}")
+    public void snapshotDirty() {
+        for (Partition partition : partitions.values()) {
+            if (partition.dirty) {
+                submit(partition, () -> snapshot(partition));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+        for (Partition partition : partitions.values()) {
+            if (partition.dirty && partition.lock.tryLock()) {
+                try {
+                    snapshot(partition);
+                } finally {
+                    partition.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void schedule(String userId) {
+        if (ineligible.getIfPresent(userId) != null) {
+            return;
+        }
+        Partition partition = new Partition(userId, pinned.contains(userId));
+        if (partitions.putIfAbsent(userId, partition) != null) {
+            return;
+        }
+        evictIfNeeded();
+        submit(partition, () -> load(partition));
+    }
+
+    /**
+     * 淘汰最久未搜索的非常驻用户；刚加入的分区也参与比较，常驻用户已占满时它会被立即淘汰
+     */
+    private void evictIfNeeded() {
+        while (partitions.size() > properties.maxTenants()) {
+            Partition victim = partitions.values().stream()
+                    .filter(p -> !p.pinned)
+                    .min(Comparator.comparingLong(p -> p.lastSearched))
+                    .orElse(null);
+            if (victim == null || !partitions.remove(victim.userId, victim)) {
+                return;
+            }
+            if (victim.dirty) {
+                submit(victim, () -> snapshot(victim));
+            }
+        }
+    }
+
+    private void load(Partition partition) {
+        if (!active(partition)) {
+            return;
+        }
+        String userId = partition.userId;
+        if (!partition.pinned && searchMapper.countLibraryUpTo(userId, properties.minDocuments()) < properties.minDocuments()) {
+            drop(partition);
+            return;
+        }
+        UserVectorIndex index = null;
+        try {
+            index = UserVectorIndex.load(snapshotFile(userId), dimensions, properties.m(), properties.efConstruction());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Discard unreadable vector index snapshot of user {}: {}", userId, e.getMessage());
+        }
+        if (index != null) {
+            // 快照先上线，差异随后补齐
+            partition.index = index;
+        } else {
+            index = new UserVectorIndex(dimensions, properties.m(), properties.efConstruction());
+        }
+        long start = System.nanoTime();
+        index = reconcile(partition, index);
+        if (index == null) {
+            return;
+        }
+        partition.index = index;
+        log.info("Local vector index of user {} ready: {} chunks in {} ms", userId, index.liveCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * 全量比对分块 id：库里有、索引没有的读取向量补入，索引有、库里没有的删除
+     *
+     * @return 比对后应当上线的索引（可能是压缩重建后的新实例）；分区已失效或被移除时返回 null
+     */
+    private UserVectorIndex reconcile(Partition partition, UserVectorIndex index) {
+        if (!active(partition) || index == null) {
+            return null;
+        }
+        List<ChunkHitRow> rows = mapper.selectLibraryChunks(partition.userId);
+        if (rows.size() > properties.maxChunks()) {
+            log.info("Library of user {} has {} chunks, above the local index limit", partition.userId, rows.size());
+            drop(partition);
+            return null;
+        }
+        Set<UUID> stale = index.chunkIds();
+        Map<UUID, UUID> missing = new HashMap<>();
+        for (ChunkHitRow row : rows) {
+            if (!stale.remove(row.getId())) {
+                missing.put(row.getId(), row.getDocumentId());
+            }
+        }
+        UserVectorIndex live = apply(partition, index, stale, missing.keySet());
+        partition.lastReconciled = System.nanoTime();
+        return live;
+    }
+
+    private void refresh(Partition partition, UUID documentId) {
+        UserVectorIndex index = partition.index;
+        if (!active(partition) || index == null) {
+            return;
+        }
+        Set<UUID> stale = index.chunkIdsOf(documentId);
+        Set<UUID> missing = new HashSet<>();
+        for (ChunkHitRow row : mapper.selectChunks(List.of(documentId))) {
+            if (!stale.remove(row.getId())) {
+                missing.add(row.getId());
+            }
+        }
+        apply(partition, index, stale, missing);
+    }
+
+    /**
+     * 把差异应用到 index；删除比例超过阈值时压缩重建。index 已上线时直接替换为重建结果，
+     * 尚未上线（首次构建）时由调用方发布返回值
+     *
+     * @return 应当上线的索引
+     */
+    private UserVectorIndex apply(Partition partition, UserVectorIndex index, Set<UUID> stale, Set<UUID> missing) {
+        if (stale.isEmpty() && missing.isEmpty()) {
+            return index;
+        }
+        index.remove(stale);
+        List<UUID> ids = new ArrayList<>(missing);
+        for (int i = 0; i < ids.size(); i += VECTOR_BATCH) {
+            for (ChunkVectorRow row : mapper.selectVectors(ids.subList(i, Math.min(i + VECTOR_BATCH, ids.size())))) {
+                index.add(row.getId(), row.getDocumentId(), parse(row.getEmbedding()));
+            }
+        }
+        partition.dirty = true;
+        if (index.deletedRatio() <= properties.compactionThreshold()) {
+            return index;
+        }
+        // 持有分区锁，重建期间没有写入；查询继续使用旧索引直到替换
+        UserVectorIndex compacted = index.compacted();
+        if (partition.index == index) {
+            partition.index = compacted;
+        }
+        return compacted;
+    }
+
+    private void snapshot(Partition partition) {
+        UserVectorIndex index = partition.index;
+        if (index == null) {
+            return;
+        }
+        partition.dirty = false;
+        try {
+            index.snapshot(snapshotFile(partition.userId));
+        } catch (IOException e) {
+            partition.dirty = true;
+            log.warn("Failed to snapshot local vector index of user {}: {}", partition.userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 不再满足建索引条件：移出本机并删除快照，下个比对周期后重新判断
+     */
+    private void drop(Partition partition) {
+        partitions.remove(partition.userId, partition);
+        ineligible.put(partition.userId, Boolean.TRUE);
+        try {
+            Files.deleteIfExists(snapshotFile(partition.userId));
+        } catch (IOException e) {
+            log.warn("Failed to delete local vector index snapshot of user {}: {}", partition.userId, e.getMessage());
+        }
+    }
+
+    private boolean active(Partition partition) {
+        return partitions.get(partition.userId) == partition;
+    }
+
+    private void submit(Partition partition, Runnable task) {
+        executor.execute(() -> {
+            partition.lock.lock();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("Local vector index task failed for user {}: {}", partition.userId, e.getMessage());
+            } finally {
+                partition.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * 文件名取用户 id 的 SHA-256，避免用户 id 中的特殊字符
+     */
+    private Path snapshotFile(String userId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(userId.getBytes(StandardCharsets.UTF_8));
+            return properties.directory().resolve(HexFormat.of().formatHex(digest) + ".hnsw");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static float[] parse(String text) {
+        try {
+            return new PGvector(text).toArray();
+        } catch (SQLException e) {
+            throw new IllegalStateException("无法解析分块向量", e);
+        }
+    }
+
+    private static final class Partition {
+
+        private final String userId;
+        private final boolean pinned;
+        /** 串行化该分区的加载、比对、刷新、重建与快照 */
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicBoolean reconcilePending = new AtomicBoolean();
+        private volatile UserVectorIndex index;
+        private volatile long lastSearched = System.nanoTime();
+        private volatile long lastReconciled = System.nanoTime();
+        private volatile boolean dirty;
+
+        private Partition(String userId, boolean pinned) {
+            this.userId = userId;
+            this.pinned = pinned;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.doublez.pocketmindserver.resource.infra.vector;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 进程内向量索引：为分块多、搜索频繁的用户在本机内存里维护一份 HNSW，语义召回不再经过数据库
+ *
+ * @param enabled             关闭时语义召回全部走 pgvector
+ * @param directory           快照目录，每个用户一个文件；重启后直接映射快照，只从库里补齐差异
+ * @param pinnedUsers         启动时预热、常驻不淘汰的用户，不受 minDocuments 限制
+ * @param maxTenants          同时常驻的用户数（含 pinnedUsers），超出时淘汰最久未搜索的用户
+ * @param minDocuments        资源库文档数少于该值的用户不建索引，继续走数据库（小库在数据库里走精确检索已经足够快）
+ * @param maxChunks           单个用户的分块数上限，超过的不建索引；每个分块约占 维度 × 4 字节堆外内存
+ * @param m                   HNSW 每层邻居数，底层为 2M
+ * @param efConstruction      构建时的候选列表大小
+ * @param efSearch            查询时的候选列表大小，不小于请求的 k
+ * @param reconcileInterval   与 resource_embeddings 全量比对分块 id 的间隔；文档重新向量化由事件即时更新，
+ *                            新收藏已向量化的文档靠这里补齐
+ * @param snapshotInterval    有变更的索引写快照的间隔
+ * @param compactionThreshold 已删除节点占比超过该值时重建
+ * @param buildConcurrency    加载、比对、重建共用的线程数
+ */
+@ConfigurationProperties(prefix = "pocketmind.resource.search.local-index")
+public record LocalVectorIndexProperties(
+        Boolean enabled,
+        Path directory,
+        List<String> pinnedUsers,
+        Integer maxTenants,
+        Integer minDocuments,
+        Integer maxChunks,
+        Integer m,
+        Integer efConstruction,
+        Integer efSearch,
+        Duration reconcileInterval,
+        Duration snapshotInterval,
+        Double compactionThreshold,
+        Integer buildConcurrency
+) {
+
+    public LocalVectorIndexProperties {
+        enabled = enabled != null && enabled;
+        directory = directory == null ? Path.of("data", "vector-index") : directory;
+        pinnedUsers = pinnedUsers == null ? List.of() : List.copyOf(pinnedUsers);
+        maxTenants = maxTenants == null ? 4 : maxTenants;
+        minDocuments = minDocuments == null ? 1000 : minDocuments;
+        maxChunks = maxChunks == null ? 200_000 : maxChunks;
+        m = m == null ? 16 : m;
+        efConstruction = efConstruction == null ? 128 : efConstruction;
+        efSearch = efSearch == null ? 100 : efSearch;
+        reconcileInterval = reconcileInterval == null ? Duration.ofMinutes(1) : reconcileInterval;
+        snapshotInterval = snapshotInterval == null ? Duration.ofMinutes(10) : snapshotInterval;
+        compactionThreshold = compactionThreshold == null ? 0.3 : compactionThreshold;
+        buildConcurrency = buildConcurrency == null ? 2 : buildConcurrency;
+    }
+}
@@ -0,0 +1,314 @@
+package com.doublez.pocketmindserver.resource.infra.vector;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceSearchRepository.ChunkHit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 一个用户资源库的进程内向量索引：HNSW 图 + 分块 id 映射 + 删除标记。
+ *
+ * 查询持读锁并发执行；增删持写锁，逐个分块加锁，批量构建时查询仍能插空进行。
+ * 删除只打标记，被删节点继续参与导航；删除比例过高时由调用方用 {@link #compacted()} 重建。
+ *
+ * 快照格式（小端）：32 字节头（magic、版本、维度、M、节点数、入口点、最高层），随后是按节点序号连续存放的向量段，
+ * 最后是每个节点的分块 id、文档 id、删除标记与各层邻居。加载时向量段直接内存映射，不读进堆。
+ */
+final class UserVectorIndex {
+
+    private static final int MAGIC = 0x504D5649;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private final VectorStorage vectors;
+    private final HnswGraph graph;
+    private final List<UUID> chunkIds = new ArrayList<>();
+    private final List<UUID> documentIds = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private final Map<UUID, Integer> nodeOf = new HashMap<>();
+    private final Map<UUID, Set<UUID>> chunksOf = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    UserVectorIndex(int dimensions, int m, int efConstruction) {
+        this(new VectorStorage(dimensions), m, efConstruction);
+    }
+
+    private UserVectorIndex(VectorStorage vectors, int m, int efConstruction) {
+        this.vectors = vectors;
+        this.graph = new HnswGraph(vectors, m, efConstruction);
+    }
+
+    int liveCount() {
+        lock.readLock().lock();
+        try {
+            return nodeOf.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已删除节点占全部节点的比例
+     */
+    double deletedRatio() {
+        lock.readLock().lock();
+        try {
+            return graph.size() == 0 ? 0 : (double) deleted.cardinality() / graph.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Set<UUID> chunkIds() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(nodeOf.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Set<UUID> chunkIdsOf(UUID documentId) {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(chunksOf.getOrDefault(documentId, Set.of()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已存在的分块跳过：重放同一变更是幂等的
+     */
+    void add(UUID chunkId, UUID documentId, float[] vector) {
+        float[] normalized = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            if (nodeOf.containsKey(chunkId)) {
+                return;
+            }
+            if (normalized.length != vectors.dimensions()) {
+                throw new IllegalArgumentException("向量维度 " + normalized.length + " 与索引的 " + vectors.dimensions() + " 不一致");
+            }
+            int node = vectors.add(normalized);
+            chunkIds.add(chunkId);
+            documentIds.add(documentId);
+            graph.insert(node);
+            track(chunkId, documentId, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Set<UUID> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (UUID chunkId : removed) {
+                Integer node = nodeOf.remove(chunkId);
+                if (node == null) {
+                    continue;
+                }
+                deleted.set(node);
+                Set<UUID> chunks = chunksOf.get(documentIds.get(node));
+                chunks.remove(chunkId);
+                if (chunks.isEmpty()) {
+                    chunksOf.remove(documentIds.get(node));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return 按余弦相似度降序的分块，最多 k 个
+     */
+    List<ChunkHit> search(float[] query, int k, int ef) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            List<HnswGraph.Scored> found = graph.search(normalized, k, ef, deleted.isEmpty() ? null : node -> !deleted.get(node));
+            List<ChunkHit> hits = new ArrayList<>(found.size());
+            for (HnswGraph.Scored scored : found) {
+                hits.add(new ChunkHit(chunkIds.get(scored.node()), documentIds.get(scored.node())));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 只用未删除的节点重建。调用方须保证期间没有写入
+     */
+    UserVectorIndex compacted() {
+        UserVectorIndex compacted = new UserVectorIndex(vectors.dimensions(), graph.m(), graph.efConstruction());
+        lock.readLock().lock();
+        try {
+            for (int node = 0; node < graph.size(); node++) {
+                if (!deleted.get(node)) {
+                    compacted.add(chunkIds.get(node), documentIds.get(node), vectors.get(node));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return compacted;
+    }
+
+    /**
+     * 先写临时文件再原子替换；旧文件若正被映射，映射在替换后仍然有效
+     */
+    void snapshot(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(vectors.dimensions()).putInt(graph.m())
+                    .putInt(graph.size()).putInt(graph.entryPoint()).putInt(graph.maxLevel()).putInt(0);
+            for (int node = 0; node < graph.size(); node++) {
+                buffer = ensure(channel, buffer, vectors.dimensions() * Float.BYTES);
+                for (float v : vectors.get(node)) {
+                    buffer.putFloat(v);
+                }
+            }
+            for (int node = 0; node < graph.size(); node++) {
+                int[][] links = graph.links(node);
+                buffer = ensure(channel, buffer, 2 * 16 + 1 + Integer.BYTES);
+                putUuid(buffer, chunkIds.get(node));
+                putUuid(buffer, documentIds.get(node));
+                buffer.put((byte) (deleted.get(node) ? 1 : 0));
+                buffer.putInt(links.length);
+                for (int[] level : links) {
+                    buffer = ensure(channel, buffer, (level[0] + 2) * Integer.BYTES);
+                    buffer.putInt(level.length - 1);
+                    buffer.putInt(level[0]);
+                    for (int i = 1; i <= level[0]; i++) {
+                        buffer.putInt(level[i]);
+                    }
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return 快照不存在、与当前配置（维度、M）不兼容或超过单个映射 2GB 的上限时返回 null
+     */
+    static UserVectorIndex load(Path file, int dimensions, int m, int efConstruction) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) > Integer.MAX_VALUE) {
+            return null;
+        }
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                || buffer.getInt() != dimensions || buffer.getInt() != m) {
+            return null;
+        }
+        int count = buffer.getInt();
+        int entryPoint = buffer.getInt();
+        int maxLevel = buffer.getInt();
+        int vectorBytes = count * dimensions * Float.BYTES;
+        VectorStorage storage = new VectorStorage(dimensions,
+                mapped.slice(HEADER_BYTES, vectorBytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer(), count);
+
+        UserVectorIndex index = new UserVectorIndex(storage, m, efConstruction);
+        buffer.position(HEADER_BYTES + vectorBytes);
+        List<int[][]> links = new ArrayList<>(count);
+        for (int node = 0; node < count; node++) {
+            UUID chunkId = getUuid(buffer);
+            UUID documentId = getUuid(buffer);
+            boolean removed = buffer.get() == 1;
+            int[][] levels = new int[buffer.getInt()][];
+            for (int l = 0; l < levels.length; l++) {
+                levels[l] = new int[buffer.getInt() + 1];
+                levels[l][0] = buffer.getInt();
+                for (int i = 1; i <= levels[l][0]; i++) {
+                    levels[l][i] = buffer.getInt();
+                }
+            }
+            links.add(levels);
+            index.chunkIds.add(chunkId);
+            index.documentIds.add(documentId);
+            if (removed) {
+                index.deleted.set(node);
+            } else {
+                index.track(chunkId, documentId, node);
+            }
+        }
+        index.graph.restore(links, entryPoint, maxLevel);
+        return index;
+    }
+
+    private void track(UUID chunkId, UUID documentId, int node) {
+        nodeOf.put(chunkId, node);
+        chunksOf.computeIfAbsent(documentId, k -> new HashSet<>()).add(chunkId);
+    }
+
+    private static ByteBuffer ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return buffer.capacity() >= bytes ? buffer : ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return vector.clone();
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+}
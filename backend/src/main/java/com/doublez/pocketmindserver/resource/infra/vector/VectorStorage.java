@@ -0,0 +1,98 @@
+package com.doublez.pocketmindserver.resource.infra.vector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 堆外的定长 float 向量数组，按节点序号寻址。
+ *
+ * 从快照恢复时，快照里的向量段直接作为只读的内存映射页，不复制进内存；之后新增的向量写入按需分配的直接内存页，
+ * 每页固定 256 条，页号和页内位置由移位与掩码得出，查询热路径上没有查找。读写并发由调用方的读写锁保证。
+ */
+final class VectorStorage {
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_VECTORS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_VECTORS - 1;
+
+    private final int dimensions;
+    private final ThreadLocal<float[]> scratch;
+    private final FloatBuffer base;
+    private final int baseCount;
+    private final List<FloatBuffer> pages = new ArrayList<>();
+    private int size;
+
+    VectorStorage(int dimensions) {
+        this(dimensions, null, 0);
+    }
+
+    /**
+     * @param base 快照中的向量段，按节点序号连续存放 baseCount 条
+     */
+    VectorStorage(int dimensions, FloatBuffer base, int baseCount) {
+        this.dimensions = dimensions;
+        this.scratch = ThreadLocal.withInitial(() -> new float[dimensions]);
+        this.base = base;
+        this.baseCount = baseCount;
+        this.size = baseCount;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int add(float[] vector) {
+        int local = size - baseCount;
+        if ((local & PAGE_MASK) == 0) {
+            pages.add(ByteBuffer.allocateDirect(PAGE_VECTORS * dimensions * Float.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer());
+        }
+        pages.get(local >>> PAGE_SHIFT).put(vector, 0, dimensions);
+        return size++;
+    }
+
+    /**
+     * 先整段批量复制到线程本地数组再计算：批量 get 走内存拷贝，比逐个元素读缓冲区快一个数量级
+     */
+    float dot(int node, float[] query) {
+        float[] vector = scratch.get();
+        bufferOf(node).get(offsetOf(node), vector, 0, dimensions);
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dimensions; i += 4) {
+            s0 += vector[i] * query[i];
+            s1 += vector[i + 1] * query[i + 1];
+            s2 += vector[i + 2] * query[i + 2];
+            s3 += vector[i + 3] * query[i + 3];
+        }
+        for (; i < dimensions; i++) {
+            s0 += vector[i] * query[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    float[] get(int node) {
+        float[] vector = new float[dimensions];
+        bufferOf(node).get(offsetOf(node), vector, 0, dimensions);
+        return vector;
+    }
+
+    private FloatBuffer bufferOf(int node) {
+        return node < baseCount ? base : pages.get((node - baseCount) >>> PAGE_SHIFT);
+    }
+
+    private int offsetOf(int node) {
+        if (node < baseCount) {
+            return node * dimensions;
+        }
+        return ((node - baseCount) & PAGE_MASK) * dimensions;
+    }
+}
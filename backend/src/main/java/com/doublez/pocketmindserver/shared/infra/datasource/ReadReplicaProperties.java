@@ -0,0 +1,40 @@
+package com.doublez.pocketmindserver.shared.infra.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 读写分离配置。开启后 @Transactional(readOnly = true) 的查询路由到只读副本，其余仍走 spring.datasource 主库。
+ *
+ * @param enabled            是否开启路由
+ * @param replicas           只读副本，可以是流复制备库，本地也可以直接指向主库
+ * @param maxLag             复制延迟超过该值的副本暂停使用
+ * @param lagCheckInterval   复制延迟探测间隔
+ * @param readYourWritesWindow 用户发生写事务后，该时长内其读请求仍走主库
+ */
+@ConfigurationProperties(prefix = "pocketmind.datasource.routing")
+public record ReadReplicaProperties(
+        Boolean enabled,
+        List<Replica> replicas,
+        Duration maxLag,
+        Duration lagCheckInterval,
+        Duration readYourWritesWindow
+) {
+
+    public ReadReplicaProperties {
+        enabled = enabled != null && enabled;
+        replicas = replicas == null ? List.of() : replicas;
+        maxLag = maxLag == null ? Duration.ofSeconds(5) : maxLag;
+        lagCheckInterval = lagCheckInterval == null ? Duration.ofSeconds(5) : lagCheckInterval;
+        readYourWritesWindow = readYourWritesWindow == null ? Duration.ofSeconds(10) : readYourWritesWindow;
+    }
+
+    public record Replica(String name, String url, String username, String password, Integer maximumPoolSize) {
+
+        public Replica {
+            maximumPoolSize = maximumPoolSize == null ? 10 : maximumPoolSize;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.doublez.pocketmindserver.shared.infra.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读写分离数据源（pocketmind.datasource.routing.enabled=true 时生效，否则沿用 Spring Boot 默认单数据源）。
+ *
+ * 主库沿用 spring.datasource / spring.datasource.hikari；副本按 ReadReplicaProperties 逐个建连接池（{@link ReplicaPools}，随上下文关闭）。
+ * 指标：datasource.replica.lag{replica}（秒，探测失败为 NaN）。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "pocketmind.datasource.routing", name = "enabled", havingValue = "true")
+public class ReadWriteDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService replicaLagProbe() {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-lag-probe");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Bean(destroyMethod = "close")
+    ReplicaPools replicaPools(ReadReplicaProperties properties, DataSourceProperties dataSourceProperties) {
+        return new ReplicaPools(properties, dataSourceProperties.getDriverClassName());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 ReplicaPools replicaPools,
+                                 ReadReplicaProperties properties,
+                                 ScheduledExecutorService replicaLagProbe,
+                                 MeterRegistry meterRegistry) {
+        List<ReplicaHealth> replicas = new ArrayList<>();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primaryDataSource);
+        replicaPools.pools().forEach((name, pool) -> {
+            ReplicaHealth health = new ReplicaHealth(name, pool, properties.maxLag());
+            replicas.add(health);
+            targets.put(name, pool);
+            Gauge.builder("datasource.replica.lag", health, ReplicaHealth::lagSeconds)
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            long interval = properties.lagCheckInterval().toMillis();
+            replicaLagProbe.scheduleWithFixedDelay(health::probe, 0, interval, TimeUnit.MILLISECONDS);
+        });
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicas, properties);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
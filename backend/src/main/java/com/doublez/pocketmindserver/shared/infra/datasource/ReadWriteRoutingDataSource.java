@@ -0,0 +1,57 @@
+package com.doublez.pocketmindserver.shared.infra.datasource;
+
+import com.doublez.pocketmindserver.shared.security.UserContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按事务只读标记路由：只读事务轮询选择健康副本，其余走主库。
+ *
+ * 需要包在 LazyConnectionDataSourceProxy 里，让真正取连接发生在事务只读标记设置之后。
+ * 当前用户刚发生过写事务时，读窗口内仍走主库（本实例内记录），保证提交后立刻查询能读到自己的写入。
+ * 用户取自 {@link UserContext}，只在请求线程上有值；MVC 异步线程、MQ 消费者等线程上的只读事务需要调用方先设置，
+ * 否则按无用户处理，直接走副本。
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final List<ReplicaHealth> replicas;
+    private final Cache<String, Boolean> recentWriters;
+    private final AtomicInteger next = new AtomicInteger();
+
+    ReadWriteRoutingDataSource(List<ReplicaHealth> replicas, ReadReplicaProperties properties) {
+        this.replicas = replicas;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(properties.readYourWritesWindow())
+                .build();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String userId = UserContext.getUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (userId != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                recentWriters.put(userId, Boolean.TRUE);
+            }
+            return PRIMARY;
+        }
+        if (userId != null && recentWriters.getIfPresent(userId) != null) {
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            ReplicaHealth replica = replicas.get((start + i) % size);
+            if (replica.isHealthy()) {
+                return replica.name();
+            }
+        }
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,73 @@
+package com.doublez.pocketmindserver.shared.infra.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * 副本复制延迟探测。WAL 已全部回放时延迟记为 0，避免主库空闲时 replay 时间戳变旧被误判为落后；
+ * 指向主库（pg_last_wal_receive_lsn 为 NULL）时同样为 0。探测失败视为不健康。
+ */
+@Slf4j
+class ReplicaHealth {
+
+    private static final String LAG_SQL = """
+            SELECT CASE
+                       WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM (NOW() - pg_last_xact_replay_timestamp())), 0)
+                   END
+            """;
+
+    private final String name;
+    private final DataSource dataSource;
+    private final Duration maxLag;
+
+    private volatile double lagSeconds = Double.NaN;
+    private volatile boolean healthy;
+
+    ReplicaHealth(String name, DataSource dataSource, Duration maxLag) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.maxLag = maxLag;
+    }
+
+    void probe() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_SQL)) {
+            rs.next();
+            lagSeconds = rs.getDouble(1);
+            boolean nowHealthy = lagSeconds * 1000 <= maxLag.toMillis();
+            if (nowHealthy != healthy) {
+                log.info("Replica {} is now {} (lag {}s)", name, nowHealthy ? "in use" : "skipped", lagSeconds);
+            }
+            healthy = nowHealthy;
+        } catch (Exception e) {
+            if (healthy) {
+                log.warn("Replica {} probe failed, falling back to primary: {}", name, e.getMessage());
+            }
+            lagSeconds = Double.NaN;
+            healthy = false;
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    boolean isHealthy() {
+        return healthy;
+    }
+
+    double lagSeconds() {
+        return lagSeconds;
+    }
+}
@@ -0,0 +1,45 @@
+package com.doublez.pocketmindserver.shared.infra.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 各副本的只读连接池，按副本名索引。作为独立 Bean 注册，上下文关闭或刷新时统一关闭
+ */
+class ReplicaPools implements AutoCloseable {
+
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+
+    ReplicaPools(ReadReplicaProperties properties, String driverClassName) {
+        try {
+            for (int i = 0; i < properties.replicas().size(); i++) {
+                ReadReplicaProperties.Replica replica = properties.replicas().get(i);
+                String name = replica.name() != null ? replica.name() : "replica-" + i;
+                HikariDataSource pool = new HikariDataSource();
+                pool.setPoolName(name);
+                pool.setJdbcUrl(replica.url());
+                pool.setUsername(replica.username());
+                pool.setPassword(replica.password());
+                pool.setDriverClassName(driverClassName);
+                pool.setMaximumPoolSize(replica.maximumPoolSize());
+                pool.setReadOnly(true);
+                pools.put(name, pool);
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    Map<String, HikariDataSource> pools() {
+        return Collections.unmodifiableMap(pools);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -1,6 +1,8 @@
 package com.doublez.pocketmindserver.shared.infra.mybatis;
 
 import com.baomidou.mybatisplus.autoconfigure.ConfigurationCustomizer;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.OptimisticLockerInnerInterceptor;
 import com.doublez.pocketmindserver.shared.infra.mybatis.UuidTypeHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,4 +19,14 @@ public class MybatisPlusConfig {
             configuration.getTypeHandlerRegistry().register(UUID.class, UuidTypeHandler.class);
         };
     }
+
+    /**
+     * 带 @Version 字段的实体在 updateById 时自动追加版本条件并自增
+     */
+    @Bean
+    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(new OptimisticLockerInnerInterceptor());
+        return interceptor;
+    }
 }
@@ -0,0 +1,34 @@
+package com.doublez.pocketmindserver.shared.infra.outbox;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待投递的 MQ 消息。eventType 为载荷的 Java 类型名，投递时写入 __TypeId__ 头，与 RabbitTemplate 直接发送时一致。
+ */
+@Data
+@TableName("outbox_event")
+public class OutboxEvent {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private String eventType;
+
+    private String exchange;
+
+    private String routingKey;
+
+    /** JSON 文本，库内为 JSONB */
+    private String payload;
+
+    private Integer attempts;
+
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime createdAt;
+}
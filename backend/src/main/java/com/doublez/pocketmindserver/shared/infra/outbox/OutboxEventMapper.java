@@ -0,0 +1,58 @@
+package com.doublez.pocketmindserver.shared.infra.outbox;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+@Mapper
+public interface OutboxEventMapper extends BaseMapper<OutboxEvent> {
+
+    @Insert("""
+            <script>
+            INSERT INTO outbox_event (event_type, exchange, routing_key, payload)
+            VALUES
+            <foreach collection="events" item="e" separator=",">
+                (#{e.eventType}, #{e.exchange}, #{e.routingKey}, CAST(#{e.payload} AS JSONB))
+            </foreach>
+            </script>
+            """)
+    int insertBatch(@Param("events") List<OutboxEvent> events);
+
+    /**
+     * 锁住一批到期事件；SKIP LOCKED 让多个 relay 实例各取不同的行，互不阻塞
+     */
+    @Select("""
+            SELECT id, event_type, exchange, routing_key, payload::text AS payload, attempts, next_attempt_at, created_at
+            FROM outbox_event
+            WHERE next_attempt_at <= NOW()
+            ORDER BY id
+            LIMIT #{limit}
+            FOR UPDATE SKIP LOCKED
+            """)
+    List<OutboxEvent> lockDue(@Param("limit") int limit);
+
+    @Delete("""
+            <script>
+            DELETE FROM outbox_event WHERE id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    @Update("""
+            <script>
+            UPDATE outbox_event
+            SET attempts = attempts + 1,
+                next_attempt_at = NOW() + make_interval(secs => LEAST(#{maxBackoffSeconds}, POWER(2, attempts)))
+            WHERE id IN
+            <foreach collection="ids" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    int postpone(@Param("ids") List<Long> ids, @Param("maxBackoffSeconds") long maxBackoffSeconds);
+}
@@ -0,0 +1,100 @@
+package com.doublez.pocketmindserver.shared.infra.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * outbox 投递：每轮在一个事务内用 FOR UPDATE SKIP LOCKED 锁一批到期事件，
+ * 同一 channel 上整批发布并等待 broker 确认，确认后删除；发布失败则整批按指数退避推迟。
+ * 多实例并行时各自拿到不同的行；投递语义为至少一次，消费端需幂等。
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final String TYPE_ID_HEADER = "__TypeId__";
+
+    private final OutboxEventMapper mapper;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long confirmTimeoutMillis;
+    private final long maxBackoffSeconds;
+    private final Counter published;
+    private final Counter failed;
+
+    public OutboxRelay(
+            OutboxEventMapper mapper,
+            RabbitTemplate rabbitTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${pocketmind.outbox.batch-size:200}") int batchSize,
+            @Value("${pocketmind.crawler.publish-confirm-timeout-ms:5000}") long confirmTimeoutMillis,
+            @Value("${pocketmind.outbox.max-backoff-seconds:300}") long maxBackoffSeconds
+    ) {
+        this.mapper = mapper;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMillis = confirmTimeoutMillis;
+        this.maxBackoffSeconds = maxBackoffSeconds;
+        this.published = Counter.builder("outbox.relay.events").tag("result", "published").register(meterRegistry);
+        this.failed = Counter.builder("outbox.relay.events").tag("result", "failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${pocketmind.outbox.poll-interval-ms:200}")
+    public void drain() {
+        // 满批说明可能还有积压，继续下一批
+        boolean more;
+        do {
+            more = Boolean.TRUE.equals(transactionTemplate.execute(status -> relayBatch()));
+        } while (more);
+    }
+
+    private boolean relayBatch() {
+        List<OutboxEvent> events = mapper.lockDue(batchSize);
+        if (events.isEmpty()) {
+            return false;
+        }
+        List<Long> ids = events.stream().map(OutboxEvent::getId).toList();
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (OutboxEvent event : events) {
+                    operations.send(event.getExchange(), event.getRoutingKey(), toMessage(event));
+                }
+                operations.waitForConfirmsOrDie(confirmTimeoutMillis);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed for {} events, postponing: {}", events.size(), e.getMessage());
+            mapper.postpone(ids, maxBackoffSeconds);
+            failed.increment(events.size());
+            return false;
+        }
+        mapper.deleteByIds(ids);
+        published.increment(events.size());
+        return events.size() == batchSize;
+    }
+
+    private static Message toMessage(OutboxEvent event) {
+        return MessageBuilder.withBody(event.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setHeader(TYPE_ID_HEADER, event.getEventType())
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.doublez.pocketmindserver.shared.infra.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 把待发消息写入 outbox 表，必须在业务事务内调用，随业务数据一起提交或回滚；实际投递由 {@link OutboxRelay} 完成。
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private final OutboxEventMapper mapper;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String exchange, String routingKey, List<?> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        List<OutboxEvent> events = payloads.stream()
+                .map(payload -> {
+                    OutboxEvent event = new OutboxEvent();
+                    event.setEventType(payload.getClass().getName());
+                    event.setExchange(exchange);
+                    event.setRoutingKey(routingKey);
+                    event.setPayload(toJson(payload));
+                    return event;
+                })
+                .toList();
+        mapper.insertBatch(events);
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("outbox 载荷无法序列化: " + payload.getClass().getName(), e);
+        }
+    }
+}
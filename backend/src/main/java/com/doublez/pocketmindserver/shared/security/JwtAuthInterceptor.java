@@ -4,10 +4,10 @@ import com.doublez.pocketmindserver.shared.web.UnauthorizedException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 
 @Component
-public class JwtAuthInterceptor implements HandlerInterceptor {
+public class JwtAuthInterceptor implements AsyncHandlerInterceptor {
 
     private static final String AUTH_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
@@ -39,4 +39,12 @@ public class JwtAuthInterceptor implements HandlerInterceptor {
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
         UserContext.clear();
     }
+
+    /**
+     * 异步请求（如 SSE）在初次分发结束时不会触发 afterCompletion，这里同样需要清理
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        UserContext.clear();
+    }
 }
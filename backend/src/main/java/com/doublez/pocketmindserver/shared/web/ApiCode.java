@@ -15,6 +15,8 @@ public enum ApiCode {
 
     AUTH_REGISTER_FAILED(500101, "注册失败"),
     RESOURCE_NOT_FOUND(404001, "资源不存在或处理失败"),
+    RESOURCE_STREAM_LIMIT(429001, "状态订阅连接数过多"),
+    RESOURCE_EXPORT_BUSY(429002, "导出任务过多，请稍后再试"),
     INTERNAL_ERROR(500000, "服务器内部错误");
 
     private final int code;
@@ -0,0 +1,154 @@
+-- 将已有数据的 resource_metadata 迁移为按 user_id 哈希分区的表。
+-- 新库由 schema-pg.sql 直接创建分区表，不需要执行本脚本；旧库需先以当前版本启动一次，建出 resource_document 与 document_id 列。
+-- resource_embeddings 已改为按共享文档存放、不再分区，不在本脚本范围内。
+--
+-- 用法：psql -v ON_ERROR_STOP=1 -d pocketmind -f partition-resource-tables.sql
+--   步骤 1~3 在线执行，只读旧表，按 id 游标分批复制并逐批提交，不长时间持锁；
+--   步骤 4 前停掉应用（或暂停写入），补齐复制期间的变更后在一个事务里切换表名；
+--   步骤 5 确认无误后手动执行。
+-- 分区数 16 与 schema-pg.sql 保持一致，分区表名也相同，应用启动时的建表语句会跳过已存在的分区。
+
+\set ON_ERROR_STOP on
+
+-- 1. 新建分区表（临时名 *_part，分区直接使用最终名称）
+CREATE TABLE resource_metadata_part (
+    id UUID NOT NULL,
+    user_id VARCHAR(64) NOT NULL,
+    original_url TEXT NOT NULL,
+    url_hash CHAR(64),
+    document_id UUID REFERENCES resource_document(id),
+    title TEXT,
+    content_markdown TEXT,
+    content_preview TEXT,
+    ai_summary TEXT,
+    ai_tags JSONB,
+    process_status VARCHAR(20),
+    version INTEGER NOT NULL DEFAULT 0,
+    lease_until TIMESTAMP,
+    recovery_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT NOW(),
+    updated_at TIMESTAMP DEFAULT NOW(),
+    CONSTRAINT resource_metadata_part_pkey PRIMARY KEY (user_id, id)
+) PARTITION BY HASH (user_id);
+
+DO $$
+DECLARE
+    i INT;
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF resource_metadata_part FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+                       'resource_metadata_p' || lpad(i::text, 2, '0'), i);
+    END LOOP;
+END $$;
+
+-- 2. 分批复制。过程内逐批 COMMIT，需在事务块外 CALL
+CREATE OR REPLACE PROCEDURE pocketmind_copy_resources(batch_size INT)
+LANGUAGE plpgsql AS $$
+DECLARE
+    cursor_id UUID := '00000000-0000-0000-0000-000000000000';
+    copied INT;
+BEGIN
+    LOOP
+        WITH batch AS (
+            SELECT id, user_id, original_url, url_hash, document_id, title, content_markdown, content_preview, ai_summary, ai_tags,
+                   process_status, version, lease_until, recovery_count, created_at, updated_at
+            FROM resource_metadata
+            WHERE id > cursor_id
+            ORDER BY id
+            LIMIT batch_size
+        ), inserted AS (
+            INSERT INTO resource_metadata_part (id, user_id, original_url, url_hash, document_id, title, content_markdown, content_preview,
+                                                ai_summary, ai_tags, process_status, version, lease_until, recovery_count,
+                                                created_at, updated_at)
+            SELECT * FROM batch
+            ON CONFLICT (user_id, id) DO NOTHING
+        )
+        SELECT max(id::text)::uuid, count(*) INTO cursor_id, copied FROM batch;
+        EXIT WHEN copied = 0;
+        COMMIT;
+        RAISE NOTICE 'resource_metadata copied up to %', cursor_id;
+    END LOOP;
+
+END $$;
+
+SELECT NOW() AS copy_started_at \gset
+CALL pocketmind_copy_resources(5000);
+
+-- 3. 复制完成后再建二级索引，比边写边维护快得多
+CREATE INDEX idx_library_user_updated_part
+    ON resource_metadata_part(user_id, updated_at DESC, id DESC) INCLUDE (document_id);
+CREATE INDEX idx_resource_document_part ON resource_metadata_part(document_id);
+CREATE INDEX idx_resource_unlinked_part ON resource_metadata_part(url_hash) WHERE document_id IS NULL;
+CREATE UNIQUE INDEX uk_resource_user_url_hash_part ON resource_metadata_part(user_id, url_hash);
+
+-- 4. 停写窗口：补齐复制开始后的新增 / 修改 / 删除，切换表名
+\prompt 'Stop the application, then press enter to switch tables ' confirm
+
+BEGIN;
+
+LOCK TABLE resource_metadata, chat_sessions IN ACCESS EXCLUSIVE MODE;
+
+INSERT INTO resource_metadata_part (id, user_id, original_url, url_hash, document_id, title, content_markdown, content_preview,
+                                    ai_summary, ai_tags, process_status, version, lease_until, recovery_count, created_at, updated_at)
+SELECT id, user_id, original_url, url_hash, document_id, title, content_markdown, content_preview, ai_summary, ai_tags,
+       process_status, version, lease_until, recovery_count, created_at, updated_at
+FROM resource_metadata
+WHERE updated_at >= :'copy_started_at' OR created_at >= :'copy_started_at'
+ON CONFLICT (user_id, id) DO UPDATE
+    SET url_hash = EXCLUDED.url_hash,
+        document_id = EXCLUDED.document_id,
+        title = EXCLUDED.title,
+        content_markdown = EXCLUDED.content_markdown,
+        content_preview = EXCLUDED.content_preview,
+        ai_summary = EXCLUDED.ai_summary,
+        ai_tags = EXCLUDED.ai_tags,
+        process_status = EXCLUDED.process_status,
+        version = EXCLUDED.version,
+        lease_until = EXCLUDED.lease_until,
+        recovery_count = EXCLUDED.recovery_count,
+        updated_at = EXCLUDED.updated_at;
+
+DELETE FROM resource_metadata_part p
+WHERE NOT EXISTS (SELECT 1 FROM resource_metadata m WHERE m.id = p.id);
+
+-- 旧表及其索引、约束改名保留，便于回滚；外键改为带分区键的复合外键
+ALTER TABLE chat_sessions DROP CONSTRAINT IF EXISTS chat_sessions_resource_id_fkey;
+
+DO $$
+DECLARE
+    r RECORD;
+BEGIN
+    FOR r IN
+        SELECT c.relname AS index_name
+        FROM pg_index i
+        JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE i.indrelid = 'resource_metadata'::regclass
+          AND NOT EXISTS (SELECT 1 FROM pg_constraint k WHERE k.conindid = i.indexrelid)
+    LOOP
+        EXECUTE format('ALTER INDEX %I RENAME TO %I', r.index_name, r.index_name || '_legacy');
+    END LOOP;
+END $$;
+
+ALTER TABLE resource_metadata RENAME CONSTRAINT resource_metadata_pkey TO resource_metadata_legacy_pkey;
+ALTER TABLE resource_metadata RENAME TO resource_metadata_legacy;
+
+ALTER TABLE resource_metadata_part RENAME TO resource_metadata;
+ALTER TABLE resource_metadata RENAME CONSTRAINT resource_metadata_part_pkey TO resource_metadata_pkey;
+ALTER INDEX idx_library_user_updated_part RENAME TO idx_library_user_updated;
+ALTER INDEX idx_resource_document_part RENAME TO idx_resource_document;
+ALTER INDEX idx_resource_unlinked_part RENAME TO idx_resource_unlinked;
+ALTER INDEX uk_resource_user_url_hash_part RENAME TO uk_resource_user_url_hash;
+-- 会话的 user_id 与资源归属不一致时（分区前资源可跨用户复用）校验会失败，先用以下查询核对：
+-- SELECT s.id FROM chat_sessions s LEFT JOIN resource_metadata m ON m.user_id = s.user_id AND m.id = s.resource_id WHERE m.id IS NULL;
+ALTER TABLE chat_sessions
+    ADD CONSTRAINT chat_sessions_user_id_resource_id_fkey
+    FOREIGN KEY (user_id, resource_id) REFERENCES resource_metadata(user_id, id) ON DELETE CASCADE NOT VALID;
+
+COMMIT;
+
+ALTER TABLE chat_sessions VALIDATE CONSTRAINT chat_sessions_user_id_resource_id_fkey;
+ANALYZE resource_metadata;
+DROP PROCEDURE pocketmind_copy_resources(INT);
+
+-- 5. 应用验证无误后清理旧表：
+-- DROP TABLE resource_metadata_legacy;
@@ -1,48 +1,193 @@
 -- Enable pgvector extension
 CREATE EXTENSION IF NOT EXISTS vector;
 
--- 1. Resource Metadata Table
--- Stores the original content and metadata of the crawled resource.
-CREATE TABLE IF NOT EXISTS resource_metadata (
-    id UUID PRIMARY KEY, -- UUIDv7 is recommended for application layer generation
-    user_id VARCHAR(64) NOT NULL, -- Multi-tenant isolation
-    original_url TEXT NOT NULL,
+-- 1. Resource Document Table
+-- One row per canonical URL, shared by every user who saves it: crawl result, summary, processing status and lease
+-- live here, so a popular link is crawled, stored, embedded and summarized once. Bodies are in resource_document_content.
+CREATE TABLE IF NOT EXISTS resource_document (
+    id UUID PRIMARY KEY,
+    url_hash CHAR(64) NOT NULL, -- SHA-256 hex of the canonicalized URL (see UrlCanonicalizer), global dedup key
+    original_url TEXT NOT NULL, -- URL as first submitted (or resubmitted after a failure), used for crawling
     title TEXT,
-    content_markdown TEXT, -- Content fetched by Jina
+    content_preview TEXT, -- Leading characters of the content for status polling
     ai_summary TEXT, -- Summary generated by AI
     ai_tags JSONB, -- Tags generated by AI
-    process_status VARCHAR(20) DEFAULT 'PENDING', -- PENDING, CRAWLED, EMBEDDED, FAILED
+    process_status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- PENDING, CRAWLED, EMBEDDING, EMBEDDED, ANALYZING, ANALYZED, FAILED
+    version INTEGER NOT NULL DEFAULT 0, -- Optimistic lock, bumped on every conditional update
+    lease_until TIMESTAMP, -- Lease of in-flight statuses (PENDING / EMBEDDING / ANALYZING), NULL once terminal
+    recovery_count INTEGER NOT NULL DEFAULT 0, -- Times the row was reclaimed by ResourceRecoveryService
     created_at TIMESTAMP DEFAULT NOW(),
     updated_at TIMESTAMP DEFAULT NOW()
 );
 
-CREATE INDEX IF NOT EXISTS idx_resource_user_id ON resource_metadata(user_id);
-CREATE INDEX IF NOT EXISTS idx_resource_url ON resource_metadata(original_url);
+-- submit's INSERT ... ON CONFLICT and every URL lookup go through the fixed-width hash
+CREATE UNIQUE INDEX IF NOT EXISTS uk_document_url_hash ON resource_document(url_hash);
+-- Stuck-job reaper: only in-flight rows are indexed, terminal rows (the vast majority) cost nothing
+CREATE INDEX IF NOT EXISTS idx_document_lease
+    ON resource_document(lease_until NULLS FIRST) WHERE process_status IN ('PENDING', 'EMBEDDING', 'ANALYZING');
+-- Keyword side of hybrid search. 'simple' only lowercases and splits on non-letters: no stemming, no CJK segmentation
+ALTER TABLE resource_document ADD COLUMN IF NOT EXISTS title_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(title, ''))) STORED;
+CREATE INDEX IF NOT EXISTS idx_document_title_tsv ON resource_document USING gin (title_tsv);
+
+-- 1.1 Resource Metadata Table (library entries)
+-- One row per (user, canonical URL) pointing at the shared document; its id is the resource uuid seen by clients.
+-- Hash-partitioned by user_id (16 partitions, see the DO block below); every unique key therefore includes user_id.
+-- Only library entries are partitioned: crawl dedup across users stays global on uk_document_url_hash.
+-- Databases created before partitioning keep a plain table until migrated with db/partition-resource-tables.sql.
+-- title .. recovery_count predate the document split: rows created since leave them NULL / default, and
+-- LibraryDocumentBackfillRunner reads them once to build documents for legacy rows.
+CREATE TABLE IF NOT EXISTS resource_metadata (
+    id UUID NOT NULL, -- UUIDv7 is recommended for application layer generation
+    user_id VARCHAR(64) NOT NULL, -- Multi-tenant isolation, partition key
+    original_url TEXT NOT NULL, -- URL as submitted by this user
+    url_hash CHAR(64), -- Same key as resource_document.url_hash, per-user dedup key
+    document_id UUID REFERENCES resource_document(id), -- NULL only for legacy rows not migrated yet
+    title TEXT,
+    content_markdown TEXT,
+    content_preview TEXT,
+    ai_summary TEXT,
+    ai_tags JSONB,
+    process_status VARCHAR(20),
+    version INTEGER NOT NULL DEFAULT 0,
+    lease_until TIMESTAMP,
+    recovery_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT NOW(),
+    updated_at TIMESTAMP DEFAULT NOW(), -- Save time, library listing order
+    PRIMARY KEY (user_id, id)
+) PARTITION BY HASH (user_id);
+
+-- Upgrade path for existing databases; legacy rows are backfilled by UrlHashBackfillRunner / LibraryDocumentBackfillRunner
+ALTER TABLE resource_metadata ADD COLUMN IF NOT EXISTS url_hash CHAR(64);
+ALTER TABLE resource_metadata ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE resource_metadata ADD COLUMN IF NOT EXISTS lease_until TIMESTAMP;
+ALTER TABLE resource_metadata ADD COLUMN IF NOT EXISTS recovery_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE resource_metadata ADD COLUMN IF NOT EXISTS content_preview TEXT;
+ALTER TABLE resource_metadata ADD COLUMN IF NOT EXISTS document_id UUID REFERENCES resource_document(id);
+ALTER TABLE resource_metadata ALTER COLUMN process_status DROP DEFAULT;
+
+-- Library listing: keyset pagination on (user_id, updated_at, id); document_id is carried in the index for the
+-- join to resource_document. Supersedes idx_resource_user_updated (status moved to the document).
+CREATE INDEX IF NOT EXISTS idx_library_user_updated
+    ON resource_metadata(user_id, updated_at DESC, id DESC) INCLUDE (document_id);
+DROP INDEX IF EXISTS idx_resource_user_updated;
+DROP INDEX IF EXISTS idx_resource_user_id;
+-- Leases moved to resource_document
+DROP INDEX IF EXISTS idx_resource_lease;
+-- Status fan-out: every entry that references a document
+CREATE INDEX IF NOT EXISTS idx_resource_document ON resource_metadata(document_id);
+-- Migration cursor of LibraryDocumentBackfillRunner, empty once every legacy row is linked
+CREATE INDEX IF NOT EXISTS idx_resource_unlinked ON resource_metadata(url_hash) WHERE document_id IS NULL;
+-- submit's INSERT ... ON CONFLICT for the per-user entry.
+-- Scoped per user: a unique index on a partitioned table must contain the partition key.
+CREATE UNIQUE INDEX IF NOT EXISTS uk_resource_user_url_hash ON resource_metadata(user_id, url_hash);
+DROP INDEX IF EXISTS uk_resource_url_hash;
+DROP INDEX IF EXISTS idx_resource_url;
+
+-- Transactional outbox: rows are written in the same transaction as the business change and drained by
+-- OutboxRelay (FOR UPDATE SKIP LOCKED, safe with several relay instances). Published rows are deleted.
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(255) NOT NULL, -- Payload Java type, sent as the __TypeId__ header
+    exchange VARCHAR(255) NOT NULL,
+    routing_key VARCHAR(255) NOT NULL,
+    payload JSONB NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    created_at TIMESTAMP DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_next_attempt ON outbox_event(next_attempt_at, id);
 
 -- 2. Resource Embeddings Table
--- Stores vector embeddings for RAG.
+-- Stores vector embeddings for RAG, one set of chunks per shared document.
+-- Not partitioned by user: a document embedded once serves every library that links it, so a per-user copy would
+-- multiply rows and HNSW graphs by the number of savers. Searches are scoped to one user through the library join
+-- (resource_metadata partition pruning + hnsw.iterative_scan, exact scan for small libraries, see
+-- ResourceSearchMapper) or through the per-user in-process index (LocalVectorIndex).
+-- Earlier releases keyed chunks by the per-user resource; nothing wrote to that layout, so an empty legacy table is
+-- dropped here and recreated below. A non-empty one is left alone and has to be converted by hand.
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = ''resource_embeddings'' AND column_name = ''resource_id'') THEN
+        IF NOT EXISTS (SELECT 1 FROM resource_embeddings) THEN
+            DROP TABLE resource_embeddings;
+        ELSE
+            RAISE WARNING ''resource_embeddings still uses the per-user layout and is not empty'';
+        END IF;
+    END IF;
+END';
+
 CREATE TABLE IF NOT EXISTS resource_embeddings (
     id UUID PRIMARY KEY,
-    resource_id UUID NOT NULL REFERENCES resource_metadata(id) ON DELETE CASCADE,
+    document_id UUID NOT NULL REFERENCES resource_document(id) ON DELETE CASCADE,
     segment_content TEXT, -- The text chunk
     embedding vector(1536), -- OpenAI/DashScope compatible dimension
     metadata JSONB, -- Extra info like page number, chunk index
     created_at TIMESTAMP DEFAULT NOW()
 );
 
-CREATE INDEX IF NOT EXISTS idx_embedding_resource_id ON resource_embeddings(resource_id);
--- HNSW index for fast similarity search
+CREATE INDEX IF NOT EXISTS idx_embedding_document ON resource_embeddings(document_id);
+-- HNSW index for fast similarity search over all documents; per-user filtering happens during the scan
 CREATE INDEX IF NOT EXISTS idx_embedding_vector ON resource_embeddings USING hnsw (embedding vector_cosine_ops);
+-- Full-text over the same chunks the vectors come from, so keyword hits and highlighted snippets share chunk boundaries
+ALTER TABLE resource_embeddings ADD COLUMN IF NOT EXISTS content_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(segment_content, ''))) STORED;
+CREATE INDEX IF NOT EXISTS idx_embedding_content_tsv ON resource_embeddings USING gin (content_tsv);
+
+-- 2.2 Embedding Cache
+-- Content-addressed vectors keyed by SHA-256(model id, normalized chunk text), see EmbeddingKey. The embedding stage
+-- looks chunks up here before calling the model; resource_embeddings rows keep a soft reference in embedding_key and
+-- their own copy of the vector for the HNSW index. Unreferenced rows are removed by EmbeddingCacheGcService.
+CREATE TABLE IF NOT EXISTS embedding_cache (
+    cache_key CHAR(64) PRIMARY KEY,
+    embedding vector(1536) NOT NULL,
+    created_at TIMESTAMP DEFAULT NOW()
+);
+
+ALTER TABLE resource_embeddings ADD COLUMN IF NOT EXISTS embedding_key CHAR(64);
+-- Reference check of the cache GC
+CREATE INDEX IF NOT EXISTS idx_embedding_key ON resource_embeddings(embedding_key);
+
+-- 2.1 Resource Document Content Table
+-- Article bodies live apart from resource_document so status / listing rows stay narrow. Bodies are compressed in
+-- the application (see ContentCodec), the column is stored out of line without a second round of TOAST compression,
+-- so a ranged SUBSTRING over body reads only the TOAST chunks it covers.
+CREATE TABLE IF NOT EXISTS resource_document_content (
+    document_id UUID PRIMARY KEY REFERENCES resource_document(id) ON DELETE CASCADE,
+    codec VARCHAR(16) NOT NULL, -- NONE, DEFLATE (legacy single stream), DEFLATE_BLOCKS
+    body BYTEA NOT NULL,
+    char_length INTEGER NOT NULL, -- Length of the decoded content in characters
+    updated_at TIMESTAMP DEFAULT NOW()
+);
+
+ALTER TABLE resource_document_content ALTER COLUMN body SET STORAGE EXTERNAL;
+
+-- Hash partitions of resource_metadata for freshly created databases; no-op for a legacy plain table. Single-quoted
+-- body so the statement splitter of spring.sql.init does not cut it at the inner semicolons.
+DO '
+DECLARE
+    i INT;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = ''resource_metadata''::regclass) = ''p'' THEN
+        FOR i IN 0..15 LOOP
+            EXECUTE format(''CREATE TABLE IF NOT EXISTS %I PARTITION OF resource_metadata FOR VALUES WITH (MODULUS 16, REMAINDER %s)'',
+                           ''resource_metadata_p'' || lpad(i::text, 2, ''0''), i);
+        END LOOP;
+    END IF;
+END';
 
 -- 3. Chat Sessions Table
 -- Stores conversation sessions related to a specific resource.
 CREATE TABLE IF NOT EXISTS chat_sessions (
     id UUID PRIMARY KEY,
     user_id VARCHAR(64) NOT NULL,
-    resource_id UUID NOT NULL REFERENCES resource_metadata(id) ON DELETE CASCADE,
+    resource_id UUID NOT NULL,
     topic VARCHAR(255),
     created_at TIMESTAMP DEFAULT NOW(),
-    updated_at TIMESTAMP DEFAULT NOW()
+    updated_at TIMESTAMP DEFAULT NOW(),
+    FOREIGN KEY (user_id, resource_id) REFERENCES resource_metadata(user_id, id) ON DELETE CASCADE
 );
 
 CREATE INDEX IF NOT EXISTS idx_session_user_resource ON chat_sessions(user_id, resource_id);
@@ -0,0 +1,193 @@
+package com.doublez.pocketmindserver.resource.application;
+
+import com.doublez.pocketmindserver.resource.domain.DocumentEmbedding;
+import com.doublez.pocketmindserver.resource.domain.EmbeddingCache;
+import com.doublez.pocketmindserver.resource.domain.EmbeddingRepository;
+import com.doublez.pocketmindserver.resource.domain.EmbeddingRepository.ChunkChanges;
+import com.doublez.pocketmindserver.resource.domain.EmbeddingRepository.StoredChunk;
+import com.doublez.pocketmindserver.resource.domain.Resource;
+import com.doublez.pocketmindserver.resource.domain.ResourceRepository;
+import com.doublez.pocketmindserver.resource.domain.ResourceStatus;
+import com.doublez.pocketmindserver.resource.infra.embedding.HashingEmbeddingModel;
+import com.doublez.pocketmindserver.resource.infra.embedding.MarkdownChunker;
+import com.doublez.pocketmindserver.resource.infra.embedding.ResourceEmbeddingProperties;
+import com.doublez.pocketmindserver.resource.infra.mq.ResourceStatusPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResourceEmbeddingServiceTest {
+
+    private static final int DIMENSIONS = 64;
+    private static final String MARKDOWN = """
+            # Install
+
+            Download the package and run the installer.
+
+            # Usage
+
+            Open the app and paste a link.
+            """;
+
+    private final ResourceRepository resourceRepository = mock(ResourceRepository.class);
+    private final EmbeddingRepository embeddingRepository = mock(EmbeddingRepository.class);
+    private final EmbeddingCache embeddingCache = mock(EmbeddingCache.class);
+    private final ResourceStatusPublisher publisher = mock(ResourceStatusPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<ResourceStatus>> writtenStatuses = new ArrayList<>();
+
+    private ResourceEmbeddingService service;
+
+    @BeforeEach
+    void setUp() {
+        ResourceEmbeddingProperties properties = new ResourceEmbeddingProperties(
+                true, ResourceEmbeddingProperties.Provider.OFFLINE, DIMENSIONS, null, 64, 2, 2, null, null, null, null);
+        service = new ResourceEmbeddingService(resourceRepository, embeddingRepository, embeddingCache,
+                new HashingEmbeddingModel(DIMENSIONS), new MarkdownChunker(properties), publisher,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), properties, meterRegistry);
+        when(resourceRepository.updateAll(any())).thenAnswer(invocation -> {
+            List<Resource> resources = invocation.getArgument(0);
+            writtenStatuses.add(resources.stream().map(Resource::getStatus).toList());
+            return Set.of();
+        });
+        when(embeddingCache.findAll(anyCollection())).thenReturn(Map.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void crawledDocumentMovesThroughEmbeddingToEmbeddedWithItsChunks() {
+        Resource document = crawled(MARKDOWN);
+        when(resourceRepository.findByIds(List.of(document.getId()))).thenReturn(List.of(document));
+
+        service.embedDocuments(List.of(document.getId(), document.getId()));
+
+        assertThat(writtenStatuses).containsExactly(List.of(ResourceStatus.EMBEDDING), List.of(ResourceStatus.EMBEDDED));
+        assertThat(document.getStatus()).isEqualTo(ResourceStatus.EMBEDDED);
+        verify(publisher).publish(document);
+
+        ChunkChanges changes = captureChanges();
+        assertThat(changes.moved()).isEmpty();
+        assertThat(changes.removed()).isEmpty();
+        assertThat(changes.added()).hasSize(2).allSatisfy(row -> {
+            assertThat(row.documentId()).isEqualTo(document.getId());
+            assertThat(row.vector()).hasSize(DIMENSIONS);
+            assertThat(row.embeddingKey()).hasSize(64);
+            assertThat(row.tokens()).isPositive();
+        });
+        assertThat(changes.added()).extracting(DocumentEmbedding::chunkIndex).containsExactly(0, 1);
+        assertThat(changes.added()).extracting(DocumentEmbedding::headingPath).containsExactly("Install", "Usage");
+        verify(embeddingCache).saveAll(anyMap());
+        assertThat(meterRegistry.counter("resource.embedding.chunks").count()).isEqualTo(2);
+    }
+
+    @Test
+    void documentsNotInCrawledAreSkipped() {
+        Resource document = Resource.rehydrate(UUID.randomUUID(), "https://example.com/a", null, "A",
+                () -> MARKDOWN, null, ResourceStatus.EMBEDDED, 3);
+        when(resourceRepository.findByIds(List.of(document.getId()))).thenReturn(List.of(document));
+
+        service.embedDocuments(List.of(document.getId()));
+
+        verify(resourceRepository, never()).updateAll(any());
+        verify(embeddingRepository, never()).applyChanges(any());
+        verify(publisher, never()).publish(any());
+    }
+
+    @Test
+    void cachedVectorsAreReusedWithoutCallingTheModel() {
+        Resource first = crawled(MARKDOWN);
+        when(resourceRepository.findByIds(List.of(first.getId()))).thenReturn(List.of(first));
+        service.embedDocuments(List.of(first.getId()));
+        Map<String, float[]> cached = new HashMap<>();
+        captureChanges().added().forEach(row -> cached.put(row.embeddingKey(), row.vector()));
+
+        Resource second = crawled(MARKDOWN);
+        when(resourceRepository.findByIds(List.of(second.getId()))).thenReturn(List.of(second));
+        when(embeddingCache.findAll(anyCollection())).thenReturn(cached);
+        service.embedDocuments(List.of(second.getId()));
+
+        assertThat(second.getStatus()).isEqualTo(ResourceStatus.EMBEDDED);
+        assertThat(meterRegistry.counter("resource.embedding.chunks").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("resource.embedding.cache", "result", "hit").count()).isEqualTo(2);
+    }
+
+    @Test
+    void recrawlOnlyWritesTheChangedChunk() {
+        Resource document = crawled(MARKDOWN);
+        when(resourceRepository.findByIds(List.of(document.getId()))).thenReturn(List.of(document));
+        service.embedDocuments(List.of(document.getId()));
+        List<DocumentEmbedding> stored = captureChanges().added();
+        UUID usageChunk = stored.get(1).id();
+
+        Resource recrawled = crawled(MARKDOWN.replace("paste a link", "share a page"), document.getId());
+        when(resourceRepository.findByIds(List.of(document.getId()))).thenReturn(List.of(recrawled));
+        when(embeddingRepository.findChunks(List.of(document.getId()))).thenReturn(stored.stream()
+                .map(row -> new StoredChunk(row.id(), row.documentId(), row.chunkIndex(), row.headingPath(), row.embeddingKey()))
+                .toList());
+        service.embedDocuments(List.of(document.getId()));
+
+        ArgumentCaptor<ChunkChanges> captor = ArgumentCaptor.forClass(ChunkChanges.class);
+        verify(embeddingRepository, times(2)).applyChanges(captor.capture());
+        ChunkChanges changes = captor.getAllValues().get(1);
+        assertThat(changes.added()).singleElement().satisfies(row -> {
+            assertThat(row.chunkIndex()).isEqualTo(1);
+            assertThat(row.content()).contains("share a page");
+        });
+        assertThat(changes.removed()).containsExactly(usageChunk);
+        assertThat(changes.moved()).isEmpty();
+        assertThat(recrawled.getStatus()).isEqualTo(ResourceStatus.EMBEDDED);
+    }
+
+    @Test
+    void documentChangedDuringEmbeddingIsNotWritten() {
+        Resource document = crawled(MARKDOWN);
+        when(resourceRepository.findByIds(List.of(document.getId()))).thenReturn(List.of(document));
+        doReturn(Set.of()).doReturn(Set.of(document.getId())).when(resourceRepository).updateAll(any());
+
+        service.embedDocuments(List.of(document.getId()));
+
+        verify(embeddingRepository, never()).applyChanges(any());
+        verify(publisher, never()).publish(any());
+    }
+
+    private ChunkChanges captureChanges() {
+        ArgumentCaptor<ChunkChanges> captor = ArgumentCaptor.forClass(ChunkChanges.class);
+        verify(embeddingRepository).applyChanges(captor.capture());
+        return captor.getValue();
+    }
+
+    private static Resource crawled(String markdown) {
+        return crawled(markdown, UUID.randomUUID());
+    }
+
+    private static Resource crawled(String markdown, UUID id) {
+        return Resource.rehydrate(id, "https://example.com/" + id, null, "Title", () -> markdown, null,
+                ResourceStatus.CRAWLED, 1);
+    }
+}
@@ -0,0 +1,88 @@
+package com.doublez.pocketmindserver.resource.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlCanonicalizerTest {
+
+    @Test
+    void schemeAndHostAreLowercasedButPathIsNot() {
+        assertThat(UrlCanonicalizer.canonicalize("HTTPS://Example.COM/Docs/Intro"))
+                .isEqualTo("https://example.com/Docs/Intro");
+    }
+
+    @Test
+    void surroundingWhitespaceIsTrimmed() {
+        assertThat(UrlCanonicalizer.canonicalize("  https://example.com/a \n")).isEqualTo("https://example.com/a");
+    }
+
+    @Test
+    void defaultPortsAreDropped() {
+        assertThat(UrlCanonicalizer.canonicalize("http://example.com:80/a")).isEqualTo("http://example.com/a");
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com:443/a")).isEqualTo("https://example.com/a");
+    }
+
+    @Test
+    void nonDefaultPortsAreKept() {
+        assertThat(UrlCanonicalizer.canonicalize("http://example.com:8080/a")).isEqualTo("http://example.com:8080/a");
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com:80/a")).isEqualTo("https://example.com:80/a");
+    }
+
+    @Test
+    void fragmentIsDropped() {
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com/a?x=1#section-2"))
+                .isEqualTo("https://example.com/a?x=1");
+    }
+
+    @Test
+    void trackingParametersAreDropped() {
+        assertThat(UrlCanonicalizer.canonicalize(
+                "https://example.com/a?utm_source=x&UTM_Medium=y&id=7&fbclid=abc&gclid=def&spm_id_from=333"))
+                .isEqualTo("https://example.com/a?id=7");
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com/a?utm_source=x&fbclid=y"))
+                .isEqualTo("https://example.com/a");
+    }
+
+    @Test
+    void queryParametersAreSortedByKey() {
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com/a?b=2&a=1&c"))
+                .isEqualTo("https://example.com/a?a=1&b=2&c");
+    }
+
+    @Test
+    void repeatedKeysKeepTheirOriginalOrder() {
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com/a?tag=z&id=1&tag=a&tag=m"))
+                .isEqualTo("https://example.com/a?id=1&tag=z&tag=a&tag=m");
+    }
+
+    @Test
+    void emptyQueryPairsAreDropped() {
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com/a?&a=1&&")).isEqualTo("https://example.com/a?a=1");
+    }
+
+    @Test
+    void trailingSlashIsDroppedExceptAtTheRoot() {
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com/docs/")).isEqualTo("https://example.com/docs");
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com/")).isEqualTo("https://example.com/");
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com")).isEqualTo("https://example.com/");
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com?a=1")).isEqualTo("https://example.com/?a=1");
+    }
+
+    @Test
+    void unparseableOrRelativeInputIsOnlyTrimmed() {
+        assertThat(UrlCanonicalizer.canonicalize(" http://exa mple.com/A ")).isEqualTo("http://exa mple.com/A");
+        assertThat(UrlCanonicalizer.canonicalize("Not A Url")).isEqualTo("Not A Url");
+        assertThat(UrlCanonicalizer.canonicalize("/relative/Path/")).isEqualTo("/relative/Path/");
+        assertThat(UrlCanonicalizer.canonicalize("mailto:Someone@Example.com")).isEqualTo("mailto:Someone@Example.com");
+    }
+
+    @Test
+    void equivalentUrlsShareOneHash() {
+        String hash = UrlCanonicalizer.hash("https://example.com/a?b=2&a=1");
+
+        assertThat(hash).hasSize(64).matches("[0-9a-f]+");
+        assertThat(UrlCanonicalizer.hash("HTTPS://EXAMPLE.com:443/a/?a=1&utm_campaign=x&b=2#top")).isEqualTo(hash);
+        assertThat(UrlCanonicalizer.hash("https://example.com/a?a=2&b=1")).isNotEqualTo(hash);
+    }
+}
@@ -0,0 +1,121 @@
+package com.doublez.pocketmindserver.resource.infra.embedding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MarkdownChunkerTest {
+
+    private static final int MAX_TOKENS = 40;
+
+    private final MarkdownChunker chunker = new MarkdownChunker(
+            new ResourceEmbeddingProperties(null, null, null, null, MAX_TOKENS, null, null, null, null, null, null));
+
+    @Test
+    void blankInputHasNoChunks() {
+        assertThat(chunker.split(null)).isEmpty();
+        assertThat(chunker.split("  \n\n ")).isEmpty();
+    }
+
+    @Test
+    void headingsStartNewChunksAndCarryTheirPath() {
+        String markdown = """
+                Intro line.
+
+                # Install
+
+                Run the installer.
+
+                ## Linux
+
+                Use the package manager.
+
+                # Usage
+
+                Open the app.
+                """;
+
+        List<MarkdownChunker.Chunk> chunks = chunker.split(markdown);
+
+        assertThat(chunks).extracting(MarkdownChunker.Chunk::headingPath)
+                .containsExactly("", "Install", "Install > Linux", "Usage");
+        assertThat(chunks).extracting(MarkdownChunker.Chunk::content)
+                .containsExactly("Intro line.",
+                        "# Install\n\nRun the installer.",
+                        "## Linux\n\nUse the package manager.",
+                        "# Usage\n\nOpen the app.");
+        assertThat(chunks).extracting(MarkdownChunker.Chunk::index).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    void consecutiveHeadingsStayWithTheFollowingBody() {
+        List<MarkdownChunker.Chunk> chunks = chunker.split("# Guide\n## Setup\n\nStep one.");
+
+        assertThat(chunks).singleElement().satisfies(chunk -> {
+            assertThat(chunk.headingPath()).isEqualTo("Guide > Setup");
+            assertThat(chunk.content()).isEqualTo("# Guide\n\n## Setup\n\nStep one.");
+        });
+    }
+
+    @Test
+    void codeFenceIsKeptWholeInOneChunk() {
+        String fence = """
+                ```python
+                # not a heading
+
+                print("a")
+                print("b")
+                ```""";
+        String markdown = "# Code\n\n" + words(25) + "\n\n" + fence + "\n\nAfter the code.";
+
+        List<MarkdownChunker.Chunk> chunks = chunker.split(markdown);
+
+        assertThat(chunks).filteredOn(chunk -> chunk.content().contains("```"))
+                .singleElement()
+                .satisfies(chunk -> {
+                    assertThat(chunk.content()).contains(fence);
+                    assertThat(chunk.headingPath()).isEqualTo("Code");
+                });
+        assertThat(chunks).noneMatch(chunk -> chunk.headingPath().contains("not a heading"));
+    }
+
+    @Test
+    void chunksStayWithinTheTokenBound() {
+        StringBuilder markdown = new StringBuilder();
+        for (int section = 0; section < 5; section++) {
+            markdown.append("## Section ").append(section).append("\n\n");
+            markdown.append(words(15)).append("\n\n");
+            markdown.append(words(120)).append("\n\n");
+            markdown.append("- item one\n- item two\n- ").append(words(60)).append("\n\n");
+        }
+        markdown.append("x".repeat(2000));
+
+        List<MarkdownChunker.Chunk> chunks = chunker.split(markdown.toString());
+
+        assertThat(chunks).hasSizeGreaterThan(10);
+        assertThat(chunks).allSatisfy(chunk -> {
+            assertThat(chunk.tokens()).isEqualTo(chunker.countTokens(chunk.content()));
+            assertThat(chunk.tokens()).isLessThanOrEqualTo(MAX_TOKENS);
+        });
+    }
+
+    @Test
+    void editingOneSectionKeepsTheOtherChunks() {
+        String before = "# A\n\n" + words(30) + "\n\n# B\n\nOld text.\n\n# C\n\n" + words(50);
+        String after = "# A\n\n" + words(30) + "\n\n# B\n\nNew text, rather longer than before.\n\n# C\n\n" + words(50);
+
+        List<String> old = chunker.split(before).stream().map(MarkdownChunker.Chunk::content).toList();
+        List<String> updated = chunker.split(after).stream().map(MarkdownChunker.Chunk::content).toList();
+
+        assertThat(updated).hasSameSizeAs(old);
+        assertThat(updated.stream().filter(old::contains).count()).isEqualTo(old.size() - 1);
+    }
+
+    private static String words(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "word" + i).collect(Collectors.joining(" "));
+    }
+}
@@ -0,0 +1,102 @@
+package com.doublez.pocketmindserver.resource.infra.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswGraphTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @Test
+    void recallAgainstBruteForce() {
+        Random random = new Random(7);
+        VectorStorage storage = new VectorStorage(DIMENSIONS);
+        HnswGraph graph = new HnswGraph(storage, 16, 100);
+        for (int i = 0; i < 2000; i++) {
+            graph.insert(storage.add(randomUnitVector(random)));
+        }
+
+        int k = 10;
+        int found = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomUnitVector(random);
+            Set<Integer> expected = bruteForce(storage, query, k, node -> true);
+            found += (int) graph.search(query, k, 100, null).stream()
+                    .filter(scored -> expected.contains(scored.node()))
+                    .count();
+        }
+
+        assertThat((double) found / (queries * k)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void resultsAreSortedByScore() {
+        Random random = new Random(11);
+        VectorStorage storage = new VectorStorage(DIMENSIONS);
+        HnswGraph graph = new HnswGraph(storage, 8, 50);
+        for (int i = 0; i < 300; i++) {
+            graph.insert(storage.add(randomUnitVector(random)));
+        }
+
+        List<HnswGraph.Scored> found = graph.search(randomUnitVector(random), 20, 50, null);
+
+        assertThat(found).hasSize(20);
+        assertThat(found).isSortedAccordingTo(Comparator.comparing(HnswGraph.Scored::score).reversed());
+    }
+
+    @Test
+    void rejectedNodesAreSkippedButStillNavigated() {
+        Random random = new Random(13);
+        VectorStorage storage = new VectorStorage(DIMENSIONS);
+        HnswGraph graph = new HnswGraph(storage, 16, 100);
+        for (int i = 0; i < 1000; i++) {
+            graph.insert(storage.add(randomUnitVector(random)));
+        }
+        float[] query = randomUnitVector(random);
+
+        List<HnswGraph.Scored> found = graph.search(query, 10, 200, node -> node % 2 == 0);
+
+        assertThat(found).hasSize(10).allMatch(scored -> scored.node() % 2 == 0);
+        Set<Integer> expected = bruteForce(storage, query, 10, node -> node % 2 == 0);
+        assertThat(found.stream().filter(scored -> expected.contains(scored.node())).count()).isGreaterThanOrEqualTo(8);
+    }
+
+    @Test
+    void emptyGraphReturnsNothing() {
+        HnswGraph graph = new HnswGraph(new VectorStorage(DIMENSIONS), 16, 100);
+
+        assertThat(graph.search(new float[DIMENSIONS], 10, 100, null)).isEmpty();
+    }
+
+    static float[] randomUnitVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+
+    private static Set<Integer> bruteForce(VectorStorage storage, float[] query, int k, IntPredicate accept) {
+        return IntStream.range(0, storage.size())
+                .filter(accept)
+                .boxed()
+                .sorted(Comparator.comparing((Integer node) -> storage.dot(node, query)).reversed())
+                .limit(k)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,155 @@
+package com.doublez.pocketmindserver.resource.infra.vector;
+
+import com.doublez.pocketmindserver.resource.domain.ResourceSearchRepository.ChunkHit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.doublez.pocketmindserver.resource.infra.vector.HnswGraphTest.randomUnitVector;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserVectorIndexTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int M = 16;
+    private static final int EF_CONSTRUCTION = 100;
+
+    @TempDir
+    Path dir;
+
+    private final Random random = new Random(3);
+    private final List<UUID> chunks = new ArrayList<>();
+    private final List<float[]> vectors = new ArrayList<>();
+
+    @Test
+    void exactVectorIsItsOwnNearestNeighbour() {
+        UserVectorIndex index = indexWith(500);
+
+        List<ChunkHit> hits = index.search(vectors.get(123), 1, 50);
+
+        assertThat(hits).extracting(ChunkHit::chunkId).containsExactly(chunks.get(123));
+    }
+
+    @Test
+    void removedChunksAreNotReturned() {
+        UserVectorIndex index = indexWith(500);
+        Set<UUID> removed = new HashSet<>(chunks.subList(0, 250));
+
+        index.remove(removed);
+
+        for (int i = 0; i < 20; i++) {
+            List<ChunkHit> hits = index.search(vectors.get(i), 10, 100);
+            assertThat(hits).hasSize(10).noneMatch(hit -> removed.contains(hit.chunkId()));
+        }
+        assertThat(index.liveCount()).isEqualTo(250);
+        assertThat(index.deletedRatio()).isEqualTo(0.5);
+        assertThat(index.chunkIds()).doesNotContainAnyElementsOf(removed);
+    }
+
+    @Test
+    void addingTheSameChunkTwiceIsIgnored() {
+        UserVectorIndex index = indexWith(10);
+
+        index.add(chunks.get(0), UUID.randomUUID(), randomUnitVector(random));
+
+        assertThat(index.liveCount()).isEqualTo(10);
+    }
+
+    @Test
+    void compactedKeepsOnlyLiveChunks() {
+        UserVectorIndex index = indexWith(400);
+        Set<UUID> removed = new HashSet<>(chunks.subList(100, 300));
+        index.remove(removed);
+
+        UserVectorIndex compacted = index.compacted();
+
+        assertThat(compacted.deletedRatio()).isZero();
+        assertThat(compacted.chunkIds()).isEqualTo(index.chunkIds());
+        assertThat(compacted.search(vectors.get(350), 1, 50))
+                .extracting(ChunkHit::chunkId).containsExactly(chunks.get(350));
+        assertThat(compacted.search(vectors.get(150), 10, 100)).noneMatch(hit -> removed.contains(hit.chunkId()));
+    }
+
+    @Test
+    void snapshotRoundTripKeepsChunksTombstonesAndResults() throws IOException {
+        UserVectorIndex index = indexWith(600);
+        index.remove(Set.of(chunks.get(5), chunks.get(6)));
+        Path file = dir.resolve("user.idx");
+
+        index.snapshot(file);
+        UserVectorIndex loaded = UserVectorIndex.load(file, DIMENSIONS, M, EF_CONSTRUCTION);
+
+        assertThat(loaded).isNotNull();
+        assertThat(loaded.chunkIds()).isEqualTo(index.chunkIds());
+        assertThat(loaded.deletedRatio()).isEqualTo(index.deletedRatio());
+        for (int i = 0; i < 20; i++) {
+            float[] query = randomUnitVector(random);
+            assertThat(loaded.search(query, 10, 100)).isEqualTo(index.search(query, 10, 100));
+        }
+    }
+
+    @Test
+    void chunksAddedAfterLoadingAreSearchableAndSurviveTheNextSnapshot() throws IOException {
+        UserVectorIndex index = indexWith(300);
+        Path file = dir.resolve("user.idx");
+        index.snapshot(file);
+        UserVectorIndex loaded = UserVectorIndex.load(file, DIMENSIONS, M, EF_CONSTRUCTION);
+
+        UUID documentId = UUID.randomUUID();
+        for (int i = 0; i < 400; i++) {
+            UUID chunkId = UUID.randomUUID();
+            float[] vector = randomUnitVector(random);
+            loaded.add(chunkId, documentId, vector);
+            chunks.add(chunkId);
+            vectors.add(vector);
+        }
+
+        assertThat(loaded.liveCount()).isEqualTo(700);
+        assertThat(loaded.chunkIdsOf(documentId)).hasSize(400);
+        for (int i : new int[]{0, 299, 300, 555, 699}) {
+            assertThat(loaded.search(vectors.get(i), 1, 50))
+                    .extracting(ChunkHit::chunkId).containsExactly(chunks.get(i));
+        }
+
+        Path next = dir.resolve("user-2.idx");
+        loaded.snapshot(next);
+        UserVectorIndex reloaded = UserVectorIndex.load(next, DIMENSIONS, M, EF_CONSTRUCTION);
+        assertThat(reloaded.chunkIds()).isEqualTo(loaded.chunkIds());
+        assertThat(reloaded.search(vectors.get(650), 1, 50))
+                .extracting(ChunkHit::chunkId).containsExactly(chunks.get(650));
+    }
+
+    @Test
+    void incompatibleOrMissingSnapshotIsNotLoaded() throws IOException {
+        Path file = dir.resolve("user.idx");
+        assertThat(UserVectorIndex.load(file, DIMENSIONS, M, EF_CONSTRUCTION)).isNull();
+
+        indexWith(10).snapshot(file);
+        assertThat(UserVectorIndex.load(file, DIMENSIONS * 2, M, EF_CONSTRUCTION)).isNull();
+        assertThat(UserVectorIndex.load(file, DIMENSIONS, M + 1, EF_CONSTRUCTION)).isNull();
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThat(UserVectorIndex.load(file, DIMENSIONS, M, EF_CONSTRUCTION)).isNull();
+    }
+
+    private UserVectorIndex indexWith(int count) {
+        UserVectorIndex index = new UserVectorIndex(DIMENSIONS, M, EF_CONSTRUCTION);
+        for (int i = 0; i < count; i++) {
+            UUID chunkId = UUID.randomUUID();
+            float[] vector = randomUnitVector(random);
+            index.add(chunkId, UUID.randomUUID(), vector);
+            chunks.add(chunkId);
+            vectors.add(vector);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,52 @@
+package com.doublez.pocketmindserver.resource.infra.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VectorStorageTest {
+
+    private static final int DIMENSIONS = 5;
+
+    @Test
+    void vectorsAcrossPageBoundariesReadBack() {
+        VectorStorage storage = new VectorStorage(DIMENSIONS);
+        for (int node = 0; node < 1000; node++) {
+            assertThat(storage.add(vectorOf(node))).isEqualTo(node);
+        }
+
+        assertThat(storage.size()).isEqualTo(1000);
+        for (int node : new int[]{0, 255, 256, 257, 511, 512, 999}) {
+            assertThat(storage.get(node)).containsExactly(vectorOf(node));
+        }
+    }
+
+    @Test
+    void vectorsAddedAfterBaseAreAddressedFromTheFirstPage() {
+        int baseCount = 300;
+        FloatBuffer base = FloatBuffer.allocate(baseCount * DIMENSIONS);
+        for (int node = 0; node < baseCount; node++) {
+            base.put(vectorOf(node));
+        }
+        VectorStorage storage = new VectorStorage(DIMENSIONS, base.flip(), baseCount);
+        for (int node = baseCount; node < baseCount + 600; node++) {
+            assertThat(storage.add(vectorOf(node))).isEqualTo(node);
+        }
+
+        for (int node : new int[]{0, 299, 300, 555, 556, 811, 812, 899}) {
+            assertThat(storage.get(node)).containsExactly(vectorOf(node));
+        }
+        float[] query = {1, 0, 0, 0, 0};
+        assertThat(storage.dot(812, query)).isEqualTo(812f);
+    }
+
+    private static float[] vectorOf(int node) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = node + i * 0.25f;
+        }
+        return vector;
+    }
+}